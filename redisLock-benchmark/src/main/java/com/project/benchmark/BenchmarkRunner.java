@@ -0,0 +1,72 @@
+package com.project.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * benchmarks.jar 的入口， 接受 JMH 的全部命令行参数， 默认开启 GC 分析（每次操作分配的字节数）
+ * 没有指定 -t 时依次以 bench.threads 中的线程数运行， 每个线程数的结果写入 jmh-result-t{线程数}.json， 便于与上一版本对比
+ *
+ * 例如： java -Dredis.host=127.0.0.1 -jar target/benchmarks.jar LockBenchmark -p keys=1,100
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class BenchmarkRunner {
+    private static final String DEFAULT_THREADS = "1,4,16,64,256";
+    /**
+     * 256 个线程各占一个连接， 另留出锁等待和续期使用的连接， 容量固定， 避免自适应扩容影响结果
+     */
+    private static final String[][] DEFAULT_PROPERTIES = {
+            {"redis.pool.minTotal", "512"},
+            {"redis.pool.maxTotal", "512"},
+            {"redis.pool.warmUp", "64"}
+    };
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers()
+                || options.shouldListResultFormats() || options.shouldListWithParams()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        if (options.getThreads().hasValue()) {
+            new Runner(options(options).build()).run();
+            return;
+        }
+        for (String threads : System.getProperty("bench.threads", DEFAULT_THREADS).split(",")) {
+            ChainedOptionsBuilder builder = options(options).threads(Integer.parseInt(threads.trim()));
+            if (!options.getResult().hasValue()) {
+                builder.result("jmh-result-t" + threads.trim() + ".json").resultFormat(ResultFormatType.JSON);
+            }
+            new Runner(builder.build()).run();
+        }
+    }
+
+    private static ChainedOptionsBuilder options(CommandLineOptions options) {
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (options.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        // redis.* 和 bench.embedded* 系统属性传给 fork 出的测试进程
+        List<String> jvmArgs = new ArrayList<String>();
+        for (String[] property : DEFAULT_PROPERTIES) {
+            if (System.getProperty(property[0]) == null) {
+                jvmArgs.add("-D" + property[0] + "=" + property[1]);
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("redis.") || name.startsWith("bench.embedded")) {
+                jvmArgs.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        return builder.jvmArgsAppend(jvmArgs.toArray(new String[jvmArgs.size()]));
+    }
+}
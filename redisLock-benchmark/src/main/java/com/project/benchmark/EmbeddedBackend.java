@@ -0,0 +1,42 @@
+package com.project.benchmark;
+
+import com.project.EmbeddedRedisServer;
+import com.project.RedisConnectionConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * -Dbench.embedded=true 时在测试进程内启动 {@link EmbeddedRedisServer}， 不需要外部 Redis， 结果可复现
+ * 必须在第一次使用 RedisClient 之前调用， 之后 RedisClient 连接到内嵌服务端
+ * 故障注入参数： bench.embedded.latencyMicros、 jitterMicros（单向）、 lossRate、 retransmitMillis、 clockRate、 seed
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+final class EmbeddedBackend {
+    private static EmbeddedRedisServer server;
+
+    private EmbeddedBackend() {
+    }
+
+    static synchronized void startIfEnabled() {
+        if (server != null || !Boolean.getBoolean("bench.embedded")) {
+            return;
+        }
+        server = new EmbeddedRedisServer(0);
+        // 与 RedisClient 读取同一份配置（redis.properties 和 -Dredis.*）， 保证认证一致
+        String password = RedisConnectionConfig.load().getPassword();
+        server.setPassword(password == null || password.isEmpty() ? null : password);
+        server.setLatency(Long.getLong("bench.embedded.latencyMicros", 0L), Long.getLong("bench.embedded.jitterMicros", 0L),
+                TimeUnit.MICROSECONDS);
+        server.setPacketLoss(Double.parseDouble(System.getProperty("bench.embedded.lossRate", "0")),
+                Long.getLong("bench.embedded.retransmitMillis", 200L));
+        server.setClockSkew(0L, Double.parseDouble(System.getProperty("bench.embedded.clockRate", "1")));
+        server.setSeed(Long.getLong("bench.embedded.seed", 0L));
+        server.start();
+        System.setProperty("redis.host", server.getHost());
+        System.setProperty("redis.port", String.valueOf(server.getPort()));
+        System.setProperty("redis.sentinels", "");
+        System.setProperty("redis.readFromReplicas", "false");
+    }
+}
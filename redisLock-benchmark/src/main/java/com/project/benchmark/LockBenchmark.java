@@ -0,0 +1,121 @@
+package com.project.benchmark;
+
+import com.project.DefaultRedisDistributeLock;
+import com.project.LockHandle;
+import com.project.RedisClient;
+import com.project.RedisDistributeLock;
+import com.project.RedisTool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Jedis;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加锁 + 释放的吞吐， 线程数由 BenchmarkRunner 或 -t 指定， 线程多、 key 少时竞争激烈
+ * tryLockRelease 只尝试一次， 衡量脚本本身的开销； lockRelease 走 DefaultRedisDistributeLock 的完整等待流程
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LockBenchmark {
+    private static final String PREFIX = "bench:lock:";
+    private static final int EXPIRE_TIME = 1000;
+
+    /**
+     * 参与竞争的 key 个数
+     */
+    @Param({"1", "100", "10000"})
+    public int keys;
+
+    private String[] lockKeys;
+    private RedisDistributeLock locker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EmbeddedBackend.startIfEnabled();
+        lockKeys = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            lockKeys[i] = PREFIX + i;
+        }
+        locker = new DefaultRedisDistributeLock(false, EXPIRE_TIME);
+        clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clear();
+    }
+
+    private void clear() {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            for (int i = 0; i < lockKeys.length; i += 1000) {
+                String[] batch = new String[Math.min(1000, lockKeys.length - i)];
+                System.arraycopy(lockKeys, i, batch, 0, batch.length);
+                jedis.del(batch);
+            }
+        } finally {
+            jedis.close();
+        }
+    }
+
+    private String nextKey() {
+        return lockKeys.length == 1 ? lockKeys[0] : lockKeys[ThreadLocalRandom.current().nextInt(lockKeys.length)];
+    }
+
+    /**
+     * 每个线程整个测试期间占用一个连接， 排除借连接的开销
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private Jedis jedis;
+        private String requestId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            EmbeddedBackend.startIfEnabled();
+            jedis = RedisClient.getPool().getResource();
+            requestId = UUID.randomUUID().toString();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            jedis.close();
+        }
+    }
+
+    @Benchmark
+    public boolean tryLockRelease(Client client) {
+        String key = nextKey();
+        if (RedisTool.tryGetDistributedLock(client.jedis, key, client.requestId, EXPIRE_TIME)) {
+            return RedisTool.releaseDistributedLock(client.jedis, key, client.requestId);
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean lockRelease() {
+        LockHandle handle = locker.lock(nextKey());
+        return locker.release(handle);
+    }
+}
@@ -0,0 +1,406 @@
+package com.project.benchmark;
+
+import com.project.DefaultRedisDistributeLock;
+import com.project.LatencyHistogram;
+import com.project.LockHandle;
+import com.project.RedisClient;
+import com.project.RedisDistributeLock;
+import redis.clients.jedis.Jedis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分布式锁的压测工具， 在固定时间内以指定的线程数、 key 分布和持锁时间反复加锁和释放， 统计：
+ * 每秒加锁次数、 每次加锁消耗的 Redis 命令数（INFO stats 的 total_commands_processed 差值， 包括其他客户端的命令）、
+ * 等待时间和持锁时间的 p50/p99/p999， 以及释放时租约已过期和同一 key 同时被多个线程持有的次数
+ *
+ * 参数为 name=value， 也可以用 -Dload.name=value 指定：
+ * threads=64 keys=1000 distribution=uniform|zipf zipfExponent=1.0 hold=fixed:5|uniform:1-10|exp:5（毫秒）
+ * mode=unfair|fair|tryLock tryLockTimeout=100（毫秒） expireTime=1000（毫秒） warmup=5 duration=60（秒）
+ * format=text|csv|json output=文件， csv 追加写入， 便于比较多次运行
+ * 加 -Dbench.embedded=true 时使用进程内的 Redis， 见 {@link EmbeddedBackend}
+ *
+ * 例如： java -Dredis.host=127.0.0.1 -cp benchmarks.jar com.project.benchmark.LockLoadTest threads=128 keys=100 distribution=zipf mode=fair
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LockLoadTest {
+    private static final String PREFIX = "load:lock:";
+
+    private final int threads;
+    private final int keys;
+    private final String distribution;
+    private final double zipfExponent;
+    private final String hold;
+    private final String mode;
+    private final long tryLockTimeout;
+    private final int expireTime;
+    private final int warmup;
+    private final int duration;
+
+    private final KeyChooser chooser;
+    private final HoldTime holdTime;
+    private final RedisDistributeLock locker;
+    /**
+     * 每个 key 当前在本进程内的持有者个数， 大于 1 说明互斥被破坏
+     */
+    private final AtomicIntegerArray holders;
+
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram heldTime = new LatencyHistogram();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaseExpired = new AtomicLong();
+    private final AtomicLong exclusionViolations = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean running = true;
+
+    public LockLoadTest(Properties options) {
+        threads = Integer.parseInt(options.getProperty("threads", "64"));
+        keys = Integer.parseInt(options.getProperty("keys", "1000"));
+        distribution = options.getProperty("distribution", "uniform");
+        zipfExponent = Double.parseDouble(options.getProperty("zipfExponent", "1.0"));
+        hold = options.getProperty("hold", "fixed:5");
+        mode = options.getProperty("mode", "unfair");
+        tryLockTimeout = Long.parseLong(options.getProperty("tryLockTimeout", "100"));
+        expireTime = Integer.parseInt(options.getProperty("expireTime", "1000"));
+        warmup = Integer.parseInt(options.getProperty("warmup", "5"));
+        duration = Integer.parseInt(options.getProperty("duration", "60"));
+        if (!"unfair".equals(mode) && !"fair".equals(mode) && !"tryLock".equals(mode)) {
+            throw new IllegalArgumentException("unknown mode " + mode);
+        }
+        chooser = "zipf".equals(distribution) ? new ZipfKeyChooser(keys, zipfExponent) : new UniformKeyChooser(keys);
+        holdTime = HoldTime.parse(hold);
+        locker = new DefaultRedisDistributeLock("fair".equals(mode), expireTime);
+        holders = new AtomicIntegerArray(keys);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties options = new Properties();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("load.")) {
+                options.setProperty(name.substring("load.".length()), System.getProperty(name));
+            }
+        }
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("expect name=value, got " + arg);
+            }
+            options.setProperty(arg.substring(0, index), arg.substring(index + 1));
+        }
+        EmbeddedBackend.startIfEnabled();
+        LockLoadTest test = new LockLoadTest(options);
+        Map<String, Object> result = test.run();
+        test.report(result, options.getProperty("format", "text"), options.getProperty("output"));
+        System.exit(0);
+    }
+
+    /**
+     * 预热后清零统计， 再运行 duration 秒
+     *
+     * @return 按输出顺序排列的统计结果
+     */
+    public Map<String, Object> run() throws InterruptedException {
+        final CountDownLatch finished = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<Thread>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (running) {
+                            iterate();
+                        }
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            }, "load-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        TimeUnit.SECONDS.sleep(warmup);
+        reset();
+        long commandsBefore = totalCommands();
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(duration);
+        long commandsAfter = totalCommands();
+        long elapsed = System.nanoTime() - start;
+        long acquired = acquisitions.get();
+        Map<String, Object> result = snapshot(elapsed, acquired, commandsAfter - commandsBefore);
+        running = false;
+        finished.await(expireTime * 3L + tryLockTimeout, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    private void iterate() {
+        int index = chooser.next();
+        String key = PREFIX + index;
+        long start = System.nanoTime();
+        LockHandle handle;
+        try {
+            if ("tryLock".equals(mode)) {
+                handle = locker.tryLock(key, tryLockTimeout, TimeUnit.MILLISECONDS);
+            } else {
+                handle = locker.lock(key);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return;
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            return;
+        }
+        long acquired = System.nanoTime();
+        waitTime.record(acquired - start);
+        if (handle == null) {
+            timeouts.incrementAndGet();
+            return;
+        }
+        acquisitions.incrementAndGet();
+        if (holders.incrementAndGet(index) > 1) {
+            exclusionViolations.incrementAndGet();
+        }
+        try {
+            LockSupport.parkNanos(holdTime.next());
+        } finally {
+            holders.decrementAndGet(index);
+            boolean expired = handle.getRemainingLease() == 0;
+            heldTime.record(System.nanoTime() - acquired);
+            try {
+                if (!locker.release(handle) || expired) {
+                    leaseExpired.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    private void reset() {
+        waitTime.reset();
+        heldTime.reset();
+        acquisitions.set(0L);
+        timeouts.set(0L);
+        leaseExpired.set(0L);
+        exclusionViolations.set(0L);
+        errors.set(0L);
+    }
+
+    private static long totalCommands() {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            for (String line : jedis.info("stats").split("\r\n")) {
+                if (line.startsWith("total_commands_processed:")) {
+                    return Long.parseLong(line.substring("total_commands_processed:".length()).trim());
+                }
+            }
+            return -1L;
+        } finally {
+            jedis.close();
+        }
+    }
+
+    private Map<String, Object> snapshot(long elapsedNanos, long acquired, long commands) {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("mode", mode);
+        result.put("threads", threads);
+        result.put("keys", keys);
+        result.put("distribution", "zipf".equals(distribution) ? "zipf(" + zipfExponent + ")" : distribution);
+        result.put("hold", hold);
+        result.put("expireTimeMs", expireTime);
+        result.put("durationSec", round(seconds));
+        result.put("acquisitions", acquired);
+        result.put("acquisitionsPerSec", round(acquired / seconds));
+        result.put("redisCommandsPerAcquisition", acquired == 0 ? 0.0 : round((double) commands / acquired));
+        result.put("waitP50Us", micros(waitTime.percentile(0.5)));
+        result.put("waitP99Us", micros(waitTime.percentile(0.99)));
+        result.put("waitP999Us", micros(waitTime.percentile(0.999)));
+        result.put("waitMaxUs", micros(waitTime.getMax()));
+        result.put("holdP50Us", micros(heldTime.percentile(0.5)));
+        result.put("holdP99Us", micros(heldTime.percentile(0.99)));
+        result.put("holdP999Us", micros(heldTime.percentile(0.999)));
+        result.put("tryLockTimeouts", timeouts.get());
+        result.put("leaseExpired", leaseExpired.get());
+        result.put("exclusionViolations", exclusionViolations.get());
+        result.put("errors", errors.get());
+        return result;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private void report(Map<String, Object> result, String format, String output) throws IOException {
+        String text;
+        boolean header = false;
+        if ("csv".equals(format)) {
+            header = output == null || !new File(output).exists();
+            StringBuilder names = new StringBuilder();
+            StringBuilder values = new StringBuilder();
+            for (Map.Entry<String, Object> entry : result.entrySet()) {
+                names.append(names.length() == 0 ? "" : ",").append(entry.getKey());
+                values.append(values.length() == 0 ? "" : ",").append(entry.getValue());
+            }
+            text = header ? names + "\n" + values : values.toString();
+        } else if ("json".equals(format)) {
+            StringBuilder json = new StringBuilder("{");
+            for (Map.Entry<String, Object> entry : result.entrySet()) {
+                json.append(json.length() == 1 ? "" : ",").append('"').append(entry.getKey()).append("\":");
+                Object value = entry.getValue();
+                json.append(value instanceof Number ? value.toString() : "\"" + value + "\"");
+            }
+            text = json.append('}').toString();
+        } else {
+            StringBuilder lines = new StringBuilder();
+            for (Map.Entry<String, Object> entry : result.entrySet()) {
+                lines.append(String.format("%-28s %s%n", entry.getKey(), entry.getValue()));
+            }
+            text = lines.toString().trim();
+        }
+        if (output == null) {
+            System.out.println(text);
+            return;
+        }
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(output, "csv".equals(format) && !header), StandardCharsets.UTF_8));
+        try {
+            writer.println(text);
+        } finally {
+            writer.close();
+        }
+    }
+
+    interface KeyChooser {
+        /**
+         * @return key 的下标， 0 到 keys - 1
+         */
+        int next();
+    }
+
+    static class UniformKeyChooser implements KeyChooser {
+        private final int keys;
+
+        UniformKeyChooser(int keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public int next() {
+            return ThreadLocalRandom.current().nextInt(keys);
+        }
+    }
+
+    /**
+     * 第 i 个 key 被选中的概率与 1 / (i + 1)^exponent 成正比， 预先计算累积分布， 按二分查找抽样
+     */
+    static class ZipfKeyChooser implements KeyChooser {
+        private final double[] cumulative;
+
+        ZipfKeyChooser(int keys, double exponent) {
+            cumulative = new double[keys];
+            double sum = 0;
+            for (int i = 0; i < keys; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < keys; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        @Override
+        public int next() {
+            double value = ThreadLocalRandom.current().nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * 持锁时间的分布： fixed:毫秒、 uniform:最小-最大、 exp:平均值
+     */
+    abstract static class HoldTime {
+        /**
+         * @return 本次持锁的纳秒数
+         */
+        abstract long next();
+
+        static HoldTime parse(String spec) {
+            int index = spec.indexOf(':');
+            String type = index < 0 ? "fixed" : spec.substring(0, index);
+            String value = index < 0 ? spec : spec.substring(index + 1);
+            if ("fixed".equals(type)) {
+                final long nanos = millisToNanos(Double.parseDouble(value));
+                return new HoldTime() {
+                    @Override
+                    long next() {
+                        return nanos;
+                    }
+                };
+            }
+            if ("uniform".equals(type)) {
+                String[] range = value.split("-");
+                final long min = millisToNanos(Double.parseDouble(range[0]));
+                final long max = millisToNanos(Double.parseDouble(range[1]));
+                return new HoldTime() {
+                    @Override
+                    long next() {
+                        return min + (long) (ThreadLocalRandom.current().nextDouble() * (max - min));
+                    }
+                };
+            }
+            if ("exp".equals(type)) {
+                final double mean = millisToNanos(Double.parseDouble(value));
+                return new HoldTime() {
+                    @Override
+                    long next() {
+                        return (long) (-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+                    }
+                };
+            }
+            throw new IllegalArgumentException("unknown hold time " + spec);
+        }
+
+        private static long millisToNanos(double millis) {
+            return (long) (millis * 1000000L);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.project.benchmark;
+
+import com.project.RedisBatch;
+import com.project.RedisClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisClient 常用读写命令的吞吐， 包括借还连接和异常处理的开销
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisClientBenchmark {
+    private static final String PREFIX = "bench:client:";
+    private static final int EXPIRE_SECONDS = 600;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"1000"})
+    public int keys;
+
+    /**
+     * 值的字节数
+     */
+    @Param({"64"})
+    public int valueSize;
+
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EmbeddedBackend.startIfEnabled();
+        StringBuilder builder = new StringBuilder(valueSize);
+        for (int i = 0; i < valueSize; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        value = builder.toString();
+        Map<String, String> hash = new HashMap<String, String>();
+        for (int i = 0; i < 10; i++) {
+            hash.put("field" + i, value);
+        }
+        RedisBatch batch = RedisClient.batch();
+        for (int i = 0; i < keys; i++) {
+            batch.set(PREFIX + "string:" + i, value, EXPIRE_SECONDS);
+            batch.hmset(PREFIX + "hash:" + i, hash, EXPIRE_SECONDS);
+            batch.zadd(PREFIX + "zset:" + i, i, value, EXPIRE_SECONDS);
+        }
+        batch.execute();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RedisBatch batch = RedisClient.batch();
+        for (int i = 0; i < keys; i++) {
+            batch.del(PREFIX + "string:" + i);
+            batch.del(PREFIX + "hash:" + i);
+            batch.del(PREFIX + "zset:" + i);
+        }
+        batch.execute();
+    }
+
+    private int nextIndex() {
+        return ThreadLocalRandom.current().nextInt(keys);
+    }
+
+    @Benchmark
+    public String get() {
+        return RedisClient.get(PREFIX + "string:" + nextIndex());
+    }
+
+    @Benchmark
+    public boolean setWithExpire() {
+        return RedisClient.set(PREFIX + "string:" + nextIndex(), value, EXPIRE_SECONDS);
+    }
+
+    @Benchmark
+    public Map<String, String> hgetAll() {
+        return RedisClient.hgetAll(PREFIX + "hash:" + nextIndex());
+    }
+
+    @Benchmark
+    public Set<String> zrange() {
+        return RedisClient.zrange(PREFIX + "zset:" + nextIndex(), 0L, -1L);
+    }
+
+    @Benchmark
+    public Long incr() {
+        return RedisClient.incr(PREFIX + "counter:" + nextIndex());
+    }
+
+    /**
+     * 一个 pipeline 中写入 BATCH_SIZE 个 key， 吞吐按批计算
+     */
+    @Benchmark
+    public int batchSet() {
+        RedisBatch batch = RedisClient.batch(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.set(PREFIX + "string:" + nextIndex(), value, EXPIRE_SECONDS);
+        }
+        return batch.execute().size();
+    }
+}
@@ -0,0 +1,215 @@
+package com.project;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LoadState;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaString;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.compiler.LuaC;
+import org.luaj.vm2.lib.Bit32Lib;
+import org.luaj.vm2.lib.OneArgFunction;
+import org.luaj.vm2.lib.PackageLib;
+import org.luaj.vm2.lib.StringLib;
+import org.luaj.vm2.lib.TableLib;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JseBaseLib;
+import org.luaj.vm2.lib.jse.JseMathLib;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内嵌 Redis 的 EVAL/EVALSHA， 基于 luaj 执行脚本， 按 Redis 的规则转换 redis.call 的参数和返回值：
+ * 整数 <-> number， 批量回复 <-> string， 空回复 -> false， 状态回复 <-> {ok=...}， 错误回复 <-> {err=...}
+ * 只加载 base、 table、 string、 math、 bit32 库， 没有 io 和 os
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+class EmbeddedLuaEngine {
+    private static final LuaString OK = LuaValue.valueOf("ok");
+    private static final LuaString ERR = LuaValue.valueOf("err");
+
+    private final EmbeddedRedisDatabase database;
+    private final Globals globals = new Globals();
+    /**
+     * sha1 -> 编译后的脚本
+     */
+    private final Map<String, LuaValue> scripts = new HashMap<String, LuaValue>();
+
+    EmbeddedLuaEngine(EmbeddedRedisDatabase database) {
+        this.database = database;
+        globals.load(new JseBaseLib());
+        globals.load(new PackageLib());
+        globals.load(new Bit32Lib());
+        globals.load(new TableLib());
+        globals.load(new StringLib());
+        globals.load(new JseMathLib());
+        LoadState.install(globals);
+        LuaC.install(globals);
+        LuaTable redis = new LuaTable();
+        redis.set("call", new Call(true));
+        redis.set("pcall", new Call(false));
+        redis.set("status_reply", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue status) {
+                return field(OK, status);
+            }
+        });
+        redis.set("error_reply", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue error) {
+                return field(ERR, error);
+            }
+        });
+        globals.set("redis", redis);
+    }
+
+    /**
+     * 编译并缓存脚本
+     *
+     * @return 脚本的 sha1
+     */
+    String load(String script) {
+        String sha = new RedisScript(script).getSha();
+        if (!scripts.containsKey(sha)) {
+            try {
+                scripts.put(sha, globals.load(script, "@user_script"));
+            } catch (LuaError e) {
+                throw new JedisDataException("ERR Error compiling script (new function): " + e.getMessage());
+            }
+        }
+        return sha;
+    }
+
+    boolean exists(String sha) {
+        return scripts.containsKey(sha);
+    }
+
+    void flush() {
+        scripts.clear();
+    }
+
+    Object eval(String sha, List<String> keys, List<String> args) {
+        globals.set("KEYS", table(keys));
+        globals.set("ARGV", table(args));
+        try {
+            return toReply(scripts.get(sha).call());
+        } catch (LuaError e) {
+            return new JedisDataException("ERR Error running script (call to f_" + sha + "): " + e.getMessage());
+        }
+    }
+
+    private static LuaTable table(List<String> values) {
+        LuaTable table = new LuaTable(values.size(), 0);
+        for (int i = 0; i < values.size(); i++) {
+            table.set(i + 1, LuaValue.valueOf(EmbeddedRedisDatabase.bytes(values.get(i))));
+        }
+        return table;
+    }
+
+    private static LuaValue toLua(Object reply) {
+        if (reply == null) {
+            return LuaValue.FALSE;
+        }
+        if (reply instanceof Long) {
+            long value = (Long) reply;
+            return value == (int) value ? LuaValue.valueOf((int) value) : LuaValue.valueOf((double) value);
+        }
+        if (reply instanceof byte[]) {
+            return LuaValue.valueOf((byte[]) reply);
+        }
+        if (reply instanceof String) {
+            return field(OK, LuaValue.valueOf((String) reply));
+        }
+        if (reply instanceof JedisDataException) {
+            return field(ERR, LuaValue.valueOf(((JedisDataException) reply).getMessage()));
+        }
+        List<?> replies = (List<?>) reply;
+        LuaTable table = new LuaTable(replies.size(), 0);
+        for (int i = 0; i < replies.size(); i++) {
+            table.set(i + 1, toLua(replies.get(i)));
+        }
+        return table;
+    }
+
+    private static Object toReply(LuaValue value) {
+        switch (value.type()) {
+            case LuaValue.TNUMBER:
+                return (long) value.todouble();
+            case LuaValue.TSTRING:
+                return bytes(value.checkstring());
+            case LuaValue.TBOOLEAN:
+                return value.toboolean() ? 1L : null;
+            case LuaValue.TTABLE: {
+                LuaValue error = value.get(ERR);
+                if (error.isstring()) {
+                    return new JedisDataException(error.tojstring());
+                }
+                LuaValue status = value.get(OK);
+                if (status.isstring()) {
+                    return status.tojstring();
+                }
+                List<Object> replies = new ArrayList<Object>();
+                for (int i = 1; !value.get(i).isnil(); i++) {
+                    replies.add(toReply(value.get(i)));
+                }
+                return replies;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static LuaTable field(LuaString name, LuaValue value) {
+        LuaTable table = new LuaTable();
+        table.set(name, value);
+        return table;
+    }
+
+    private static byte[] bytes(LuaString value) {
+        byte[] bytes = new byte[value.length()];
+        value.copyInto(0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * redis.call 和 redis.pcall， call 遇到错误回复时抛出脚本错误， pcall 返回 {err=...}
+     */
+    private class Call extends VarArgFunction {
+        private final boolean raise;
+
+        private Call(boolean raise) {
+            this.raise = raise;
+        }
+
+        @Override
+        public Varargs invoke(Varargs args) {
+            if (args.narg() == 0) {
+                throw new LuaError("Please specify at least one argument for redis.call()");
+            }
+            List<String> command = new ArrayList<String>(args.narg());
+            for (int i = 1; i <= args.narg(); i++) {
+                LuaValue arg = args.arg(i);
+                if (arg.type() == LuaValue.TSTRING) {
+                    command.add(new String(bytes(arg.checkstring()), EmbeddedRedisDatabase.CHARSET));
+                } else if (arg.type() == LuaValue.TNUMBER) {
+                    double number = arg.todouble();
+                    command.add(number == (long) number ? String.valueOf((long) number) : String.valueOf(number));
+                } else {
+                    throw new LuaError("Lua redis() command arguments must be strings or integers");
+                }
+            }
+            Object reply = database.executeScripted(command);
+            if (raise && reply instanceof JedisDataException) {
+                throw new LuaError(((JedisDataException) reply).getMessage());
+            }
+            return toLua(reply);
+        }
+    }
+}
@@ -0,0 +1,1283 @@
+package com.project;
+
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 内嵌 Redis 的数据和命令执行， 由 {@link EmbeddedRedisServer} 在 this 上加锁串行调用， 脚本因此是原子的
+ * 字符串按 ISO-8859-1 与字节一一对应， 二进制安全
+ * 应答： String 为状态回复， byte[] 为批量回复， Long 为整数， null 为空回复， List 为多条批量回复，
+ * {@link JedisDataException} 为错误回复
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+class EmbeddedRedisDatabase {
+    static final Charset CHARSET = Charset.forName("ISO-8859-1");
+    /**
+     * 应答已经通过 {@link Session#push(Object)} 发出， 例如 SUBSCRIBE
+     */
+    static final Object NO_REPLY = new Object();
+
+    private static final String OK = "OK";
+    private static final JedisDataException WRONG_TYPE =
+            new JedisDataException("WRONGTYPE Operation against a key holding the wrong kind of value");
+    private static final JedisDataException NOT_INTEGER = new JedisDataException("ERR value is not an integer or out of range");
+    private static final JedisDataException NOT_FLOAT = new JedisDataException("ERR value is not a valid float");
+    private static final JedisDataException SYNTAX = new JedisDataException("ERR syntax error");
+    private static final Set<String> SUBSCRIBE_COMMANDS = new HashSet<String>(
+            Arrays.asList("SUBSCRIBE", "UNSUBSCRIBE", "PSUBSCRIBE", "PUNSUBSCRIBE", "PING", "QUIT"));
+
+    private final Map<String, Object> data = new HashMap<String, Object>();
+    /**
+     * key -> 过期时间点， 服务端时钟的毫秒
+     */
+    private final Map<String, Long> expires = new HashMap<String, Long>();
+    private final Map<String, Set<Session>> channels = new HashMap<String, Set<Session>>();
+    private final Map<String, Set<Session>> patterns = new HashMap<String, Set<Session>>();
+    private final Map<String, Pattern> globs = new HashMap<String, Pattern>();
+    private final Map<String, String> config = new TreeMap<String, String>();
+    private final Session scriptSession = new Session() {
+        @Override
+        void push(Object message) {
+        }
+    };
+    private EmbeddedLuaEngine lua;
+    private String password;
+    private long commands;
+    private long connections;
+    private int clients;
+
+    /**
+     * 服务端时钟， 用于注入时钟偏差： now = clockBase + 经过的时间 * clockRate
+     */
+    private long clockBase = System.currentTimeMillis();
+    private long clockNanos = System.nanoTime();
+    private double clockRate = 1.0;
+
+    EmbeddedRedisDatabase() {
+        config.put("notify-keyspace-events", "");
+        config.put("timeout", "0");
+        config.put("maxmemory", "0");
+        config.put("databases", "1");
+    }
+
+    /**
+     * 一个客户端连接的状态
+     */
+    abstract static class Session {
+        private boolean authenticated;
+        private boolean closing;
+        private final Set<String> channels = new HashSet<String>();
+        private final Set<String> patterns = new HashSet<String>();
+
+        /**
+         * 发送订阅消息或订阅确认
+         */
+        abstract void push(Object message);
+
+        boolean isClosing() {
+            return closing;
+        }
+
+        private int subscriptions() {
+            return channels.size() + patterns.size();
+        }
+    }
+
+    void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * @param offsetMillis 服务端时钟相对本地时钟的偏移
+     * @param rate         服务端时钟的走速， 大于 1 时过期时间提前到达
+     */
+    void setClock(long offsetMillis, double rate) {
+        clockBase = System.currentTimeMillis() + offsetMillis;
+        clockNanos = System.nanoTime();
+        clockRate = rate;
+    }
+
+    long now() {
+        return clockBase + (long) ((System.nanoTime() - clockNanos) / 1e6 * clockRate);
+    }
+
+    long getCommandCount() {
+        return commands;
+    }
+
+    void connected() {
+        connections++;
+        clients++;
+    }
+
+    void disconnected(Session session) {
+        clients--;
+        unsubscribeAll(session, session.channels, channels, "unsubscribe", false);
+        unsubscribeAll(session, session.patterns, patterns, "punsubscribe", false);
+    }
+
+    void flushAll() {
+        data.clear();
+        expires.clear();
+    }
+
+    /**
+     * 主动删除已过期的 key， 和 Redis 一样访问时也会检查过期
+     */
+    void expireKeys() {
+        long now = now();
+        List<String> expired = new ArrayList<String>();
+        for (Map.Entry<String, Long> entry : expires.entrySet()) {
+            if (entry.getValue() <= now) {
+                expired.add(entry.getKey());
+            }
+        }
+        for (String key : expired) {
+            remove(key);
+            notify('x', "expired", key);
+        }
+    }
+
+    /**
+     * 执行客户端的一条命令
+     */
+    Object execute(Session session, List<String> command) {
+        if (command.isEmpty()) {
+            return new JedisDataException("ERR empty command");
+        }
+        String name = command.get(0).toUpperCase();
+        if (password != null && !session.authenticated && !"AUTH".equals(name) && !"QUIT".equals(name)) {
+            return new JedisDataException("NOAUTH Authentication required.");
+        }
+        if (session.subscriptions() > 0 && !SUBSCRIBE_COMMANDS.contains(name)) {
+            return new JedisDataException("ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT allowed in this context");
+        }
+        try {
+            return dispatch(session, name, command);
+        } catch (JedisDataException e) {
+            return e;
+        }
+    }
+
+    /**
+     * 执行脚本中 redis.call 的命令
+     */
+    Object executeScripted(List<String> command) {
+        String name = command.get(0).toUpperCase();
+        if (SUBSCRIBE_COMMANDS.contains(name) || name.startsWith("EVAL") || "SCRIPT".equals(name) || "AUTH".equals(name)) {
+            return new JedisDataException("ERR This Redis command is not allowed from scripts");
+        }
+        try {
+            return dispatch(scriptSession, name, command);
+        } catch (JedisDataException e) {
+            return e;
+        }
+    }
+
+    private Object dispatch(Session session, String name, List<String> c) {
+        commands++;
+        switch (name) {
+            // 连接和服务端
+            case "PING":
+                if (session.subscriptions() > 0) {
+                    return Arrays.<Object>asList(bytes("pong"), bytes(c.size() > 1 ? c.get(1) : ""));
+                }
+                return c.size() > 1 ? bytes(c.get(1)) : "PONG";
+            case "ECHO":
+                arity(c, 2);
+                return bytes(c.get(1));
+            case "AUTH":
+                arity(c, 2);
+                if (password == null) {
+                    throw new JedisDataException("ERR Client sent AUTH, but no password is set");
+                }
+                if (!password.equals(c.get(1))) {
+                    session.authenticated = false;
+                    throw new JedisDataException("ERR invalid password");
+                }
+                session.authenticated = true;
+                return OK;
+            case "SELECT":
+                arity(c, 2);
+                if (!"0".equals(c.get(1))) {
+                    throw new JedisDataException("ERR invalid DB index");
+                }
+                return OK;
+            case "QUIT":
+                session.closing = true;
+                return OK;
+            case "CLIENT":
+                return OK;
+            case "TIME": {
+                long now = now();
+                return Arrays.<Object>asList(bytes(String.valueOf(now / 1000)), bytes(String.valueOf(now % 1000 * 1000)));
+            }
+            case "DBSIZE":
+                return (long) data.size();
+            case "FLUSHDB":
+            case "FLUSHALL":
+                flushAll();
+                return OK;
+            case "INFO":
+                return bytes(info());
+            case "CONFIG":
+                return config(c);
+
+            // key
+            case "DEL": {
+                minArity(c, 2);
+                long removed = 0;
+                for (int i = 1; i < c.size(); i++) {
+                    if (lookup(c.get(i)) != null) {
+                        remove(c.get(i));
+                        notify('g', "del", c.get(i));
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+            case "EXISTS": {
+                minArity(c, 2);
+                long found = 0;
+                for (int i = 1; i < c.size(); i++) {
+                    if (lookup(c.get(i)) != null) {
+                        found++;
+                    }
+                }
+                return found;
+            }
+            case "EXPIRE":
+            case "PEXPIRE": {
+                arity(c, 3);
+                long ttl = parseLong(c.get(2));
+                return expire(c.get(1), "EXPIRE".equals(name) ? ttl * 1000 : ttl) ? 1L : 0L;
+            }
+            case "TTL":
+            case "PTTL": {
+                arity(c, 2);
+                long ttl = pttl(c.get(1));
+                return "TTL".equals(name) && ttl > 0 ? (ttl + 500) / 1000 : ttl;
+            }
+            case "PERSIST":
+                arity(c, 2);
+                if (lookup(c.get(1)) != null && expires.remove(c.get(1)) != null) {
+                    notify('g', "persist", c.get(1));
+                    return 1L;
+                }
+                return 0L;
+            case "TYPE":
+                arity(c, 2);
+                return type(lookup(c.get(1)));
+            case "KEYS": {
+                arity(c, 2);
+                Pattern pattern = glob(c.get(1));
+                List<Object> keys = new ArrayList<Object>();
+                for (String key : new ArrayList<String>(data.keySet())) {
+                    if (pattern.matcher(key).matches() && lookup(key) != null) {
+                        keys.add(bytes(key));
+                    }
+                }
+                return keys;
+            }
+            case "SCAN":
+                minArity(c, 2);
+                expireKeys();
+                return scan(data.keySet(), null, c, 1);
+
+            // string
+            case "GET":
+                arity(c, 2);
+                return bytes(get(c.get(1), String.class));
+            case "MGET": {
+                minArity(c, 2);
+                List<Object> values = new ArrayList<Object>();
+                for (int i = 1; i < c.size(); i++) {
+                    Object value = lookup(c.get(i));
+                    values.add(value instanceof String ? bytes((String) value) : null);
+                }
+                return values;
+            }
+            case "SET":
+                minArity(c, 3);
+                return set(c);
+            case "SETNX":
+                arity(c, 3);
+                if (lookup(c.get(1)) != null) {
+                    return 0L;
+                }
+                put(c.get(1), c.get(2));
+                notify('$', "set", c.get(1));
+                return 1L;
+            case "SETEX":
+            case "PSETEX": {
+                arity(c, 4);
+                long ttl = parseLong(c.get(2));
+                if (ttl <= 0) {
+                    throw new JedisDataException("ERR invalid expire time in " + name.toLowerCase());
+                }
+                put(c.get(1), c.get(3));
+                expires.put(c.get(1), now() + ("SETEX".equals(name) ? ttl * 1000 : ttl));
+                notify('$', "set", c.get(1));
+                notify('g', "expire", c.get(1));
+                return OK;
+            }
+            case "INCR":
+                arity(c, 2);
+                return incrBy(c.get(1), 1L);
+            case "DECR":
+                arity(c, 2);
+                return incrBy(c.get(1), -1L);
+            case "INCRBY":
+                arity(c, 3);
+                return incrBy(c.get(1), parseLong(c.get(2)));
+            case "DECRBY":
+                arity(c, 3);
+                return incrBy(c.get(1), -parseLong(c.get(2)));
+
+            // hash
+            case "HSET":
+            case "HMSET": {
+                minArity(c, 4);
+                if (c.size() % 2 != 0) {
+                    throw new JedisDataException("ERR wrong number of arguments for '" + name.toLowerCase() + "' command");
+                }
+                Hash hash = getOrCreate(c.get(1), Hash.class, Hash.FACTORY);
+                long added = 0;
+                for (int i = 2; i < c.size(); i += 2) {
+                    if (hash.put(c.get(i), c.get(i + 1)) == null) {
+                        added++;
+                    }
+                }
+                notify('h', "hset", c.get(1));
+                return "HMSET".equals(name) ? OK : (Object) added;
+            }
+            case "HSETNX": {
+                arity(c, 4);
+                Hash hash = getOrCreate(c.get(1), Hash.class, Hash.FACTORY);
+                if (hash.containsKey(c.get(2))) {
+                    return 0L;
+                }
+                hash.put(c.get(2), c.get(3));
+                notify('h', "hset", c.get(1));
+                return 1L;
+            }
+            case "HGET": {
+                arity(c, 3);
+                Hash hash = get(c.get(1), Hash.class);
+                return hash == null ? null : bytes(hash.get(c.get(2)));
+            }
+            case "HMGET": {
+                minArity(c, 3);
+                Hash hash = get(c.get(1), Hash.class);
+                List<Object> values = new ArrayList<Object>();
+                for (int i = 2; i < c.size(); i++) {
+                    values.add(hash == null ? null : bytes(hash.get(c.get(i))));
+                }
+                return values;
+            }
+            case "HDEL": {
+                minArity(c, 3);
+                Hash hash = get(c.get(1), Hash.class);
+                long removed = 0;
+                if (hash != null) {
+                    for (int i = 2; i < c.size(); i++) {
+                        if (hash.remove(c.get(i)) != null) {
+                            removed++;
+                        }
+                    }
+                    if (removed > 0) {
+                        notify('h', "hdel", c.get(1));
+                    }
+                    removeIfEmpty(c.get(1), hash.isEmpty());
+                }
+                return removed;
+            }
+            case "HLEN": {
+                arity(c, 2);
+                Hash hash = get(c.get(1), Hash.class);
+                return hash == null ? 0L : (long) hash.size();
+            }
+            case "HEXISTS": {
+                arity(c, 3);
+                Hash hash = get(c.get(1), Hash.class);
+                return hash != null && hash.containsKey(c.get(2)) ? 1L : 0L;
+            }
+            case "HGETALL":
+            case "HKEYS":
+            case "HVALS": {
+                arity(c, 2);
+                Hash hash = get(c.get(1), Hash.class);
+                List<Object> values = new ArrayList<Object>();
+                if (hash != null) {
+                    for (Map.Entry<String, String> entry : hash.entrySet()) {
+                        if (!"HVALS".equals(name)) {
+                            values.add(bytes(entry.getKey()));
+                        }
+                        if (!"HKEYS".equals(name)) {
+                            values.add(bytes(entry.getValue()));
+                        }
+                    }
+                }
+                return values;
+            }
+            case "HINCRBY": {
+                arity(c, 4);
+                Hash hash = getOrCreate(c.get(1), Hash.class, Hash.FACTORY);
+                String current = hash.get(c.get(2));
+                long value = (current == null ? 0L : parseLong(current)) + parseLong(c.get(3));
+                hash.put(c.get(2), String.valueOf(value));
+                notify('h', "hincrby", c.get(1));
+                return value;
+            }
+            case "HSCAN": {
+                minArity(c, 3);
+                Hash hash = get(c.get(1), Hash.class);
+                return scan(hash == null ? Collections.<String>emptySet() : hash.keySet(), hash, c, 2);
+            }
+
+            // set
+            case "SADD": {
+                minArity(c, 3);
+                StringSet set = getOrCreate(c.get(1), StringSet.class, StringSet.FACTORY);
+                long added = 0;
+                for (int i = 2; i < c.size(); i++) {
+                    if (set.add(c.get(i))) {
+                        added++;
+                    }
+                }
+                notify('s', "sadd", c.get(1));
+                return added;
+            }
+            case "SREM": {
+                minArity(c, 3);
+                StringSet set = get(c.get(1), StringSet.class);
+                long removed = 0;
+                if (set != null) {
+                    for (int i = 2; i < c.size(); i++) {
+                        if (set.remove(c.get(i))) {
+                            removed++;
+                        }
+                    }
+                    if (removed > 0) {
+                        notify('s', "srem", c.get(1));
+                    }
+                    removeIfEmpty(c.get(1), set.isEmpty());
+                }
+                return removed;
+            }
+            case "SMEMBERS": {
+                arity(c, 2);
+                StringSet set = get(c.get(1), StringSet.class);
+                return set == null ? new ArrayList<Object>() : strings(set);
+            }
+            case "SISMEMBER": {
+                arity(c, 3);
+                StringSet set = get(c.get(1), StringSet.class);
+                return set != null && set.contains(c.get(2)) ? 1L : 0L;
+            }
+            case "SCARD": {
+                arity(c, 2);
+                StringSet set = get(c.get(1), StringSet.class);
+                return set == null ? 0L : (long) set.size();
+            }
+            case "SSCAN": {
+                minArity(c, 3);
+                StringSet set = get(c.get(1), StringSet.class);
+                return scan(set == null ? Collections.<String>emptySet() : set, null, c, 2);
+            }
+
+            // sorted set
+            case "ZADD": {
+                minArity(c, 4);
+                if (c.size() % 2 != 0) {
+                    throw SYNTAX;
+                }
+                double[] scores = new double[c.size() / 2 - 1];
+                for (int i = 2; i < c.size(); i += 2) {
+                    scores[i / 2 - 1] = parseDouble(c.get(i));
+                }
+                ZSet zset = getOrCreate(c.get(1), ZSet.class, ZSet.FACTORY);
+                long added = 0;
+                for (int i = 2; i < c.size(); i += 2) {
+                    if (zset.add(c.get(i + 1), scores[i / 2 - 1])) {
+                        added++;
+                    }
+                }
+                notify('z', "zadd", c.get(1));
+                return added;
+            }
+            case "ZINCRBY": {
+                arity(c, 4);
+                double increment = parseDouble(c.get(2));
+                ZSet zset = getOrCreate(c.get(1), ZSet.class, ZSet.FACTORY);
+                Double current = zset.scores.get(c.get(3));
+                double score = (current == null ? 0 : current) + increment;
+                zset.add(c.get(3), score);
+                notify('z', "zincr", c.get(1));
+                return bytes(formatScore(score));
+            }
+            case "ZREM": {
+                minArity(c, 3);
+                ZSet zset = get(c.get(1), ZSet.class);
+                long removed = 0;
+                if (zset != null) {
+                    for (int i = 2; i < c.size(); i++) {
+                        if (zset.remove(c.get(i))) {
+                            removed++;
+                        }
+                    }
+                    if (removed > 0) {
+                        notify('z', "zrem", c.get(1));
+                    }
+                    removeIfEmpty(c.get(1), zset.scores.isEmpty());
+                }
+                return removed;
+            }
+            case "ZSCORE": {
+                arity(c, 3);
+                ZSet zset = get(c.get(1), ZSet.class);
+                Double score = zset == null ? null : zset.scores.get(c.get(2));
+                return score == null ? null : bytes(formatScore(score));
+            }
+            case "ZCARD": {
+                arity(c, 2);
+                ZSet zset = get(c.get(1), ZSet.class);
+                return zset == null ? 0L : (long) zset.scores.size();
+            }
+            case "ZRANK":
+            case "ZREVRANK": {
+                arity(c, 3);
+                ZSet zset = get(c.get(1), ZSet.class);
+                if (zset == null || !zset.scores.containsKey(c.get(2))) {
+                    return null;
+                }
+                long rank = zset.order.headSet(c.get(2)).size();
+                return "ZRANK".equals(name) ? rank : zset.scores.size() - 1 - rank;
+            }
+            case "ZRANGE":
+            case "ZREVRANGE": {
+                minArity(c, 4);
+                boolean withScores = c.size() > 4 && "WITHSCORES".equalsIgnoreCase(c.get(4));
+                ZSet zset = get(c.get(1), ZSet.class);
+                List<Object> values = new ArrayList<Object>();
+                if (zset != null) {
+                    for (String member : zset.range(parseLong(c.get(2)), parseLong(c.get(3)), "ZREVRANGE".equals(name))) {
+                        values.add(bytes(member));
+                        if (withScores) {
+                            values.add(bytes(formatScore(zset.scores.get(member))));
+                        }
+                    }
+                }
+                return values;
+            }
+            case "ZREMRANGEBYRANK": {
+                arity(c, 4);
+                ZSet zset = get(c.get(1), ZSet.class);
+                if (zset == null) {
+                    return 0L;
+                }
+                List<String> members = zset.range(parseLong(c.get(2)), parseLong(c.get(3)), false);
+                for (String member : members) {
+                    zset.remove(member);
+                }
+                if (!members.isEmpty()) {
+                    notify('z', "zremrangebyrank", c.get(1));
+                }
+                removeIfEmpty(c.get(1), zset.scores.isEmpty());
+                return (long) members.size();
+            }
+            case "ZSCAN": {
+                minArity(c, 3);
+                ZSet zset = get(c.get(1), ZSet.class);
+                return scan(zset == null ? Collections.<String>emptySet() : zset.scores.keySet(), zset, c, 2);
+            }
+
+            // list
+            case "LPUSH":
+            case "RPUSH": {
+                minArity(c, 3);
+                StringList list = getOrCreate(c.get(1), StringList.class, StringList.FACTORY);
+                for (int i = 2; i < c.size(); i++) {
+                    if ("LPUSH".equals(name)) {
+                        list.addFirst(c.get(i));
+                    } else {
+                        list.addLast(c.get(i));
+                    }
+                }
+                notify('l', name.toLowerCase(), c.get(1));
+                return (long) list.size();
+            }
+            case "LPOP":
+            case "RPOP": {
+                arity(c, 2);
+                StringList list = get(c.get(1), StringList.class);
+                if (list == null) {
+                    return null;
+                }
+                String value = "LPOP".equals(name) ? list.removeFirst() : list.removeLast();
+                notify('l', name.toLowerCase(), c.get(1));
+                removeIfEmpty(c.get(1), list.isEmpty());
+                return bytes(value);
+            }
+            case "LLEN": {
+                arity(c, 2);
+                StringList list = get(c.get(1), StringList.class);
+                return list == null ? 0L : (long) list.size();
+            }
+            case "LINDEX": {
+                arity(c, 3);
+                StringList list = get(c.get(1), StringList.class);
+                if (list == null) {
+                    return null;
+                }
+                long index = parseLong(c.get(2));
+                if (index < 0) {
+                    index += list.size();
+                }
+                return index < 0 || index >= list.size() ? null : bytes(list.get((int) index));
+            }
+            case "LRANGE": {
+                arity(c, 4);
+                StringList list = get(c.get(1), StringList.class);
+                List<Object> values = new ArrayList<Object>();
+                if (list != null) {
+                    int[] range = range(parseLong(c.get(2)), parseLong(c.get(3)), list.size());
+                    for (int i = range[0]; i <= range[1]; i++) {
+                        values.add(bytes(list.get(i)));
+                    }
+                }
+                return values;
+            }
+            case "LREM": {
+                arity(c, 4);
+                StringList list = get(c.get(1), StringList.class);
+                if (list == null) {
+                    return 0L;
+                }
+                long count = parseLong(c.get(2));
+                long removed = 0;
+                ListIterator<String> iterator = count < 0 ? list.listIterator(list.size()) : list.listIterator();
+                while ((count < 0 ? iterator.hasPrevious() : iterator.hasNext()) && (count == 0 || removed < Math.abs(count))) {
+                    String value = count < 0 ? iterator.previous() : iterator.next();
+                    if (value.equals(c.get(3))) {
+                        iterator.remove();
+                        removed++;
+                    }
+                }
+                if (removed > 0) {
+                    notify('l', "lrem", c.get(1));
+                }
+                removeIfEmpty(c.get(1), list.isEmpty());
+                return removed;
+            }
+
+            // 发布订阅
+            case "PUBLISH":
+                arity(c, 3);
+                return publish(c.get(1), c.get(2));
+            case "SUBSCRIBE":
+            case "PSUBSCRIBE": {
+                minArity(c, 2);
+                boolean pattern = "PSUBSCRIBE".equals(name);
+                for (int i = 1; i < c.size(); i++) {
+                    String channel = c.get(i);
+                    (pattern ? session.patterns : session.channels).add(channel);
+                    Map<String, Set<Session>> registry = pattern ? patterns : channels;
+                    Set<Session> sessions = registry.get(channel);
+                    if (sessions == null) {
+                        sessions = new LinkedHashSet<Session>();
+                        registry.put(channel, sessions);
+                    }
+                    sessions.add(session);
+                    session.push(Arrays.<Object>asList(bytes(name.toLowerCase()), bytes(channel), (long) session.subscriptions()));
+                }
+                return NO_REPLY;
+            }
+            case "UNSUBSCRIBE":
+            case "PUNSUBSCRIBE": {
+                boolean pattern = "PUNSUBSCRIBE".equals(name);
+                Set<String> names = pattern ? session.patterns : session.channels;
+                Collection<String> targets = c.size() > 1 ? c.subList(1, c.size()) : new ArrayList<String>(names);
+                if (targets.isEmpty()) {
+                    session.push(Arrays.<Object>asList(bytes(name.toLowerCase()), null, (long) session.subscriptions()));
+                }
+                unsubscribeAll(session, targets, pattern ? patterns : channels, name.toLowerCase(), true);
+                return NO_REPLY;
+            }
+
+            // 脚本
+            case "EVAL":
+            case "EVALSHA": {
+                minArity(c, 3);
+                long numKeys = parseLong(c.get(2));
+                if (numKeys < 0 || numKeys > c.size() - 3) {
+                    throw new JedisDataException("ERR Number of keys can't be greater than number of args");
+                }
+                List<String> keys = c.subList(3, 3 + (int) numKeys);
+                List<String> args = c.subList(3 + (int) numKeys, c.size());
+                String sha = "EVAL".equals(name) ? lua().load(c.get(1)) : c.get(1).toLowerCase();
+                if (!lua().exists(sha)) {
+                    throw new JedisNoScriptException("NOSCRIPT No matching script. Please use EVAL.");
+                }
+                return lua().eval(sha, keys, args);
+            }
+            case "SCRIPT": {
+                minArity(c, 2);
+                String sub = c.get(1).toUpperCase();
+                if ("LOAD".equals(sub)) {
+                    arity(c, 3);
+                    return bytes(lua().load(c.get(2)));
+                }
+                if ("EXISTS".equals(sub)) {
+                    List<Object> exists = new ArrayList<Object>();
+                    for (int i = 2; i < c.size(); i++) {
+                        exists.add(lua().exists(c.get(i).toLowerCase()) ? 1L : 0L);
+                    }
+                    return exists;
+                }
+                if ("FLUSH".equals(sub)) {
+                    lua().flush();
+                    return OK;
+                }
+                throw new JedisDataException("ERR Unknown SCRIPT subcommand or wrong # of args.");
+            }
+            default:
+                commands--;
+                throw new JedisDataException("ERR unknown command '" + c.get(0) + "'");
+        }
+    }
+
+    private EmbeddedLuaEngine lua() {
+        if (lua == null) {
+            lua = new EmbeddedLuaEngine(this);
+        }
+        return lua;
+    }
+
+    private Object set(List<String> c) {
+        boolean nx = false;
+        boolean xx = false;
+        long ttl = -1;
+        for (int i = 3; i < c.size(); i++) {
+            String option = c.get(i).toUpperCase();
+            if ("NX".equals(option)) {
+                nx = true;
+            } else if ("XX".equals(option)) {
+                xx = true;
+            } else if (("EX".equals(option) || "PX".equals(option)) && i + 1 < c.size()) {
+                ttl = parseLong(c.get(++i));
+                if (ttl <= 0) {
+                    throw new JedisDataException("ERR invalid expire time in set");
+                }
+                ttl = "EX".equals(option) ? ttl * 1000 : ttl;
+            } else {
+                throw SYNTAX;
+            }
+        }
+        String key = c.get(1);
+        boolean exists = lookup(key) != null;
+        if ((nx && exists) || (xx && !exists)) {
+            return null;
+        }
+        put(key, c.get(2));
+        notify('$', "set", key);
+        if (ttl > 0) {
+            expires.put(key, now() + ttl);
+            notify('g', "expire", key);
+        }
+        return OK;
+    }
+
+    private long incrBy(String key, long increment) {
+        String current = get(key, String.class);
+        long value = (current == null ? 0L : parseLong(current)) + increment;
+        data.put(key, String.valueOf(value));
+        notify('$', "incrby", key);
+        return value;
+    }
+
+    private boolean expire(String key, long millis) {
+        if (lookup(key) == null) {
+            return false;
+        }
+        if (millis <= 0) {
+            remove(key);
+            notify('g', "del", key);
+        } else {
+            expires.put(key, now() + millis);
+            notify('g', "expire", key);
+        }
+        return true;
+    }
+
+    private long pttl(String key) {
+        if (lookup(key) == null) {
+            return -2L;
+        }
+        Long at = expires.get(key);
+        return at == null ? -1L : Math.max(0L, at - now());
+    }
+
+    private static String type(Object value) {
+        if (value == null) {
+            return "none";
+        }
+        if (value instanceof String) {
+            return "string";
+        }
+        if (value instanceof Hash) {
+            return "hash";
+        }
+        if (value instanceof StringSet) {
+            return "set";
+        }
+        if (value instanceof ZSet) {
+            return "zset";
+        }
+        return "list";
+    }
+
+    private long publish(String channel, String message) {
+        long receivers = 0;
+        Set<Session> sessions = channels.get(channel);
+        if (sessions != null) {
+            for (Session session : sessions) {
+                session.push(Arrays.<Object>asList(bytes("message"), bytes(channel), bytes(message)));
+                receivers++;
+            }
+        }
+        for (Map.Entry<String, Set<Session>> entry : patterns.entrySet()) {
+            if (glob(entry.getKey()).matcher(channel).matches()) {
+                for (Session session : entry.getValue()) {
+                    session.push(Arrays.<Object>asList(bytes("pmessage"), bytes(entry.getKey()), bytes(channel), bytes(message)));
+                    receivers++;
+                }
+            }
+        }
+        return receivers;
+    }
+
+    private void unsubscribeAll(Session session, Collection<String> targets, Map<String, Set<Session>> registry,
+                                String reply, boolean confirm) {
+        for (String channel : new ArrayList<String>(targets)) {
+            (registry == patterns ? session.patterns : session.channels).remove(channel);
+            Set<Session> sessions = registry.get(channel);
+            if (sessions != null) {
+                sessions.remove(session);
+                if (sessions.isEmpty()) {
+                    registry.remove(channel);
+                }
+            }
+            if (confirm) {
+                session.push(Arrays.<Object>asList(bytes(reply), bytes(channel), (long) session.subscriptions()));
+            }
+        }
+    }
+
+    /**
+     * keyspace 通知， 按 notify-keyspace-events 的配置发布
+     *
+     * @param type 事件类别， 与 notify-keyspace-events 中的字母一致
+     */
+    private void notify(char type, String event, String key) {
+        String flags = config.get("notify-keyspace-events");
+        if (flags.indexOf(type) < 0 && flags.indexOf('A') < 0) {
+            return;
+        }
+        if (flags.indexOf('K') >= 0) {
+            publish("__keyspace@0__:" + key, event);
+        }
+        if (flags.indexOf('E') >= 0) {
+            publish("__keyevent@0__:" + event, key);
+        }
+    }
+
+    private Object config(List<String> c) {
+        minArity(c, 3);
+        String sub = c.get(1).toUpperCase();
+        if ("GET".equals(sub)) {
+            Pattern pattern = glob(c.get(2));
+            List<Object> values = new ArrayList<Object>();
+            for (Map.Entry<String, String> entry : config.entrySet()) {
+                if (pattern.matcher(entry.getKey()).matches()) {
+                    values.add(bytes(entry.getKey()));
+                    values.add(bytes(entry.getValue()));
+                }
+            }
+            return values;
+        }
+        if ("SET".equals(sub)) {
+            arity(c, 4);
+            config.put(c.get(2), c.get(3));
+            return OK;
+        }
+        throw new JedisDataException("ERR CONFIG subcommand must be one of GET, SET");
+    }
+
+    private String info() {
+        int volatileKeys = expires.size();
+        return "# Server\r\n"
+                + "redis_version:2.8.19\r\n"
+                + "redis_mode:standalone\r\n"
+                + "embedded:1\r\n"
+                + "\r\n# Clients\r\n"
+                + "connected_clients:" + clients + "\r\n"
+                + "\r\n# Stats\r\n"
+                + "total_connections_received:" + connections + "\r\n"
+                + "total_commands_processed:" + commands + "\r\n"
+                + "\r\n# Replication\r\n"
+                + "role:master\r\n"
+                + "connected_slaves:0\r\n"
+                + "\r\n# Keyspace\r\n"
+                + (data.isEmpty() ? "" : "db0:keys=" + data.size() + ",expires=" + volatileKeys + ",avg_ttl=0\r\n");
+    }
+
+    /**
+     * SCAN 系列命令， 按元素哈希值的顺序遍历， 游标为下一个哈希值 + 1， 遍历期间一直存在的元素都会返回
+     * 哈希值相同的元素总在同一页返回， 因此游标不会把它们拆开
+     *
+     * @param values   hash 的 field 值或 zset 的分值， 为 null 时只返回元素
+     * @param optionAt 游标参数的下标
+     */
+    private List<Object> scan(Collection<String> elements, Object values, List<String> c, int optionAt) {
+        long cursor = parseLong(c.get(optionAt));
+        Pattern match = null;
+        int count = 10;
+        for (int i = optionAt + 1; i + 1 < c.size(); i += 2) {
+            String option = c.get(i).toUpperCase();
+            if ("MATCH".equals(option)) {
+                match = glob(c.get(i + 1));
+            } else if ("COUNT".equals(option)) {
+                count = (int) Math.max(1L, parseLong(c.get(i + 1)));
+            } else {
+                throw SYNTAX;
+            }
+        }
+        long from = cursor <= 0 ? 0L : cursor - 1;
+        TreeMap<Long, List<String>> page = new TreeMap<Long, List<String>>();
+        boolean more = false;
+        for (String element : elements) {
+            long hash = scanHash(element);
+            if (hash < from) {
+                continue;
+            }
+            List<String> bucket = page.get(hash);
+            if (bucket == null) {
+                if (page.size() >= count) {
+                    more = true;
+                    if (hash > page.lastKey()) {
+                        continue;
+                    }
+                    page.pollLastEntry();
+                }
+                bucket = new ArrayList<String>(1);
+                page.put(hash, bucket);
+            }
+            bucket.add(element);
+        }
+        List<Object> result = new ArrayList<Object>();
+        for (List<String> bucket : page.values()) {
+            for (String element : bucket) {
+                if (match != null && !match.matcher(element).matches()) {
+                    continue;
+                }
+                result.add(bytes(element));
+                if (values instanceof Hash) {
+                    result.add(bytes(((Hash) values).get(element)));
+                } else if (values instanceof ZSet) {
+                    result.add(bytes(formatScore(((ZSet) values).scores.get(element))));
+                }
+            }
+        }
+        long next = more ? page.lastKey() + 2 : 0L;
+        return Arrays.<Object>asList(bytes(String.valueOf(next)), result);
+    }
+
+    private static long scanHash(String element) {
+        int h = element.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 访问 key， 已过期的先删除
+     */
+    private Object lookup(String key) {
+        Long at = expires.get(key);
+        if (at != null && at <= now()) {
+            remove(key);
+            notify('x', "expired", key);
+            return null;
+        }
+        return data.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, Class<T> type) {
+        Object value = lookup(key);
+        if (value != null && !type.isInstance(value)) {
+            throw WRONG_TYPE;
+        }
+        return (T) value;
+    }
+
+    private <T> T getOrCreate(String key, Class<T> type, Supplier<T> factory) {
+        T value = get(key, type);
+        if (value == null) {
+            value = factory.get();
+            data.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 覆盖写入字符串， 同时清除过期时间
+     */
+    private void put(String key, String value) {
+        data.put(key, value);
+        expires.remove(key);
+    }
+
+    private void remove(String key) {
+        data.remove(key);
+        expires.remove(key);
+    }
+
+    private void removeIfEmpty(String key, boolean empty) {
+        if (empty) {
+            remove(key);
+        }
+    }
+
+    private Pattern glob(String glob) {
+        Pattern pattern = globs.get(glob);
+        if (pattern == null) {
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char ch = glob.charAt(i);
+                switch (ch) {
+                    case '*':
+                        regex.append(".*");
+                        break;
+                    case '?':
+                        regex.append('.');
+                        break;
+                    case '[': {
+                        int end = glob.indexOf(']', i + 1);
+                        if (end < 0) {
+                            regex.append("\\[");
+                            break;
+                        }
+                        String set = glob.substring(i + 1, end).replace("\\", "\\\\");
+                        regex.append('[').append(set.startsWith("^") ? "^" + set.substring(1) : set).append(']');
+                        i = end;
+                        break;
+                    }
+                    case '\\':
+                        if (i + 1 < glob.length()) {
+                            regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                        }
+                        break;
+                    default:
+                        regex.append(Pattern.quote(String.valueOf(ch)));
+                }
+            }
+            pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+            if (globs.size() > 10000) {
+                globs.clear();
+            }
+            globs.put(glob, pattern);
+        }
+        return pattern;
+    }
+
+    private static List<Object> strings(Collection<String> values) {
+        List<Object> result = new ArrayList<Object>(values.size());
+        for (String value : values) {
+            result.add(bytes(value));
+        }
+        return result;
+    }
+
+    static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(CHARSET);
+    }
+
+    private static void arity(List<String> c, int expected) {
+        if (c.size() != expected) {
+            throw new JedisDataException("ERR wrong number of arguments for '" + c.get(0).toLowerCase() + "' command");
+        }
+    }
+
+    private static void minArity(List<String> c, int expected) {
+        if (c.size() < expected) {
+            throw new JedisDataException("ERR wrong number of arguments for '" + c.get(0).toLowerCase() + "' command");
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw NOT_INTEGER;
+        }
+    }
+
+    private static double parseDouble(String value) {
+        try {
+            if ("+inf".equalsIgnoreCase(value) || "inf".equalsIgnoreCase(value)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            if ("-inf".equalsIgnoreCase(value)) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            double score = Double.parseDouble(value);
+            if (Double.isNaN(score)) {
+                throw NOT_FLOAT;
+            }
+            return score;
+        } catch (NumberFormatException e) {
+            throw NOT_FLOAT;
+        }
+    }
+
+    private static String formatScore(double score) {
+        if (Double.isInfinite(score)) {
+            return score > 0 ? "inf" : "-inf";
+        }
+        if (score == Math.rint(score) && Math.abs(score) < 1e17) {
+            return String.valueOf((long) score);
+        }
+        return String.valueOf(score);
+    }
+
+    /**
+     * Redis 的下标区间， 负数从末尾计算
+     *
+     * @return {起始, 结束}， 起始大于结束表示为空
+     */
+    private static int[] range(long start, long stop, int size) {
+        if (start < 0) {
+            start += size;
+        }
+        if (stop < 0) {
+            stop += size;
+        }
+        start = Math.max(0L, start);
+        stop = Math.min(size - 1L, stop);
+        return new int[]{(int) start, (int) stop};
+    }
+
+    static class Hash extends LinkedHashMap<String, String> {
+        private static final long serialVersionUID = 1L;
+        static final Supplier<Hash> FACTORY = new Supplier<Hash>() {
+            @Override
+            public Hash get() {
+                return new Hash();
+            }
+        };
+    }
+
+    static class StringSet extends HashSet<String> {
+        private static final long serialVersionUID = 1L;
+        static final Supplier<StringSet> FACTORY = new Supplier<StringSet>() {
+            @Override
+            public StringSet get() {
+                return new StringSet();
+            }
+        };
+    }
+
+    static class StringList extends LinkedList<String> {
+        private static final long serialVersionUID = 1L;
+        static final Supplier<StringList> FACTORY = new Supplier<StringList>() {
+            @Override
+            public StringList get() {
+                return new StringList();
+            }
+        };
+    }
+
+    /**
+     * 有序集合， order 按 分值、 成员 排序， 修改分值前先从 order 中移除
+     */
+    static class ZSet {
+        static final Supplier<ZSet> FACTORY = new Supplier<ZSet>() {
+            @Override
+            public ZSet get() {
+                return new ZSet();
+            }
+        };
+        private final Map<String, Double> scores = new HashMap<String, Double>();
+        private final TreeSet<String> order = new TreeSet<String>(new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                int result = Double.compare(scores.get(a), scores.get(b));
+                return result != 0 ? result : a.compareTo(b);
+            }
+        });
+
+        /**
+         * @return 是否为新成员
+         */
+        boolean add(String member, double score) {
+            Double old = scores.get(member);
+            if (old != null) {
+                if (old == score) {
+                    return false;
+                }
+                order.remove(member);
+            }
+            scores.put(member, score);
+            order.add(member);
+            return old == null;
+        }
+
+        boolean remove(String member) {
+            if (!scores.containsKey(member)) {
+                return false;
+            }
+            order.remove(member);
+            scores.remove(member);
+            return true;
+        }
+
+        List<String> range(long start, long stop, boolean reverse) {
+            int[] range = EmbeddedRedisDatabase.range(start, stop, scores.size());
+            List<String> members = new ArrayList<String>(Math.max(0, range[1] - range[0] + 1));
+            if (range[0] > range[1]) {
+                return members;
+            }
+            Iterator<String> iterator = reverse ? order.descendingIterator() : order.iterator();
+            for (int i = 0; i <= range[1] && iterator.hasNext(); i++) {
+                String member = iterator.next();
+                if (i >= range[0]) {
+                    members.add(member);
+                }
+            }
+            return members;
+        }
+    }
+}
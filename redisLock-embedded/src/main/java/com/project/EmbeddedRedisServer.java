@@ -0,0 +1,332 @@
+package com.project;
+
+import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.group.ChannelGroup;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内的 RESP 服务端， 用于没有 Redis 的单元测试和压测环境， 只在 redisLock-embedded 模块中， 不随 redisLock 发布
+ * 支持 RedisTool 和 RedisClient 用到的命令：
+ * 字符串（SET NX/PX 等）、 hash、 set、 zset、 list、 过期、 SCAN 系列、 发布订阅、 keyspace 通知、 EVAL/EVALSHA（基于 luaj）
+ * 所有命令在同一把锁下串行执行， 与 Redis 单线程的语义一致
+ *
+ * 可以注入网络和时钟故障， 随机数使用固定种子， 同样的请求顺序下结果可复现：
+ * 单向延迟和抖动（请求和应答各延迟一次）、 丢包（按 TCP 重传计， 该消息及同一连接上其后的消息推迟 retransmit 时间）、
+ * 断开全部连接、 服务端时钟的偏移和走速（走速大于 1 时锁提前过期）
+ *
+ * 例如：
+ * EmbeddedRedisServer server = new EmbeddedRedisServer(0);
+ * server.setPassword("123456");
+ * server.setLatency(200, 50, TimeUnit.MICROSECONDS);
+ * server.start();
+ * System.setProperty("redis.port", String.valueOf(server.getPort()));
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class EmbeddedRedisServer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedRedisServer.class);
+    public static final String HOST = "127.0.0.1";
+    /**
+     * 主动删除过期 key 的间隔， 毫秒
+     */
+    private static final long EXPIRE_INTERVAL = 100L;
+    private static final long DEFAULT_RETRANSMIT_MILLIS = 200L;
+
+    private final int requestedPort;
+    private final EmbeddedRedisDatabase database = new EmbeddedRedisDatabase();
+    private final ChannelGroup clients = new DefaultChannelGroup("embedded-redis-clients");
+    private final Random random = new Random(0L);
+    private ServerBootstrap bootstrap;
+    private Channel serverChannel;
+    private ScheduledExecutorService timer;
+    private volatile int port;
+
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile double lossRate;
+    private volatile long retransmitNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_RETRANSMIT_MILLIS);
+
+    /**
+     * @param port 监听端口， 0 表示由系统分配， 启动后通过 {@link #getPort()} 获取
+     */
+    public EmbeddedRedisServer(int port) {
+        this.requestedPort = port;
+    }
+
+    public synchronized void start() {
+        if (serverChannel != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("embedded-redis-timer"));
+        timer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (database) {
+                    database.expireKeys();
+                }
+            }
+        }, EXPIRE_INTERVAL, EXPIRE_INTERVAL, TimeUnit.MILLISECONDS);
+        ExecutorService executor = Executors.newCachedThreadPool(daemonThreads("embedded-redis-io"));
+        bootstrap = new ServerBootstrap(new NioServerSocketChannelFactory(executor, executor));
+        bootstrap.setOption("reuseAddress", true);
+        bootstrap.setOption("child.tcpNoDelay", true);
+        bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
+            @Override
+            public ChannelPipeline getPipeline() {
+                return Channels.pipeline(new RedisReplyDecoder(), new RedisReplyEncoder(), new ConnectionHandler());
+            }
+        });
+        serverChannel = bootstrap.bind(new InetSocketAddress(HOST, requestedPort));
+        port = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        logger.info("embedded redis started, " + HOST + ":" + port);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (serverChannel == null) {
+            return;
+        }
+        serverChannel.close().awaitUninterruptibly();
+        clients.close().awaitUninterruptibly();
+        bootstrap.releaseExternalResources();
+        timer.shutdownNow();
+        serverChannel = null;
+        logger.info("embedded redis stopped, " + HOST + ":" + port);
+    }
+
+    public String getHost() {
+        return HOST;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @param password 为 null 时不需要认证
+     */
+    public void setPassword(String password) {
+        synchronized (database) {
+            database.setPassword(password);
+        }
+    }
+
+    /**
+     * 单向网络延迟， 请求到达和应答返回各延迟一次， 每次在 [latency, latency + jitter) 中随机
+     */
+    public void setLatency(long latency, long jitter, TimeUnit unit) {
+        this.latencyNanos = unit.toNanos(latency);
+        this.jitterNanos = unit.toNanos(jitter);
+    }
+
+    /**
+     * @param rate             每条消息（请求或应答）丢包的概率
+     * @param retransmitMillis 丢包后重传的延迟， Linux 的最小 RTO 为 200 毫秒
+     */
+    public void setPacketLoss(double rate, long retransmitMillis) {
+        this.lossRate = rate;
+        this.retransmitNanos = TimeUnit.MILLISECONDS.toNanos(retransmitMillis);
+    }
+
+    /**
+     * @param offsetMillis 服务端时钟相对本地时钟的偏移， 影响 TIME 和绝对过期时间
+     * @param rate         服务端时钟的走速， 1.1 表示比本地快 10%， 租约会提前过期
+     */
+    public void setClockSkew(long offsetMillis, double rate) {
+        synchronized (database) {
+            database.setClock(offsetMillis, rate);
+        }
+    }
+
+    /**
+     * 重置延迟抖动和丢包的随机数种子
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * 断开全部客户端连接， 模拟网络中断或服务端重启（数据保留）
+     */
+    public void dropConnections() {
+        clients.close().awaitUninterruptibly();
+    }
+
+    public void flushAll() {
+        synchronized (database) {
+            database.flushAll();
+        }
+    }
+
+    /**
+     * @return 已执行的命令数， 包括脚本中调用的命令
+     */
+    public long getCommandCount() {
+        synchronized (database) {
+            return database.getCommandCount();
+        }
+    }
+
+    /**
+     * 本次消息的单向延迟， 纳秒
+     */
+    private long delay() {
+        long delay = latencyNanos;
+        if (jitterNanos > 0) {
+            delay += (long) (random.nextDouble() * jitterNanos);
+        }
+        if (lossRate > 0 && random.nextDouble() < lossRate) {
+            delay += retransmitNanos;
+        }
+        return delay;
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * 一个方向上的消息队列， 按到达顺序执行， 后面的消息不会早于前面的消息， 与 TCP 的队头阻塞一致
+     * 没有延迟且队列为空时直接在当前线程执行
+     */
+    private final class Lane implements Runnable {
+        private final ArrayDeque<Object[]> queue = new ArrayDeque<Object[]>();
+        private long last;
+
+        void submit(long delay, Runnable task) {
+            long deadline;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (delay <= 0 && queue.isEmpty()) {
+                    task.run();
+                    return;
+                }
+                deadline = Math.max(now + delay, last);
+                last = deadline;
+                queue.add(new Object[]{deadline, task});
+            }
+            timer.schedule(this, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            long now = System.nanoTime();
+            while (!queue.isEmpty() && (Long) queue.peek()[0] <= now) {
+                ((Runnable) queue.poll()[1]).run();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends SimpleChannelUpstreamHandler {
+        private final Lane inbound = new Lane();
+        private final Lane outbound = new Lane();
+        private Channel channel;
+        private final EmbeddedRedisDatabase.Session session = new EmbeddedRedisDatabase.Session() {
+            @Override
+            void push(Object message) {
+                reply(message, false);
+            }
+        };
+
+        @Override
+        public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) {
+            channel = e.getChannel();
+            clients.add(channel);
+            synchronized (database) {
+                database.connected();
+            }
+        }
+
+        @Override
+        public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) {
+            synchronized (database) {
+                database.disconnected(session);
+            }
+        }
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+            if (!(e.getMessage() instanceof List)) {
+                reply(new JedisDataException("ERR Protocol error: expected multibulk request"), true);
+                return;
+            }
+            List<?> request = (List<?>) e.getMessage();
+            final List<String> command = new ArrayList<String>(request.size());
+            for (Object arg : request) {
+                command.add(arg instanceof byte[] ? new String((byte[]) arg, EmbeddedRedisDatabase.CHARSET) : String.valueOf(arg));
+            }
+            inbound.submit(delay(), new Runnable() {
+                @Override
+                public void run() {
+                    Object reply;
+                    boolean closing;
+                    synchronized (database) {
+                        reply = database.execute(session, command);
+                        closing = session.isClosing();
+                    }
+                    if (reply != EmbeddedRedisDatabase.NO_REPLY) {
+                        reply(reply, closing);
+                    }
+                }
+            });
+        }
+
+        private void reply(final Object reply, final boolean close) {
+            outbound.submit(delay(), new Runnable() {
+                @Override
+                public void run() {
+                    if (!channel.isConnected()) {
+                        return;
+                    }
+                    if (close) {
+                        channel.write(reply == null ? RedisReplyDecoder.NULL : reply).addListener(ChannelFutureListener.CLOSE);
+                    } else {
+                        channel.write(reply == null ? RedisReplyDecoder.NULL : reply);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+            logger.debug("embedded redis connection error", e.getCause());
+            e.getChannel().close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.project;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.List;
+
+/**
+ * 把应答编码为 RESP， 与 {@link RedisReplyDecoder} 的类型对应：
+ * String 为状态回复， Long 为整数， byte[] 为批量回复， List 为多条批量回复， {@link RedisReplyDecoder#NULL} 为空回复，
+ * {@link JedisDataException} 为错误回复
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+class RedisReplyEncoder extends OneToOneEncoder {
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    @Override
+    protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg) {
+        if (msg instanceof ChannelBuffer) {
+            return msg;
+        }
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(64);
+        write(buffer, msg);
+        return buffer;
+    }
+
+    private static void write(ChannelBuffer buffer, Object reply) {
+        if (reply == null || reply == RedisReplyDecoder.NULL) {
+            buffer.writeBytes(SafeEncoder.encode("$-1"));
+            buffer.writeBytes(CRLF);
+        } else if (reply instanceof byte[]) {
+            byte[] bulk = (byte[]) reply;
+            line(buffer, '$', String.valueOf(bulk.length));
+            buffer.writeBytes(bulk);
+            buffer.writeBytes(CRLF);
+        } else if (reply instanceof String) {
+            line(buffer, '+', (String) reply);
+        } else if (reply instanceof Long) {
+            line(buffer, ':', reply.toString());
+        } else if (reply instanceof JedisDataException) {
+            line(buffer, '-', ((JedisDataException) reply).getMessage());
+        } else {
+            List<?> replies = (List<?>) reply;
+            line(buffer, '*', String.valueOf(replies.size()));
+            for (Object element : replies) {
+                write(buffer, element);
+            }
+        }
+    }
+
+    private static void line(ChannelBuffer buffer, char type, String value) {
+        buffer.writeByte(type);
+        buffer.writeBytes(SafeEncoder.encode(value));
+        buffer.writeBytes(CRLF);
+    }
+}
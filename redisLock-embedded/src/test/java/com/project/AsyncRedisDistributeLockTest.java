@@ -0,0 +1,133 @@
+package com.project;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class AsyncRedisDistributeLockTest {
+    private EmbeddedRedisServer server;
+    private AsyncRedisConnection connection;
+    private AsyncRedisDistributeLock lock;
+
+    @Before
+    public void setUp() {
+        server = EmbeddedRedis.start();
+        connection = new AsyncRedisConnection(server.getHost(), server.getPort(), EmbeddedRedis.password(), 2000);
+        lock = new AsyncRedisDistributeLock(connection, 2000);
+    }
+
+    @After
+    public void tearDown() {
+        connection.close();
+    }
+
+    /**
+     * 大量等待者由释放通知依次唤醒， 每个都拿到锁， 任何时刻只有一个持有者
+     */
+    @Test(timeout = 30000)
+    public void waitersAcquireInTurn() throws Exception {
+        final String key = "test:async:turn";
+        final AtomicInteger holders = new AtomicInteger();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        LockHandle first = lock.lockAsync(key).get();
+        List<CompletableFuture<Boolean>> released = new ArrayList<CompletableFuture<Boolean>>();
+        for (int i = 0; i < 50; i++) {
+            final CompletableFuture<Boolean> done = new CompletableFuture<Boolean>();
+            lock.lockAsync(key).whenComplete(new BiConsumer<LockHandle, Throwable>() {
+                @Override
+                public void accept(LockHandle handle, Throwable e) {
+                    if (e != null) {
+                        done.completeExceptionally(e);
+                        return;
+                    }
+                    if (holders.incrementAndGet() != 1) {
+                        overlapped.set(true);
+                    }
+                    holders.decrementAndGet();
+                    lock.releaseAsync(handle).whenComplete(new BiConsumer<Boolean, Throwable>() {
+                        @Override
+                        public void accept(Boolean ok, Throwable e) {
+                            if (e != null) {
+                                done.completeExceptionally(e);
+                            } else {
+                                done.complete(ok);
+                            }
+                        }
+                    });
+                }
+            });
+            released.add(done);
+        }
+        assertTrue(lock.releaseAsync(first).get());
+        for (CompletableFuture<Boolean> done : released) {
+            assertTrue(done.get());
+        }
+        assertFalse(overlapped.get());
+        assertFalse(EmbeddedRedis.exists(key));
+    }
+
+    /**
+     * 等满超时结果为 null
+     */
+    @Test(timeout = 30000)
+    public void tryLockAsyncTimesOut() throws Exception {
+        String key = "test:async:timeout";
+        assertTrue(EmbeddedRedis.lockAs(key, "other", 10000));
+        long start = System.nanoTime();
+        assertNull(lock.tryLockAsync(key, 300L, TimeUnit.MILLISECONDS).get());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed = " + elapsed, elapsed >= 250L && elapsed < 2000L);
+    }
+
+    /**
+     * 等待中取消， 锁释放后这次请求不会占用锁
+     */
+    @Test(timeout = 30000)
+    public void cancelWhileWaiting() throws Exception {
+        String key = "test:async:cancel";
+        assertTrue(EmbeddedRedis.lockAs(key, "other", 10000));
+        CompletableFuture<LockHandle> future = lock.lockAsync(key);
+        Thread.sleep(100L);
+        assertTrue(future.cancel(false));
+        assertTrue(EmbeddedRedis.releaseAs(key, "other"));
+        Thread.sleep(300L);
+        assertFalse(EmbeddedRedis.exists(key));
+    }
+
+    /**
+     * 加锁命令在途时取消， 随后拿到的锁立即被释放， 不必等租约过期
+     */
+    @Test(timeout = 30000)
+    public void cancelWhileInFlightReleasesLock() throws Exception {
+        final String key = "test:async:in-flight";
+        server.setLatency(100L, 0L, TimeUnit.MILLISECONDS);
+        // 加锁命令在 lockAsync 返回前已经发出
+        CompletableFuture<LockHandle> future = lock.lockAsync(key);
+        assertTrue(future.cancel(false));
+        long start = System.nanoTime();
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return !EmbeddedRedis.exists(key);
+            }
+        }, 5000L));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed = " + elapsed, elapsed < 1500L);
+    }
+}
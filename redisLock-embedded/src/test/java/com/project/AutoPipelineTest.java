@@ -0,0 +1,120 @@
+package com.project;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class AutoPipelineTest {
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+    }
+
+    @After
+    public void tearDown() {
+        RedisClient.disableAutoPipelining();
+    }
+
+    /**
+     * 合并发送的命令各自拿到自己的应答
+     */
+    @Test(timeout = 30000)
+    public void repliesMatchCommands() throws Exception {
+        RedisClient.enableAutoPipelining(2, 64, 50L);
+        List<Thread> threads = new ArrayList<Thread>();
+        final AtomicBoolean mismatch = new AtomicBoolean();
+        for (int t = 0; t < 8; t++) {
+            final int id = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 200; i++) {
+                        String key = "test:pipeline:" + id + ":" + i;
+                        RedisClient.set(key, String.valueOf(i));
+                        if (!String.valueOf(i).equals(RedisClient.get(key))) {
+                            mismatch.set(true);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(mismatch.get());
+    }
+
+    /**
+     * 命令并发执行时反复开关自动 pipeline， 没有线程卡住， 每条命令恰好执行一次
+     */
+    @Test(timeout = 60000)
+    public void togglingWhileIssuingCommands() throws Exception {
+        final String key = "test:pipeline:counter";
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong issued = new AtomicLong();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (running.get()) {
+                        RedisClient.incr(key);
+                        issued.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (int i = 0; i < 200; i++) {
+            RedisClient.enableAutoPipelining(2, 16, 0L);
+            Thread.sleep(2L);
+            RedisClient.disableAutoPipelining();
+        }
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join(10000L);
+            assertFalse("command hung after auto pipeline closed", thread.isAlive());
+        }
+        assertEquals(String.valueOf(issued.get()), RedisClient.get(key));
+    }
+
+    /**
+     * 关闭后提交的命令没有发出， 以 ClosedException 结束
+     */
+    @Test(timeout = 30000)
+    public void executeAfterCloseThrows() {
+        AutoPipeline pipeline = new AutoPipeline(RedisClient.getPool(), 1, 16, 0L);
+        pipeline.close();
+        try {
+            pipeline.execute(new AutoPipeline.Command<Long>() {
+                @Override
+                public Response<Long> apply(Pipeline pipeline) {
+                    return pipeline.incr("test:pipeline:closed");
+                }
+            });
+            fail();
+        } catch (AutoPipeline.ClosedException e) {
+            // 命令没有发出
+        }
+        assertFalse(EmbeddedRedis.exists("test:pipeline:closed"));
+    }
+}
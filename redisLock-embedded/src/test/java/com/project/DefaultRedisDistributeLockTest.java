@@ -0,0 +1,116 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class DefaultRedisDistributeLockTest {
+    private EmbeddedRedisServer server;
+
+    @Before
+    public void setUp() {
+        server = EmbeddedRedis.start();
+    }
+
+    /**
+     * 公平锁按排队顺序交接
+     */
+    @Test(timeout = 30000)
+    public void fairLockIsFifo() throws Exception {
+        final String key = "test:fair";
+        final DefaultRedisDistributeLock lock = new DefaultRedisDistributeLock(true, 2000);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        LockHandle first = lock.lock(key);
+        List<Thread> waiters = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final int id = i;
+            Thread waiter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    LockHandle handle = lock.lock(key);
+                    order.add(id);
+                    lock.release(handle);
+                }
+            });
+            waiter.start();
+            waiters.add(waiter);
+            // 等这个线程进入队列再启动下一个， 保证排队顺序
+            final long queued = i + 1;
+            assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+                @Override
+                public boolean test() {
+                    return EmbeddedRedis.llen("redis_lock__queue:" + key) == queued;
+                }
+            }, 5000L));
+        }
+        assertTrue(lock.release(first));
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3), order);
+    }
+
+    /**
+     * 服务端时钟走得快时租约按服务端时间提前过期， 其他客户端可以拿到锁， 原持有者释放失败
+     */
+    @Test(timeout = 30000)
+    public void leaseExpiresEarlyUnderFastServerClock() throws Exception {
+        DefaultRedisDistributeLock lock = new DefaultRedisDistributeLock(false, 1000);
+
+        LockHandle normal = lock.lock("test:clock:normal");
+        Thread.sleep(600L);
+        assertFalse(EmbeddedRedis.lockAs("test:clock:normal", "other", 1000));
+        assertTrue(lock.release(normal));
+
+        server.setClockSkew(0L, 2.0);
+        LockHandle skewed = lock.lock("test:clock:fast");
+        Thread.sleep(600L);
+        // 本地计算的租约还没到期， 服务端已经过期
+        assertTrue(skewed.getRemainingLease() > 0);
+        assertTrue(EmbeddedRedis.lockAs("test:clock:fast", "other", 1000));
+        assertFalse(lock.release(skewed));
+    }
+
+    /**
+     * 开启看门狗后持有时间可以远超 expireTime， 期间其他客户端拿不到锁
+     */
+    @Test(timeout = 30000)
+    public void watchdogRenewsLease() throws Exception {
+        DefaultRedisDistributeLock lock = new DefaultRedisDistributeLock(false, 300, true);
+        LockHandle handle = lock.lock("test:watchdog");
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(200L);
+            assertFalse(EmbeddedRedis.lockAs("test:watchdog", "other", 300));
+        }
+        assertNotNull(handle);
+        assertTrue(handle.getRemainingLease() > 0);
+        assertTrue(lock.release(handle));
+        assertFalse(EmbeddedRedis.exists("test:watchdog"));
+    }
+
+    /**
+     * Jedis 接口的 release 在锁已被别人拿走时只尝试一次， 记为释放失败
+     */
+    @Test(timeout = 30000)
+    public void jedisReleaseOfLostLockReturns() {
+        DefaultRedisDistributeLock lock = new DefaultRedisDistributeLock(false, 2000, false, "test-release");
+        lock.getMetrics().reset();
+        assertTrue(EmbeddedRedis.lockAs("test:lost", "other", 5000));
+        lock.release(RedisClient.getPool().getResource(), "test:lost", "me");
+        assertEquals(1L, lock.getMetrics().getReleaseFailures());
+        assertTrue(EmbeddedRedis.exists("test:lost"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试共用的内嵌 Redis， 每个 JVM 只启动一次， RedisClient 初始化之前必须先调用 {@link #start()}
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+final class EmbeddedRedis {
+    private static EmbeddedRedisServer server;
+
+    private EmbeddedRedis() {
+    }
+
+    /**
+     * 启动服务端（已启动时直接返回）， 清空数据并撤销上一个测试注入的故障
+     */
+    static synchronized EmbeddedRedisServer start() {
+        if (server == null) {
+            server = new EmbeddedRedisServer(0);
+            server.setPassword(password());
+            server.start();
+            System.setProperty("redis.host", server.getHost());
+            System.setProperty("redis.port", String.valueOf(server.getPort()));
+            System.setProperty("redis.sentinels", "");
+            System.setProperty("redis.readFromReplicas", "false");
+        }
+        server.setLatency(0L, 0L, TimeUnit.MILLISECONDS);
+        server.setPacketLoss(0.0, 200L);
+        server.setClockSkew(0L, 1.0);
+        server.setSeed(0L);
+        server.flushAll();
+        return server;
+    }
+
+    /**
+     * @return 配置中的 Redis 密码， 未配置时为 null
+     */
+    static String password() {
+        String password = RedisConnectionConfig.load().getPassword();
+        return password == null || password.isEmpty() ? null : password;
+    }
+
+    static String get(String key) {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            return jedis.get(key);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    /**
+     * 绕过 RedisClient 直接写入， 模拟其他客户端的修改
+     */
+    static void set(String key, String value) {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            jedis.set(key, value);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    static boolean exists(String key) {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            return jedis.exists(key);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    /**
+     * 以 owner 的身份加一次普通锁， 模拟其他进程持有
+     */
+    static boolean lockAs(String key, String owner, int expireTime) {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            return RedisTool.tryGetDistributedLock(jedis, key, owner, expireTime);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    static boolean releaseAs(String key, String owner) {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            return RedisTool.releaseDistributedLock(jedis, key, owner);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    static long llen(String key) {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            return jedis.llen(key);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    /**
+     * 轮询直到条件成立， 超时返回 false
+     */
+    static boolean await(Condition condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.test()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5L);
+        }
+        return true;
+    }
+
+    interface Condition {
+        boolean test();
+    }
+}
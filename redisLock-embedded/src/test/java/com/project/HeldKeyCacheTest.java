@@ -0,0 +1,84 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class HeldKeyCacheTest {
+    private EmbeddedRedisServer server;
+    private DefaultRedisDistributeLock lock;
+
+    @Before
+    public void setUp() {
+        server = EmbeddedRedis.start();
+        lock = new DefaultRedisDistributeLock(false, 2000);
+    }
+
+    /**
+     * 加锁失败记下持有者的剩余租约， 到期前本 JVM 的 tryLock 直接失败， 不访问 Redis
+     */
+    @Test(timeout = 30000)
+    public void cachedHolderSkipsRedis() throws Exception {
+        String key = "test:held:skip";
+        assertTrue(EmbeddedRedis.lockAs(key, "other", 10000));
+        assertNull(lock.tryLock(key, 0L, TimeUnit.MILLISECONDS));
+        long remaining = HeldKeyCache.getInstance().remaining(key);
+        assertTrue("remaining = " + remaining, remaining > 9000L && remaining <= 10000L);
+
+        long commands = server.getCommandCount();
+        for (int i = 0; i < 100; i++) {
+            assertNull(lock.tryLock(key, 0L, TimeUnit.MILLISECONDS));
+        }
+        assertEquals(commands, server.getCommandCount());
+        HeldKeyCache.getInstance().invalidate(key);
+    }
+
+    /**
+     * 持有者崩溃没有释放通知时， 等待者按 PTTL 等到租约到期再重试， 期间不轮询 Redis
+     */
+    @Test(timeout = 30000)
+    public void waitersRetryAtHolderExpiry() throws Exception {
+        final String key = "test:held:expiry";
+        assertTrue(EmbeddedRedis.lockAs(key, "crashed", 1000));
+        long start = System.nanoTime();
+        final AtomicLong acquiredAt = new AtomicLong(Long.MAX_VALUE);
+        List<Thread> waiters = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            Thread waiter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    LockHandle handle = lock.lock(key);
+                    synchronized (acquiredAt) {
+                        acquiredAt.set(Math.min(acquiredAt.get(), System.nanoTime()));
+                    }
+                    lock.release(handle);
+                }
+            });
+            waiter.start();
+            waiters.add(waiter);
+        }
+        // 订阅和订阅后的一次重试都在租约前段完成， 之后直到到期都没有命令
+        Thread.sleep(300L);
+        long commands = server.getCommandCount();
+        Thread.sleep(500L);
+        assertEquals(commands, server.getCommandCount());
+
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+        long first = TimeUnit.NANOSECONDS.toMillis(acquiredAt.get() - start);
+        assertTrue("first acquired after " + first, first >= 900L && first < 1500L);
+    }
+}
@@ -0,0 +1,114 @@
+package com.project;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class InstrumentedJedisPoolTest {
+    private EmbeddedRedisServer server;
+    private InstrumentedJedisPool pool;
+
+    @Before
+    public void setUp() {
+        server = EmbeddedRedis.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.destroy();
+        }
+    }
+
+    /**
+     * 借连接排队时按周期扩容， 直到上限； 负载消失后逐步缩容
+     */
+    @Test(timeout = 30000)
+    public void growsUnderContentionAndShrinksWhenIdle() throws Exception {
+        pool = pool("test-adaptive", 2, 8, 1L);
+        final PoolMetrics metrics = pool.getMetrics();
+        assertEquals(2, metrics.getMaxTotal());
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 16; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (running.get()) {
+                        Jedis jedis = pool.getResource();
+                        try {
+                            jedis.incr("test:pool:counter");
+                            Thread.sleep(5L);
+                        } catch (InterruptedException e) {
+                            return;
+                        } finally {
+                            jedis.close();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        boolean grown = EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return metrics.getMaxTotal() == 8;
+            }
+        }, 10000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("maxTotal = " + metrics.getMaxTotal(), grown);
+        assertTrue(metrics.getBorrowCount() > 0);
+        assertTrue(metrics.getBorrowWaitP99Micros() > 1000L);
+
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return metrics.getMaxTotal() < 8;
+            }
+        }, 5000L));
+    }
+
+    /**
+     * 目标等待时间小于 0 时不调整容量
+     */
+    @Test(timeout = 30000)
+    public void fixedWhenNotAdaptive() throws Exception {
+        pool = pool("test-fixed", 2, 8, -1L);
+        List<Jedis> borrowed = new ArrayList<Jedis>();
+        borrowed.add(pool.getResource());
+        borrowed.add(pool.getResource());
+        Thread.sleep(1500L);
+        assertEquals(2, pool.getMetrics().getMaxTotal());
+        assertEquals(2, pool.getMetrics().getNumActive());
+        for (Jedis jedis : borrowed) {
+            jedis.close();
+        }
+        assertEquals(2L, pool.getMetrics().getBorrowCount());
+    }
+
+    private InstrumentedJedisPool pool(String name, int minTotal, int maxTotal, long targetWaitMillis) {
+        GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setMaxTotal(minTotal);
+        config.setMaxIdle(minTotal);
+        return new InstrumentedJedisPool(config, server.getHost(), server.getPort(), 2000, EmbeddedRedis.password(),
+                name, minTotal, maxTotal, targetWaitMillis);
+    }
+}
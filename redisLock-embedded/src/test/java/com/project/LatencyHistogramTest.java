@@ -0,0 +1,58 @@
+package com.project;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * 多线程记录到不同的行， 读取时合并后的总数、 最大值和分位数与单线程一致
+     */
+    @Test(timeout = 30000)
+    public void concurrentRecordsMerge() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 1; i <= 10000; i++) {
+                        histogram.record(i * 1000L);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80000L, histogram.getCount());
+        assertEquals(10000000L, histogram.getMax());
+        assertEquals(5000500L, histogram.getMean());
+        assertWithin(5000000L, histogram.percentile(0.5));
+        assertWithin(9900000L, histogram.percentile(0.99));
+        assertEquals(10000000L, histogram.percentile(1.0));
+
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.percentile(0.99));
+    }
+
+    /**
+     * 分位数返回桶的上界， 不小于真实值， 相对误差不超过 12.5%
+     */
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " < " + expected, actual >= expected);
+        assertTrue(actual + " too far from " + expected, actual <= expected * 1.125);
+    }
+}
@@ -0,0 +1,112 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LocalCoalescingRedisDistributeLockTest {
+    private static final String KEY = "test:coalescing";
+
+    private final AtomicInteger remoteLocks = new AtomicInteger();
+    private final List<String> owners = new ArrayList<String>();
+    private final List<String> held = new ArrayList<String>();
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+        remoteLocks.set(0);
+        owners.clear();
+        held.clear();
+    }
+
+    /**
+     * 本地有等待者时把同一个句柄交给下一个线程， 不访问 Redis；
+     * 连续交接达到上限后释放 Redis 上的锁重新竞争， 换成新的 owner
+     */
+    @Test(timeout = 30000)
+    public void handsOffLocallyUntilCap() throws Exception {
+        LocalCoalescingRedisDistributeLock lock = new LocalCoalescingRedisDistributeLock(countingLock(5000), 100L, 2);
+        LockHandle first = lock.lock(KEY);
+        List<Thread> waiters = queueWaiters(lock, 3);
+        lock.release(first);
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+
+        assertEquals(first.getOwner(), owners.get(0));
+        assertEquals(first.getOwner(), owners.get(1));
+        assertNotEquals(first.getOwner(), owners.get(2));
+        assertEquals(owners, held);
+        assertEquals(2, remoteLocks.get());
+        assertFalse(EmbeddedRedis.exists(KEY));
+    }
+
+    /**
+     * 剩余租约不足时不交接， 下一个线程回到 Redis 加锁
+     */
+    @Test(timeout = 30000)
+    public void shortLeaseIsNotHandedOff() throws Exception {
+        LocalCoalescingRedisDistributeLock lock = new LocalCoalescingRedisDistributeLock(countingLock(300), 200L, 32);
+        LockHandle first = lock.lock(KEY);
+        List<Thread> waiters = queueWaiters(lock, 1);
+        Thread.sleep(150L);
+        lock.release(first);
+        waiters.get(0).join();
+
+        assertNotEquals(first.getOwner(), owners.get(0));
+        assertEquals(owners, held);
+        assertEquals(2, remoteLocks.get());
+        assertFalse(EmbeddedRedis.exists(KEY));
+    }
+
+    /**
+     * 依次启动等待线程， 每个线程进入本地排队后再启动下一个， 拿到锁时记录句柄的 owner 和 Redis 上实际的 owner
+     */
+    private List<Thread> queueWaiters(final LocalCoalescingRedisDistributeLock lock, int count) throws Exception {
+        List<Thread> waiters = new ArrayList<Thread>();
+        for (int i = 0; i < count; i++) {
+            final Thread waiter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    LockHandle handle = lock.lock(KEY);
+                    synchronized (owners) {
+                        owners.add(handle.getOwner());
+                        held.add(EmbeddedRedis.get(KEY));
+                    }
+                    lock.release(handle);
+                }
+            });
+            waiter.start();
+            waiters.add(waiter);
+            assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+                @Override
+                public boolean test() {
+                    return waiter.getState() == Thread.State.WAITING;
+                }
+            }, 5000L));
+        }
+        return waiters;
+    }
+
+    private DefaultRedisDistributeLock countingLock(int expireTime) {
+        return new DefaultRedisDistributeLock(false, expireTime) {
+            @Override
+            public LockHandle lock(String key) {
+                remoteLocks.incrementAndGet();
+                return super.lock(key);
+            }
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package com.project;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class NearCacheTest {
+    private NearCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        EmbeddedRedis.start();
+        configSet("KEA");
+        RedisClient.enableNearCache(1000L, 60000L, "test:near:");
+        cache = RedisClient.getNearCache();
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return cache.isActive();
+            }
+        }, 5000L));
+    }
+
+    @After
+    public void tearDown() {
+        RedisClient.disableNearCache();
+        configSet("");
+    }
+
+    /**
+     * 命中时不访问 Redis， 其他客户端修改后收到 keyspace 通知删除本地副本
+     */
+    @Test(timeout = 30000)
+    public void otherWriterInvalidatesString() throws Exception {
+        final String key = "test:near:string";
+        EmbeddedRedis.set(key, "v1");
+        // 等这次写入的通知到达， 否则它会删除随后缓存的副本
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return cache.getInvalidationCount() == 1L;
+            }
+        }, 2000L));
+        assertEquals("v1", RedisClient.get(key));
+        assertEquals("v1", RedisClient.get(key));
+        assertEquals(1L, cache.getHitCount());
+
+        EmbeddedRedis.set(key, "v2");
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return "v2".equals(RedisClient.get(key));
+            }
+        }, 2000L));
+        assertEquals(2L, cache.getInvalidationCount());
+    }
+
+    /**
+     * hash 的任意字段被修改都会删除整个 hash 的副本
+     */
+    @Test(timeout = 30000)
+    public void fieldChangeInvalidatesHash() throws Exception {
+        final String key = "test:near:hash";
+        hset(key, "a", "1");
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return cache.getInvalidationCount() == 1L;
+            }
+        }, 2000L));
+        assertEquals("1", RedisClient.hgetAll(key).get("a"));
+        Map<String, String> cached = RedisClient.hgetAll(key);
+        // 返回的是副本， 修改不影响缓存
+        cached.put("a", "changed");
+        assertEquals("1", RedisClient.hgetAll(key).get("a"));
+        assertEquals(2L, cache.getHitCount());
+
+        hset(key, "b", "2");
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return "2".equals(RedisClient.hgetAll(key).get("b"));
+            }
+        }, 2000L));
+    }
+
+    /**
+     * 不在前缀范围内的 key 不缓存
+     */
+    @Test(timeout = 30000)
+    public void otherPrefixesAreNotCached() {
+        EmbeddedRedis.set("test:far:string", "v1");
+        assertEquals("v1", RedisClient.get("test:far:string"));
+        EmbeddedRedis.set("test:far:string", "v2");
+        assertEquals("v2", RedisClient.get("test:far:string"));
+        assertEquals(0L, cache.size());
+    }
+
+    private static void hset(String key, String field, String value) {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            jedis.hset(key, field, value);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    private static void configSet(String flags) {
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            jedis.configSet("notify-keyspace-events", flags);
+        } finally {
+            jedis.close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.project;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在 5 个互相独立的内嵌 Redis 上测试 Redlock
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedLockTest {
+    private static final int NODES = 5;
+    private static final String KEY = "test:redlock";
+
+    private final List<EmbeddedRedisServer> servers = new ArrayList<EmbeddedRedisServer>();
+    private final List<JedisPool> pools = new ArrayList<JedisPool>();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < NODES; i++) {
+            EmbeddedRedisServer server = new EmbeddedRedisServer(0);
+            server.start();
+            servers.add(server);
+            pools.add(new JedisPool(new GenericObjectPoolConfig(), server.getHost(), server.getPort(), 2000));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (JedisPool pool : pools) {
+            pool.close();
+        }
+        for (EmbeddedRedisServer server : servers) {
+            server.close();
+        }
+    }
+
+    /**
+     * 少数节点被别人占用时仍能在多数节点上加锁， 释放后所有节点都没有锁
+     */
+    @Test(timeout = 30000)
+    public void quorumReached() {
+        lockAs(0, "other");
+        lockAs(1, "other");
+        // 每个新启动的节点第一次执行释放脚本时要先编译， 不测超时的用例放宽节点超时
+        RedLock lock = new RedLock(pools, 1000, 1000L);
+        LockHandle handle = lock.tryLockOnce(KEY);
+        assertNotNull(handle);
+        for (int i = 2; i < NODES; i++) {
+            assertEquals(handle.getOwner(), owner(i));
+        }
+        assertTrue(lock.release(handle));
+        for (int i = 2; i < NODES; i++) {
+            assertNull(owner(i));
+        }
+    }
+
+    /**
+     * 达不到多数时返回 null， 已经加上的少数节点在后台释放
+     */
+    @Test(timeout = 30000)
+    public void quorumFailedReleasesPartialLocks() throws Exception {
+        lockAs(0, "other");
+        lockAs(1, "other");
+        lockAs(2, "other");
+        RedLock lock = new RedLock(pools, 10000, 50L);
+        assertNull(lock.tryLockOnce(KEY));
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return owner(3) == null && owner(4) == null;
+            }
+        }, 2000L));
+        for (int i = 0; i < 3; i++) {
+            assertEquals("other", owner(i));
+        }
+    }
+
+    /**
+     * 一个节点应答慢于 nodeTimeout 时不等它， 其余节点达到多数即返回
+     */
+    @Test(timeout = 30000)
+    public void slowNodeDoesNotDelayLock() {
+        servers.get(0).setLatency(300L, 0L, TimeUnit.MILLISECONDS);
+        RedLock lock = new RedLock(pools, 2000, 50L);
+        long start = System.nanoTime();
+        LockHandle handle = lock.tryLockOnce(KEY);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertNotNull(handle);
+        assertTrue("waited for the slow node, elapsed = " + elapsed, elapsed < 300L);
+        lock.release(handle);
+    }
+
+    /**
+     * 多数节点都慢于 nodeTimeout 时放弃， 慢节点迟到的加锁也会被释放
+     */
+    @Test(timeout = 30000)
+    public void slowMajorityFails() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            servers.get(i).setLatency(200L, 0L, TimeUnit.MILLISECONDS);
+        }
+        RedLock lock = new RedLock(pools, 10000, 50L);
+        assertNull(lock.tryLockOnce(KEY));
+        for (int i = 0; i < 3; i++) {
+            servers.get(i).setLatency(0L, 0L, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                for (int i = 0; i < NODES; i++) {
+                    if (owner(i) != null) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }, 5000L));
+    }
+
+    /**
+     * 节点时钟比本地快但在漂移范围内时， 扣除漂移后的有效期内多数节点上的锁仍然存在
+     */
+    @Test(timeout = 30000)
+    public void validityCoversClockDrift() throws Exception {
+        for (EmbeddedRedisServer server : servers) {
+            server.setClockSkew(0L, 1.008);
+        }
+        RedLock lock = new RedLock(pools, 1000, 50L);
+        long start = System.currentTimeMillis();
+        LockHandle handle = lock.tryLockOnce(KEY);
+        assertNotNull(handle);
+        // 有效期 = 租约 - 漂移（租约的 1% + 2 毫秒）
+        assertTrue(handle.getLeaseDeadline() <= start + 1000L - 12L);
+
+        Thread.sleep(Math.max(0L, handle.getLeaseDeadline() - System.currentTimeMillis() - 20L));
+        int held = 0;
+        for (int i = 0; i < NODES; i++) {
+            if (handle.getOwner().equals(owner(i))) {
+                held++;
+            }
+        }
+        assertTrue("held on " + held + " nodes", held >= lock.getQuorum());
+
+        Thread.sleep(Math.max(0L, start + 1000L - System.currentTimeMillis() + 200L));
+        for (int i = 0; i < NODES; i++) {
+            assertNull(owner(i));
+        }
+    }
+
+    private void lockAs(int node, String owner) {
+        Jedis jedis = pools.get(node).getResource();
+        try {
+            assertTrue(RedisTool.tryGetDistributedLock(jedis, KEY, owner, 10000));
+        } finally {
+            jedis.close();
+        }
+    }
+
+    private String owner(int node) {
+        Jedis jedis = pools.get(node).getResource();
+        try {
+            return jedis.get(KEY);
+        } finally {
+            jedis.close();
+        }
+    }
+}
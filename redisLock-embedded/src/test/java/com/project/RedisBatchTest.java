@@ -0,0 +1,91 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisBatchTest {
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+    }
+
+    /**
+     * 命令按 pipelineSize 分段同步， 结果仍与添加顺序一致， 执行后清空可复用
+     */
+    @Test(timeout = 30000)
+    public void resultsFollowAddOrderAcrossSegments() {
+        RedisBatch batch = new RedisBatch(RedisClient.getPool(), 100, 3);
+        for (int i = 0; i < 5; i++) {
+            batch.set("test:batch:" + i, String.valueOf(i));
+        }
+        for (int i = 0; i < 5; i++) {
+            batch.get("test:batch:" + i);
+        }
+        batch.setnx("test:batch:0", "x", 60).setnx("test:batch:new", "x", 60).get("test:batch:missing");
+        RedisBatch.Results results = batch.execute();
+
+        assertEquals(13, results.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("OK", results.getString(i));
+            assertEquals(String.valueOf(i), results.getString(5 + i));
+        }
+        assertFalse(results.getBoolean(10));
+        assertTrue(results.getBoolean(11));
+        assertNull(results.getString(12));
+        assertEquals(0, batch.size());
+
+        assertEquals(Long.valueOf(1L), batch.incr("test:batch:counter").execute().getLong(0));
+    }
+
+    /**
+     * 命令数达到上限后拒绝继续添加， 已添加的命令不受影响
+     */
+    @Test(timeout = 30000)
+    public void rejectsCommandsBeyondCap() {
+        RedisBatch batch = new RedisBatch(RedisClient.getPool(), 2, 10);
+        batch.incr("test:batch:cap").incr("test:batch:cap");
+        try {
+            batch.incr("test:batch:cap");
+            fail();
+        } catch (IllegalStateException e) {
+            // 超过 maxCommands
+        }
+        assertEquals(2, batch.size());
+        assertEquals(Long.valueOf(2L), batch.execute().getLong(1));
+    }
+
+    /**
+     * 单条命令的错误回复只在读取该条结果时抛出， 前后的命令照常执行
+     */
+    @Test(timeout = 30000)
+    public void errorReplyIsPerCommand() {
+        RedisBatch batch = new RedisBatch(RedisClient.getPool(), 100, 2);
+        RedisBatch.Results results = batch.set("test:batch:text", "abc")
+                .incr("test:batch:text")
+                .incr("test:batch:number")
+                .execute();
+
+        assertEquals("OK", results.getString(0));
+        assertTrue(results.isError(1));
+        try {
+            results.getLong(1);
+            fail();
+        } catch (JedisDataException e) {
+            // 不是整数
+        }
+        assertFalse(results.isError(2));
+        assertEquals(Long.valueOf(1L), results.getLong(2));
+    }
+}
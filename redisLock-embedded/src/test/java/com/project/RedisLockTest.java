@@ -0,0 +1,118 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisLockTest {
+    private static final String KEY = "test:adapter";
+
+    private RedisLock lock;
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+        lock = new RedisLock(new DefaultRedisDistributeLock(false, 2000), KEY);
+    }
+
+    /**
+     * 锁被他人持有时 tryLock 等满超时返回 false， 他人释放后等待中的 tryLock 被通知唤醒并成功
+     */
+    @Test(timeout = 30000)
+    public void tryLockTimesOut() throws Exception {
+        assertTrue(EmbeddedRedis.lockAs(KEY, "other", 10000));
+        long start = System.nanoTime();
+        assertFalse(lock.tryLock(300L, TimeUnit.MILLISECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed = " + elapsed, elapsed >= 250L && elapsed < 2000L);
+        assertNull(lock.getHandle());
+
+        // 他人释放时的通知唤醒等待中的 tryLock
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200L);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                EmbeddedRedis.releaseAs(KEY, "other");
+            }
+        });
+        releaser.start();
+        start = System.nanoTime();
+        assertTrue(lock.tryLock(5000L, TimeUnit.MILLISECONDS));
+        elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed = " + elapsed, elapsed < 2000L);
+        releaser.join();
+        assertTrue(EmbeddedRedis.exists(KEY));
+        lock.unlock();
+        assertFalse(EmbeddedRedis.exists(KEY));
+    }
+
+    /**
+     * 等待中被中断时 lockInterruptibly 抛出 InterruptedException， 没有拿到锁
+     */
+    @Test(timeout = 30000)
+    public void lockInterruptiblyRespondsToInterrupt() throws Exception {
+        assertTrue(EmbeddedRedis.lockAs(KEY, "other", 10000));
+        final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    lock.lockInterruptibly();
+                } catch (Throwable e) {
+                    thrown.set(e);
+                }
+            }
+        });
+        waiter.start();
+        Thread.sleep(200L);
+        waiter.interrupt();
+        waiter.join(5000L);
+
+        assertFalse(waiter.isAlive());
+        assertTrue(String.valueOf(thrown.get()), thrown.get() instanceof InterruptedException);
+        assertNull(lock.getHandle());
+        assertTrue(EmbeddedRedis.releaseAs(KEY, "other"));
+    }
+
+    /**
+     * 非持有线程解锁抛出 IllegalMonitorStateException， 不影响持有者
+     */
+    @Test(timeout = 30000)
+    public void unlockByOtherThreadFails() throws Exception {
+        lock.lock();
+        final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    lock.unlock();
+                    fail();
+                } catch (Throwable e) {
+                    thrown.set(e);
+                }
+            }
+        });
+        other.start();
+        other.join();
+
+        assertTrue(String.valueOf(thrown.get()), thrown.get() instanceof IllegalMonitorStateException);
+        assertTrue(EmbeddedRedis.exists(KEY));
+        lock.unlock();
+        assertFalse(EmbeddedRedis.exists(KEY));
+    }
+}
@@ -0,0 +1,98 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisMultiLockTest {
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+    }
+
+    /**
+     * 任意一个 key 被占用时一个都不加， 全部空闲时一次加上
+     */
+    @Test(timeout = 30000)
+    public void allOrNothing() throws Exception {
+        RedisMultiLock lock = new RedisMultiLock(5000);
+        assertTrue(EmbeddedRedis.lockAs("test:multi:b", "other", 5000));
+
+        assertNull(lock.tryLock(Arrays.asList("test:multi:a", "test:multi:b", "test:multi:c"), 0L, TimeUnit.MILLISECONDS));
+        assertFalse(EmbeddedRedis.exists("test:multi:a"));
+        assertFalse(EmbeddedRedis.exists("test:multi:c"));
+
+        assertTrue(EmbeddedRedis.releaseAs("test:multi:b", "other"));
+        MultiLockHandle handle = lock.tryLock(Arrays.asList("test:multi:a", "test:multi:b", "test:multi:c"),
+                1000L, TimeUnit.MILLISECONDS);
+        assertNotNull(handle);
+        assertEquals(3, handle.getKeys().size());
+
+        assertNull(lock.tryLock(Arrays.asList("test:multi:c", "test:multi:d"), 0L, TimeUnit.MILLISECONDS));
+        assertFalse(EmbeddedRedis.exists("test:multi:d"));
+
+        assertEquals(3, lock.release(handle));
+        assertFalse(EmbeddedRedis.exists("test:multi:a"));
+        assertFalse(EmbeddedRedis.exists("test:multi:b"));
+        assertFalse(EmbeddedRedis.exists("test:multi:c"));
+    }
+
+    /**
+     * 等待中被占用的 key 释放后拿到全部 key
+     */
+    @Test(timeout = 30000)
+    public void waitsForBlockingKeys() throws Exception {
+        RedisMultiLock lock = new RedisMultiLock(5000);
+        assertTrue(EmbeddedRedis.lockAs("test:multi:y", "other", 300));
+        assertTrue(EmbeddedRedis.lockAs("test:multi:z", "other", 600));
+        MultiLockHandle handle = lock.tryLock(Arrays.asList("test:multi:x", "test:multi:y", "test:multi:z"),
+                5000L, TimeUnit.MILLISECONDS);
+        assertNotNull(handle);
+        assertEquals(3, lock.release(handle));
+    }
+
+    /**
+     * 被占用的 key 释放后另一个 key 仍被占用时改为等待那个 key， 不会当作加锁成功
+     */
+    @Test(timeout = 30000)
+    public void switchesToNextBlockingKey() throws Exception {
+        final RedisMultiLock lock = new RedisMultiLock(5000);
+        assertTrue(EmbeddedRedis.lockAs("test:multi:y", "other", 10000));
+        assertTrue(EmbeddedRedis.lockAs("test:multi:z", "other", 10000));
+        FutureTask<MultiLockHandle> waiting = new FutureTask<MultiLockHandle>(new Callable<MultiLockHandle>() {
+            @Override
+            public MultiLockHandle call() throws Exception {
+                return lock.tryLock(Arrays.asList("test:multi:x", "test:multi:y", "test:multi:z"),
+                        10000L, TimeUnit.MILLISECONDS);
+            }
+        });
+        new Thread(waiting).start();
+        Thread.sleep(200);
+
+        assertTrue(EmbeddedRedis.releaseAs("test:multi:y", "other"));
+        Thread.sleep(300);
+        assertFalse(waiting.isDone());
+        assertFalse(EmbeddedRedis.exists("test:multi:x"));
+        assertFalse(EmbeddedRedis.exists("test:multi:y"));
+
+        assertTrue(EmbeddedRedis.releaseAs("test:multi:z", "other"));
+        MultiLockHandle handle = waiting.get(5, TimeUnit.SECONDS);
+        assertNotNull(handle);
+        assertEquals(3, lock.release(handle));
+    }
+}
@@ -0,0 +1,80 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisReadWriteLockTest {
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+    }
+
+    /**
+     * 有写者等待时新的读者不能加锁， 读者全部释放后写者拿到锁
+     */
+    @Test(timeout = 30000)
+    public void waitingWriterBlocksNewReaders() throws Exception {
+        final String key = "test:rw";
+        final RedisReadWriteLock lock = new RedisReadWriteLock(key, 5000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            lock.readLock().lock();
+            assertTrue(executor.submit(tryRead(lock)).get());
+
+            final CountDownLatch writing = new CountDownLatch(1);
+            Future<?> writer = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    lock.writeLock().lock();
+                    writing.countDown();
+                    Thread.sleep(100L);
+                    lock.writeLock().unlock();
+                    return null;
+                }
+            });
+            assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+                @Override
+                public boolean test() {
+                    return EmbeddedRedis.exists("redis_lock__wwait:" + key);
+                }
+            }, 5000L));
+            assertFalse(executor.submit(tryRead(lock)).get());
+            assertFalse(writing.await(100L, TimeUnit.MILLISECONDS));
+
+            lock.readLock().unlock();
+            assertTrue(writing.await(5000L, TimeUnit.MILLISECONDS));
+            writer.get();
+            assertTrue(executor.submit(tryRead(lock)).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Callable<Boolean> tryRead(final RedisReadWriteLock lock) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                if (!lock.readLock().tryLock()) {
+                    return false;
+                }
+                lock.readLock().unlock();
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisReentrantLockTest {
+    private ExecutorService other;
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+        other = Executors.newSingleThreadExecutor();
+    }
+
+    @Test(timeout = 30000)
+    public void holdCountsAcrossInstances() throws Exception {
+        final String key = "test:reentrant";
+        RedisReentrantLock lock = new RedisReentrantLock(key, 5000, false);
+        RedisReentrantLock sameKey = new RedisReentrantLock(key, 5000, false);
+
+        lock.lock();
+        lock.lock();
+        assertTrue(lock.tryLock());
+        assertEquals(3, lock.getHoldCount());
+        assertTrue(sameKey.tryLock());
+        assertEquals(1, sameKey.getHoldCount());
+        assertFalse(otherThreadTryLock(key));
+
+        lock.unlock();
+        lock.unlock();
+        assertEquals(1, lock.getHoldCount());
+        lock.unlock();
+        assertEquals(0, lock.getHoldCount());
+        assertFalse(lock.isHeldByCurrentThread());
+        // 仍通过另一个实例持有
+        assertFalse(otherThreadTryLock(key));
+
+        sameKey.unlock();
+        assertFalse(EmbeddedRedis.exists(key));
+        assertTrue(otherThreadTryLock(key));
+        other.shutdown();
+    }
+
+    @Test(expected = IllegalMonitorStateException.class)
+    public void unlockWithoutHoldFails() {
+        new RedisReentrantLock("test:reentrant:none").unlock();
+    }
+
+    /**
+     * 在另一个线程上加锁后立即解锁
+     */
+    private boolean otherThreadTryLock(final String key) throws Exception {
+        return other.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                RedisReentrantLock lock = new RedisReentrantLock(key, 5000, false);
+                if (!lock.tryLock()) {
+                    return false;
+                }
+                lock.unlock();
+                return true;
+            }
+        }).get();
+    }
+}
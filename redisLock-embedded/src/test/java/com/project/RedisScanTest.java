@@ -0,0 +1,164 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Tuple;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisScanTest {
+    private static final int SIZE = 2000;
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < SIZE; i++) {
+                pipeline.set("test:scan:" + i, String.valueOf(i));
+                pipeline.hset("test:scan-hash", "f" + i, String.valueOf(i));
+                pipeline.sadd("test:scan-set", "m" + i);
+                pipeline.zadd("test:scan-zset", i, "m" + i);
+            }
+            pipeline.set("other:" + 0, "0");
+            pipeline.sync();
+        } finally {
+            jedis.close();
+        }
+    }
+
+    /**
+     * 分页遍历返回全部元素， MATCH 生效
+     */
+    @Test(timeout = 30000)
+    public void scansEveryElement() {
+        Set<String> keys = new HashSet<String>();
+        for (String key : RedisScan.keys(RedisClient.getPool(), "test:scan:*", 100)) {
+            keys.add(key);
+        }
+        assertEquals(SIZE, keys.size());
+
+        Map<String, String> hash = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : RedisScan.hash(RedisClient.getPool(), "test:scan-hash", null, 100)) {
+            hash.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(SIZE, hash.size());
+        assertEquals("7", hash.get("f7"));
+
+        assertEquals(SIZE, RedisScan.set(RedisClient.getPool(), "test:scan-set", null, 100).stream().distinct().count());
+
+        double sum = 0;
+        for (Tuple tuple : RedisScan.sortedSet(RedisClient.getPool(), "test:scan-zset", null, 100)) {
+            sum += tuple.getScore();
+        }
+        assertEquals(SIZE * (SIZE - 1) / 2.0, sum, 0.0);
+    }
+
+    @Test(timeout = 30000)
+    public void parallelForEachVisitsAll() throws Exception {
+        final Set<String> seen = ConcurrentHashMap.newKeySet();
+        RedisScan.keys(RedisClient.getPool(), "test:scan:*", 50).forEach(4, new Consumer<String>() {
+            @Override
+            public void accept(String key) {
+                seen.add(key);
+            }
+        });
+        assertEquals(SIZE, seen.size());
+    }
+
+    /**
+     * 处理异常时停止取页， 异常在调用线程抛出
+     */
+    @Test(timeout = 30000)
+    public void parallelForEachRethrowsFailure() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        try {
+            RedisScan.keys(RedisClient.getPool(), "test:scan:*", 10).forEach(2, new Consumer<String>() {
+                @Override
+                public void accept(String key) {
+                    if (calls.incrementAndGet() == 5) {
+                        throw new IllegalStateException("boom");
+                    }
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        assertTrue(calls.get() < SIZE);
+    }
+
+    /**
+     * 取页线程在等待队列时被中断： 处理线程结束后才抛出 InterruptedException， 之后不再执行 action
+     */
+    @Test(timeout = 30000)
+    public void interruptStopsWorkersBeforeReturning() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+        final AtomicInteger runningAtReturn = new AtomicInteger(-1);
+        final AtomicInteger callsAtReturn = new AtomicInteger();
+        final AtomicReference<Boolean> interruptedAtReturn = new AtomicReference<Boolean>();
+        Thread scanner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    RedisScan.keys(RedisClient.getPool(), "test:scan:*", 10).forEach(2, new Consumer<String>() {
+                        @Override
+                        public void accept(String key) {
+                            running.incrementAndGet();
+                            calls.incrementAndGet();
+                            try {
+                                Thread.sleep(20L);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            } finally {
+                                running.decrementAndGet();
+                            }
+                        }
+                    });
+                } catch (Throwable e) {
+                    thrown.set(e);
+                }
+                runningAtReturn.set(running.get());
+                callsAtReturn.set(calls.get());
+                interruptedAtReturn.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        scanner.start();
+        assertTrue(EmbeddedRedis.await(new EmbeddedRedis.Condition() {
+            @Override
+            public boolean test() {
+                return calls.get() > 0;
+            }
+        }, 5000L));
+        Thread.sleep(100L);
+        scanner.interrupt();
+        scanner.join();
+
+        assertTrue(String.valueOf(thrown.get()), thrown.get() instanceof InterruptedException);
+        assertEquals(Boolean.TRUE, interruptedAtReturn.get());
+        assertEquals(0, runningAtReturn.get());
+        Thread.sleep(200L);
+        assertEquals(callsAtReturn.get(), calls.get());
+        assertTrue(calls.get() < SIZE);
+    }
+}
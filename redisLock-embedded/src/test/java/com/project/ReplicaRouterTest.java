@@ -0,0 +1,153 @@
+package com.project;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 每个从节点是一个独立的内嵌 Redis， 同一个 key 在各节点上的值不同， 用于区分读到的是哪个节点
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class ReplicaRouterTest {
+    private static final String KEY = "test:replica";
+    private static final Function<Jedis, String> GET = new Function<Jedis, String>() {
+        @Override
+        public String apply(Jedis jedis) {
+            return jedis.get(KEY);
+        }
+    };
+
+    private final List<EmbeddedRedisServer> replicas = new ArrayList<EmbeddedRedisServer>();
+    private ReplicaRouter router;
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+        set(RedisClient.getPool().getResource(), "master");
+        for (int i = 0; i < 2; i++) {
+            EmbeddedRedisServer server = new EmbeddedRedisServer(0);
+            server.start();
+            set(new Jedis(server.getHost(), server.getPort()), "replica-" + i);
+            replicas.add(server);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (router != null) {
+            router.close();
+        }
+        for (EmbeddedRedisServer server : replicas) {
+            server.close();
+        }
+    }
+
+    /**
+     * 轮流读取各从节点， 不读主节点
+     */
+    @Test(timeout = 30000)
+    public void roundRobinReadsReplicas() {
+        router = router(ReplicaRouter.ReadPolicy.ROUND_ROBIN);
+        List<String> values = new ArrayList<String>();
+        for (int i = 0; i < 4; i++) {
+            values.add(router.read(GET));
+        }
+        assertEquals(new HashSet<String>(Arrays.asList("replica-0", "replica-1")), new HashSet<String>(values));
+        assertEquals(values.get(0), values.get(2));
+        assertEquals(values.get(1), values.get(3));
+    }
+
+    /**
+     * 从节点连接失败时在主节点上重试， 之后暂停路由到该节点， 其余从节点照常使用；
+     * 所有从节点都不可用时全部读主节点
+     */
+    @Test(timeout = 30000)
+    public void failedReplicaFallsBackToMaster() {
+        replicas.get(0).close();
+        for (ReplicaRouter.ReadPolicy policy : ReplicaRouter.ReadPolicy.values()) {
+            router = router(policy);
+            int fallbacks = 0;
+            for (int i = 0; i < 20; i++) {
+                String value = router.read(GET);
+                if ("master".equals(value)) {
+                    fallbacks++;
+                } else {
+                    assertEquals(policy.name(), "replica-1", value);
+                }
+            }
+            // 只有连接失败的那一次读取回退
+            assertEquals(policy.name(), 1, fallbacks);
+            router.close();
+
+            router = router(policy, replicas.get(0));
+            for (int i = 0; i < 5; i++) {
+                assertEquals(policy.name(), "master", router.read(GET));
+            }
+            router.close();
+            router = null;
+        }
+    }
+
+    /**
+     * 命令本身的错误直接抛出， 不回退到主节点
+     */
+    @Test(timeout = 30000)
+    public void commandErrorIsNotRetried() {
+        router = router(ReplicaRouter.ReadPolicy.ROUND_ROBIN);
+        try {
+            router.read(new Function<Jedis, Long>() {
+                @Override
+                public Long apply(Jedis jedis) {
+                    return jedis.incr(KEY);
+                }
+            });
+            fail();
+        } catch (JedisDataException e) {
+            // 值不是整数
+        }
+        assertEquals("master", get(RedisClient.getPool().getResource()));
+    }
+
+    private ReplicaRouter router(ReplicaRouter.ReadPolicy policy) {
+        return router(policy, replicas.toArray(new EmbeddedRedisServer[0]));
+    }
+
+    private static ReplicaRouter router(ReplicaRouter.ReadPolicy policy, EmbeddedRedisServer... servers) {
+        List<HostAndPort> addresses = new ArrayList<HostAndPort>();
+        for (EmbeddedRedisServer server : servers) {
+            addresses.add(new HostAndPort(server.getHost(), server.getPort()));
+        }
+        return new ReplicaRouter(RedisClient.getPool(), policy, addresses, new GenericObjectPoolConfig(), 2000, null);
+    }
+
+    private static void set(Jedis jedis, String value) {
+        try {
+            jedis.set(KEY, value);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    private static String get(Jedis jedis) {
+        try {
+            return jedis.get(KEY);
+        } finally {
+            jedis.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.project;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 每个 SingleFlightCache 实例有自己的 in-flight 表， 多个实例模拟多个 JVM
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class SingleFlightCacheTest {
+
+    @Before
+    public void setUp() {
+        EmbeddedRedis.start();
+    }
+
+    /**
+     * 多个 JVM 的多个线程同时未命中， loader 只执行一次， 所有调用方拿到同一个值
+     */
+    @Test(timeout = 30000)
+    public void loaderRunsOnce() throws Exception {
+        final String key = "test:flight:once";
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<String> loader = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                loads.incrementAndGet();
+                Thread.sleep(200L);
+                return "value";
+            }
+        };
+        final ConcurrentLinkedQueue<String> results = new ConcurrentLinkedQueue<String>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int c = 0; c < 3; c++) {
+            final SingleFlightCache cache = new SingleFlightCache(3000, 0);
+            for (int t = 0; t < 8; t++) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        results.add(cache.getOrCompute(key, 60, loader));
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(24, results.size());
+        for (String result : results) {
+            assertEquals("value", result);
+        }
+        assertEquals("value", EmbeddedRedis.get(key));
+    }
+
+    /**
+     * 重算期间有 stale 副本的调用方立即返回旧值， 重算完成后正常值和 stale 副本都更新
+     */
+    @Test(timeout = 30000)
+    public void staleValueServedDuringRecompute() throws Exception {
+        final String key = "test:flight:stale";
+        EmbeddedRedis.set(key + ":stale", "old");
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final SingleFlightCache leader = new SingleFlightCache(3000, 60);
+        final String[] computed = new String[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                computed[0] = leader.getOrCompute(key, 60, new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        loading.countDown();
+                        finish.await();
+                        return "new";
+                    }
+                });
+            }
+        });
+        thread.start();
+        assertTrue(loading.await(5L, TimeUnit.SECONDS));
+
+        Callable<String> unused = new Callable<String>() {
+            @Override
+            public String call() {
+                fail("loader called while another caller is recomputing");
+                return null;
+            }
+        };
+        long start = System.nanoTime();
+        assertEquals("old", leader.getOrCompute(key, 60, unused));
+        assertEquals("old", new SingleFlightCache(3000, 60).getOrCompute(key, 60, unused));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000L);
+
+        finish.countDown();
+        thread.join();
+        assertEquals("new", computed[0]);
+        assertEquals("new", EmbeddedRedis.get(key));
+        assertEquals("new", EmbeddedRedis.get(key + ":stale"));
+    }
+
+    /**
+     * loader 失败时异常抛给调用方， 重算锁被释放， 下一次调用重新加载
+     */
+    @Test(timeout = 30000)
+    public void failedLoadIsRetried() {
+        String key = "test:flight:failed";
+        SingleFlightCache cache = new SingleFlightCache(3000, 0);
+        try {
+            cache.getOrCompute(key, 60, new Callable<String>() {
+                @Override
+                public String call() {
+                    throw new IllegalStateException("boom");
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        long start = System.nanoTime();
+        assertEquals("value", cache.getOrCompute(key, 60, new Callable<String>() {
+            @Override
+            public String call() {
+                return "value";
+            }
+        }));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000L);
+    }
+}
@@ -0,0 +1,195 @@
+package com.project;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class SpaceSavingSketchTest {
+    private static final int KEYS = 10000;
+    private static final int EVENTS = 200000;
+
+    /**
+     * Zipf 分布下计数器远少于 key 数时， top(n) 仍是真实的 n 个热点， 每个计数都满足误差界
+     */
+    @Test
+    public void keepsZipfHeavyHitters() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(200);
+        Map<String, Long> truth = new HashMap<String, Long>();
+        ZipfSource zipf = new ZipfSource(KEYS, 1.2, 7L);
+        for (int i = 0; i < EVENTS; i++) {
+            String key = "k" + zipf.next();
+            sketch.add(key, 1L);
+            Long count = truth.get(key);
+            truth.put(key, count == null ? 1L : count + 1L);
+        }
+        List<SpaceSavingSketch.Entry> top = sketch.top(10);
+        assertEquals(topKeys(truth, 10), keysOf(top));
+        assertBounds(sketch.top(Integer.MAX_VALUE), truth);
+    }
+
+    /**
+     * 已满时新 key 替换计数最小的 key， 继承它的计数作为误差
+     */
+    @Test
+    public void replacementInheritsMinimumAsError() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.add("a", 5L);
+        sketch.add("b", 3L);
+        assertEquals(3L, sketch.minCount());
+        sketch.add("c", 1L);
+        List<SpaceSavingSketch.Entry> top = sketch.top(2);
+        assertEquals("a", top.get(0).getKey());
+        assertEquals("c", top.get(1).getKey());
+        assertEquals(4L, top.get(1).getCount());
+        assertEquals(3L, top.get(1).getError());
+    }
+
+    /**
+     * 衰减后计数和误差减半， 顺序不变， 堆仍然有效
+     */
+    @Test
+    public void decayHalvesAndKeepsHeap() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        sketch.add("a", 8L);
+        sketch.add("b", 4L);
+        sketch.add("c", 2L);
+        sketch.decay();
+        List<SpaceSavingSketch.Entry> top = sketch.top(3);
+        assertEquals(4L, top.get(0).getCount());
+        assertEquals(2L, top.get(1).getCount());
+        assertEquals(1L, top.get(2).getCount());
+        assertEquals(1L, sketch.minCount());
+        // 替换的仍是计数最小的 c
+        sketch.add("d", 1L);
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "d")), keysOf(sketch.top(3)));
+    }
+
+    /**
+     * 多线程写入不同分片， 合并后热点不丢， 每个合并计数都满足 count - error <= 真实计数 <= count
+     */
+    @Test(timeout = 30000)
+    public void stripedMergeKeepsBounds() throws Exception {
+        final StripedSpaceSavingSketch sketch = new StripedSpaceSavingSketch(200, 4);
+        final ConcurrentHashMap<String, AtomicLong> counts = new ConcurrentHashMap<String, AtomicLong>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final long seed = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ZipfSource zipf = new ZipfSource(KEYS, 1.2, seed);
+                    for (int i = 0; i < EVENTS / 8; i++) {
+                        String key = "k" + zipf.next();
+                        sketch.add(key, 1L);
+                        AtomicLong count = counts.get(key);
+                        if (count == null) {
+                            AtomicLong created = new AtomicLong();
+                            count = counts.putIfAbsent(key, created);
+                            if (count == null) {
+                                count = created;
+                            }
+                        }
+                        count.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Map<String, Long> truth = new HashMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+            truth.put(entry.getKey(), entry.getValue().get());
+        }
+        assertEquals(topKeys(truth, 5), keysOf(sketch.top(5)));
+        assertBounds(sketch.top(Integer.MAX_VALUE), truth);
+    }
+
+    private static void assertBounds(List<SpaceSavingSketch.Entry> entries, Map<String, Long> truth) {
+        for (SpaceSavingSketch.Entry entry : entries) {
+            Long real = truth.get(entry.getKey());
+            long actual = real == null ? 0L : real;
+            assertTrue(entry + " real=" + actual, actual <= entry.getCount());
+            assertTrue(entry + " real=" + actual, actual >= entry.getCount() - entry.getError());
+        }
+    }
+
+    private static Set<String> topKeys(Map<String, Long> truth, int n) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(truth.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+                return Long.compare(o2.getValue(), o1.getValue());
+            }
+        });
+        Set<String> keys = new HashSet<String>();
+        for (int i = 0; i < n; i++) {
+            keys.add(entries.get(i).getKey());
+        }
+        return keys;
+    }
+
+    private static Set<String> keysOf(List<SpaceSavingSketch.Entry> entries) {
+        Set<String> keys = new HashSet<String>();
+        for (SpaceSavingSketch.Entry entry : entries) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * 按累积分布二分查找的 Zipf 采样， rank 1 最热
+     */
+    private static final class ZipfSource {
+        private final double[] cdf;
+        private final Random random;
+
+        private ZipfSource(int n, double exponent, long seed) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+            random = new Random(seed);
+        }
+
+        private int next() {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cdf.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cdf[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low + 1;
+        }
+    }
+}
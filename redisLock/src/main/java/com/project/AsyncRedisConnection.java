@@ -0,0 +1,344 @@
+package com.project;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.util.SafeEncoder;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 非阻塞的 Redis 连接， 所有调用方共用一条 Netty 连接， 命令以 pipeline 方式连续写出，
+ * 应答按顺序完成对应的 CompletableFuture， 等待应答不占用线程
+ * 回调在 Netty 的 I/O 线程上执行， 回调中不能阻塞； 连接断开后未完成的命令以 {@link JedisConnectionException} 失败，
+ * 并在后台定时重连， 断开期间的命令直接失败
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class AsyncRedisConnection implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRedisConnection.class);
+    /**
+     * 连接断开后的重连间隔， 毫秒
+     */
+    private static final long RECONNECT_INTERVAL = 1000L;
+
+    private final String host;
+    private final int port;
+    private final String password;
+    private final ClientBootstrap bootstrap;
+    private final Timer timer;
+    /**
+     * 当前连接及其应答队列， 写命令和切换连接都在 this 上同步， 保证入队顺序与写出顺序一致
+     */
+    private Channel channel;
+    private ReplyHandler handler;
+    private volatile boolean closed;
+
+    /**
+     * 建立连接并认证， 失败时抛出 {@link JedisConnectionException}
+     *
+     * @param password 为 null 时不认证
+     * @param timeout  连接超时， 毫秒
+     */
+    public AsyncRedisConnection(String host, int port, String password, int timeout) {
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        ExecutorService executor = Executors.newCachedThreadPool(daemonThreads("redis-async-io"));
+        this.bootstrap = new ClientBootstrap(new NioClientSocketChannelFactory(executor, executor, 1, 1));
+        this.bootstrap.setOption("tcpNoDelay", true);
+        this.bootstrap.setOption("keepAlive", true);
+        this.bootstrap.setOption("connectTimeoutMillis", timeout);
+        this.timer = new HashedWheelTimer(daemonThreads("redis-async-timer"), 10L, TimeUnit.MILLISECONDS);
+        try {
+            connect().join();
+        } catch (CompletionException e) {
+            close();
+            throw new JedisConnectionException("redis async connect failed, " + host + ":" + port, e.getCause());
+        }
+    }
+
+    /**
+     * 连接共用的定时器， 用于重连和调用方安排重试， 任务需很快执行完毕
+     */
+    public Timer getTimer() {
+        return timer;
+    }
+
+    /**
+     * 发送一条命令
+     *
+     * @param command 命令名和参数
+     * @return 应答， 解析规则见 {@link RedisReplyDecoder}， 空回复为 null， 错误回复以 {@link JedisDataException} 失败
+     */
+    public CompletableFuture<Object> execute(byte[]... command) {
+        CompletableFuture<Object> future = new CompletableFuture<Object>();
+        synchronized (this) {
+            if (channel == null || handler.disconnected) {
+                future.completeExceptionally(new JedisConnectionException("redis async connection not connected"));
+                return future;
+            }
+            handler.pending.add(future);
+            channel.write(command);
+        }
+        return future;
+    }
+
+    public CompletableFuture<Object> execute(String... command) {
+        byte[][] args = new byte[command.length][];
+        for (int i = 0; i < command.length; i++) {
+            args[i] = SafeEncoder.encode(command[i]);
+        }
+        return execute(args);
+    }
+
+    /**
+     * 执行 Lua 脚本， 先发 EVALSHA， 服务端没有缓存时退回 EVAL
+     */
+    public CompletableFuture<Object> eval(final RedisScript script, final List<String> keys, final List<String> args) {
+        final CompletableFuture<Object> result = new CompletableFuture<Object>();
+        execute(scriptCommand("EVALSHA", script.getSha(), keys, args)).whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(Object reply, Throwable e) {
+                if (e instanceof JedisNoScriptException) {
+                    execute(scriptCommand("EVAL", script.getScript(), keys, args)).whenComplete(complete(result));
+                } else {
+                    complete(result).accept(reply, e);
+                }
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Channel current;
+        synchronized (this) {
+            current = channel;
+        }
+        if (current != null) {
+            current.close().awaitUninterruptibly();
+        }
+        timer.stop();
+        bootstrap.releaseExternalResources();
+    }
+
+    /**
+     * 建立新连接， 连接建立并认证后才替换当前连接
+     *
+     * @return 认证完成时完成的 future
+     */
+    private CompletableFuture<Void> connect() {
+        final ReplyHandler replies = new ReplyHandler();
+        bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
+            @Override
+            public ChannelPipeline getPipeline() {
+                return Channels.pipeline(new RedisCommandEncoder(), new RedisReplyDecoder(), replies);
+            }
+        });
+        bootstrap.connect(new InetSocketAddress(host, port)).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    replies.ready.completeExceptionally(future.getCause());
+                    scheduleReconnect();
+                }
+            }
+        });
+        return replies.ready;
+    }
+
+    private void scheduleReconnect() {
+        if (closed) {
+            return;
+        }
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) {
+                if (closed) {
+                    return;
+                }
+                connect().whenComplete(new BiConsumer<Void, Throwable>() {
+                    @Override
+                    public void accept(Void ignored, Throwable e) {
+                        if (e == null) {
+                            logger.info("redis async connection reconnected, " + host + ":" + port);
+                        }
+                    }
+                });
+            }
+        }, RECONNECT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private static byte[][] scriptCommand(String command, String script, List<String> keys, List<String> args) {
+        List<byte[]> params = new ArrayList<byte[]>(keys.size() + args.size() + 3);
+        params.add(SafeEncoder.encode(command));
+        params.add(SafeEncoder.encode(script));
+        params.add(SafeEncoder.encode(String.valueOf(keys.size())));
+        for (String key : keys) {
+            params.add(SafeEncoder.encode(key));
+        }
+        for (String arg : args) {
+            params.add(SafeEncoder.encode(arg));
+        }
+        return params.toArray(new byte[params.size()][]);
+    }
+
+    private static BiConsumer<Object, Throwable> complete(final CompletableFuture<Object> target) {
+        return new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(Object reply, Throwable e) {
+                if (e != null) {
+                    target.completeExceptionally(e);
+                } else {
+                    target.complete(reply);
+                }
+            }
+        };
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * 单条连接上的应答队列， 按顺序完成等待中的命令
+     */
+    private class ReplyHandler extends SimpleChannelUpstreamHandler {
+        private final ConcurrentLinkedQueue<CompletableFuture<Object>> pending = new ConcurrentLinkedQueue<CompletableFuture<Object>>();
+        private final CompletableFuture<Void> ready = new CompletableFuture<Void>();
+        /**
+         * 在 AsyncRedisConnection 上同步写
+         */
+        private volatile boolean disconnected;
+
+        /**
+         * 先在新连接上单独认证， 认证成功后才替换当前连接， 之前的命令不会写到未认证的连接上；
+         * 认证失败时关闭新连接并安排重连
+         */
+        @Override
+        public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) {
+            final Channel connected = e.getChannel();
+            if (password == null) {
+                install(connected);
+                return;
+            }
+            CompletableFuture<Object> auth = new CompletableFuture<Object>();
+            pending.add(auth);
+            connected.write(new byte[][]{SafeEncoder.encode("AUTH"), SafeEncoder.encode(password)});
+            auth.whenComplete(new BiConsumer<Object, Throwable>() {
+                @Override
+                public void accept(Object reply, Throwable e) {
+                    if (e == null) {
+                        install(connected);
+                        return;
+                    }
+                    logger.error("redis async auth failed, " + host + ":" + port, e);
+                    ready.completeExceptionally(e);
+                    connected.close();
+                    scheduleReconnect();
+                }
+            });
+        }
+
+        /**
+         * 替换当前连接， 新连接在认证期间断开或已调用 close 时放弃并安排重连
+         */
+        private void install(Channel connected) {
+            boolean installed;
+            synchronized (AsyncRedisConnection.this) {
+                installed = !closed && !disconnected;
+                if (installed) {
+                    channel = connected;
+                    handler = this;
+                }
+            }
+            if (installed) {
+                ready.complete(null);
+                return;
+            }
+            ready.completeExceptionally(new JedisConnectionException("redis async connection closed before ready"));
+            connected.close();
+            scheduleReconnect();
+        }
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+            CompletableFuture<Object> future = pending.poll();
+            if (future == null) {
+                logger.warn("redis async reply without pending command, " + e.getMessage());
+                return;
+            }
+            Object reply = e.getMessage();
+            if (reply instanceof JedisDataException) {
+                future.completeExceptionally((JedisDataException) reply);
+            } else {
+                future.complete(reply == RedisReplyDecoder.NULL ? null : reply);
+            }
+        }
+
+        @Override
+        public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) {
+            boolean current;
+            synchronized (AsyncRedisConnection.this) {
+                disconnected = true;
+                current = handler == this;
+            }
+            ready.completeExceptionally(new JedisConnectionException("redis async connection closed before ready"));
+            JedisConnectionException cause = new JedisConnectionException("redis async connection closed, " + host + ":" + port);
+            CompletableFuture<Object> future;
+            while ((future = pending.poll()) != null) {
+                future.completeExceptionally(cause);
+            }
+            // 连接或认证失败的 channel 由 connect 和认证回调安排重连
+            if (current) {
+                scheduleReconnect();
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+            logger.warn("redis async connection error, " + host + ":" + port, e.getCause());
+            e.getChannel().close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.project;
+
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * 异步分布式锁， 加锁命令走 {@link AsyncRedisConnection}， 等待释放通知走 {@link LockSubscriber} 的监听器，
+ * 重试由连接的定时器安排， 成千上万个等待中的加锁请求不占用任何线程
+ * 返回的 future 在 Netty I/O 线程或订阅线程上完成， 后续回调中不能阻塞； 调用方取消 future 后停止等待，
+ * 取消时已经拿到的锁会被释放
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class AsyncRedisDistributeLock {
+    private static final int DEFAULT_EXPIRE_TIME = 1000;
+
+    private static final int IN_FLIGHT = 0;
+    private static final int WAITING = 1;
+    private static final int DONE = 2;
+
+    private final AsyncRedisConnection connection;
+    private final int expireTime;
+
+    public AsyncRedisDistributeLock(AsyncRedisConnection connection) {
+        this(connection, DEFAULT_EXPIRE_TIME);
+    }
+
+    /**
+     * @param expireTime 超期时间， 毫秒
+     */
+    public AsyncRedisDistributeLock(AsyncRedisConnection connection, int expireTime) {
+        this.connection = connection;
+        this.expireTime = expireTime;
+    }
+
+    /**
+     * 一直等到加锁成功
+     */
+    public CompletableFuture<LockHandle> lockAsync(String key) {
+        return new Acquisition(key, -1L).start();
+    }
+
+    /**
+     * @return 锁句柄， 超时结果为 null
+     */
+    public CompletableFuture<LockHandle> tryLockAsync(String key, long time, TimeUnit unit) {
+        return new Acquisition(key, Math.max(0L, unit.toNanos(time))).start();
+    }
+
+    /**
+     * @return 是否释放成功， 租约已经过期时为 false
+     */
+    public CompletableFuture<Boolean> releaseAsync(LockHandle handle) {
+        HeldKeyCache.getInstance().invalidate(handle.getKey());
+        return RedisTool.releaseDistributedLockAsync(connection, handle.getKey(), handle.getOwner());
+    }
+
+    /**
+     * 一次异步加锁的状态机， 同一时刻最多只有一个加锁命令在途
+     * 在途期间收到的通知记在 notified 上， 命令失败后立即重试
+     */
+    private class Acquisition implements Runnable {
+        private final String key;
+        private final String owner = UUID.randomUUID().toString();
+        private final String channel;
+        private final long timeout;
+        private final long deadline;
+        private final CompletableFuture<LockHandle> promise = new CompletableFuture<LockHandle>();
+        private final AtomicInteger state = new AtomicInteger(IN_FLIGHT);
+        private volatile boolean notified;
+        private volatile LockSubscriber.Entry entry;
+        private volatile Timeout retry;
+        private int attempts;
+
+        private Acquisition(String key, long timeout) {
+            this.key = key;
+            this.channel = RedisTool.getLockChannel(key);
+            this.timeout = timeout;
+            this.deadline = System.nanoTime() + timeout;
+        }
+
+        private CompletableFuture<LockHandle> start() {
+            attempt();
+            return promise;
+        }
+
+        /**
+         * 释放通知、订阅生效和重试定时器都会调用
+         */
+        @Override
+        public void run() {
+            notified = true;
+            if (state.compareAndSet(WAITING, IN_FLIGHT)) {
+                notified = false;
+                Timeout current = retry;
+                if (current != null) {
+                    current.cancel();
+                }
+                attempt();
+            }
+        }
+
+        private void attempt() {
+            if (promise.isDone()) {
+                // 调用方已经取消
+                finish(null, null);
+                return;
+            }
+            final long start = System.currentTimeMillis();
+            RedisTool.tryGetDistributedLockAsync(connection, key, owner, expireTime).whenComplete(new BiConsumer<Long, Throwable>() {
+                @Override
+                public void accept(Long ttl, Throwable e) {
+                    if (e != null) {
+                        finish(null, e);
+                    } else if (ttl == null) {
+                        finish(new LockHandle(key, owner, start + expireTime), null);
+                    } else {
+                        failed(ttl);
+                    }
+                }
+            });
+        }
+
+        private void failed(long ttl) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (timeout >= 0 && remaining <= 0) {
+                finish(null, null);
+                return;
+            }
+            boolean subscribed = entry != null;
+            long delay = subscribed ? LockWaiter.retryDelay(ttl, attempts++, expireTime) : expireTime;
+            schedule(timeout >= 0 ? Math.min(delay, remaining) : delay);
+            state.set(WAITING);
+            if (!subscribed) {
+                // 订阅生效前的释放通知可能已经丢失， 订阅后总是再尝试一次
+                entry = LockSubscriber.getInstance().subscribe(channel);
+                entry.addListener(this);
+                entry.whenSubscribed().thenRun(this);
+            }
+            if (notified) {
+                run();
+            }
+        }
+
+        private void schedule(long delay) {
+            retry = connection.getTimer().newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) {
+                    Acquisition.this.run();
+                }
+            }, Math.max(1L, delay), TimeUnit.MILLISECONDS);
+        }
+
+        private void finish(LockHandle handle, Throwable e) {
+            state.set(DONE);
+            Timeout current = retry;
+            if (current != null) {
+                current.cancel();
+            }
+            LockSubscriber.Entry subscribed = entry;
+            if (subscribed != null) {
+                subscribed.removeListener(this);
+                LockSubscriber.getInstance().unsubscribe(channel, subscribed);
+            }
+            if (e != null) {
+                promise.completeExceptionally(e);
+            } else if (!promise.complete(handle) && handle != null) {
+                // 调用方已经取消， 不再需要这把锁
+                releaseAsync(handle);
+            }
+        }
+    }
+}
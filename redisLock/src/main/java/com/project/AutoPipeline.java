@@ -0,0 +1,224 @@
+package com.project;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.Pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 自动 pipeline， 多个线程并发发出的命令在少数几条共享连接上合并成批量写出， 应答按顺序分发回调用方
+ * 每条连接一个刷写线程： 取到第一条命令后最多再等 linger 微秒收集更多命令， 攒够 maxBatch 条立即刷写；
+ * 上一批在途时新命令继续排队， 负载越高每批越大， 连接池借还和系统调用都按批摊薄
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class AutoPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(AutoPipeline.class);
+    /**
+     * 重新获取连接失败后的等待时间， 毫秒
+     */
+    private static final long RECONNECT_INTERVAL = 100L;
+
+    private final Pool<Jedis> pool;
+    private final Lane[] lanes;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private volatile boolean closed;
+
+    /**
+     * @param pool         共享连接从该连接池借出， 关闭前不归还
+     * @param connections  共享连接数
+     * @param maxBatch     每批最多的命令数
+     * @param lingerMicros 取到第一条命令后等待更多命令的时间， 微秒， 0 表示不等待
+     */
+    public AutoPipeline(Pool<Jedis> pool, int connections, int maxBatch, long lingerMicros) {
+        this.pool = pool;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+        this.lanes = new Lane[connections];
+        for (int i = 0; i < connections; i++) {
+            lanes[i] = new Lane();
+            Thread thread = new Thread(lanes[i], "redis-auto-pipeline-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * 提交一条命令并等待应答， 同一线程的命令总在同一条连接上， 保持先后顺序
+     *
+     * @return 命令的结果
+     * @throws ClosedException 已关闭， 命令没有发出
+     * @throws JedisException 连接异常或服务端返回错误
+     */
+    public <T> T execute(Command<T> command) {
+        if (closed) {
+            throw new ClosedException();
+        }
+        Pending<T> pending = new Pending<T>(command);
+        LinkedBlockingQueue<Pending<?>> queue = lanes[(int) (Thread.currentThread().getId() % lanes.length)].queue;
+        queue.add(pending);
+        // 入队前刚好关闭时刷写线程可能已经清空队列退出， 取回命令； 取不回说明刷写线程已经拿走， 它会结束这条命令
+        if (closed && queue.remove(pending)) {
+            throw new ClosedException();
+        }
+        try {
+            return pending.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JedisException) {
+                throw (JedisException) e.getCause();
+            }
+            throw new JedisException(e.getCause());
+        }
+    }
+
+    /**
+     * 停止刷写线程并归还共享连接， 排队中和之后提交的命令以 {@link ClosedException} 结束
+     */
+    public void close() {
+        closed = true;
+        for (Lane lane : lanes) {
+            lane.queue.add(new Pending<Object>(null));
+        }
+    }
+
+    /**
+     * 自动 pipeline 已关闭， 命令没有发出， 调用方可以改用其他连接重新执行
+     */
+    public static class ClosedException extends JedisConnectionException {
+        private static final long serialVersionUID = 1L;
+
+        public ClosedException() {
+            super("redis auto pipeline closed");
+        }
+    }
+
+    /**
+     * 一条命令， 在 pipeline 上发出（可以是多条命令， 返回其中需要的应答）
+     */
+    public abstract static class Command<T> {
+
+        public abstract Response<T> apply(Pipeline pipeline);
+    }
+
+    private static class Pending<T> {
+        private final Command<T> command;
+        private final CompletableFuture<T> future = new CompletableFuture<T>();
+        private Response<T> response;
+
+        private Pending(Command<T> command) {
+            this.command = command;
+        }
+
+        private void complete() {
+            try {
+                future.complete(response.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 一条共享连接及其命令队列
+     */
+    private class Lane implements Runnable {
+        private final LinkedBlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<Pending<?>>();
+        private Jedis jedis;
+
+        @Override
+        public void run() {
+            List<Pending<?>> batch = new ArrayList<Pending<?>>(maxBatch);
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (lingerNanos > 0 && queue.size() < maxBatch - 1) {
+                    LockSupport.parkNanos(lingerNanos);
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                if (closed) {
+                    fail(batch, new ClosedException());
+                    break;
+                }
+                flush(batch);
+                batch.clear();
+            }
+            if (jedis != null) {
+                jedis.close();
+            }
+            List<Pending<?>> rest = new ArrayList<Pending<?>>();
+            queue.drainTo(rest);
+            fail(rest, new ClosedException());
+        }
+
+        private void flush(List<Pending<?>> batch) {
+            if (jedis == null && !connect()) {
+                fail(batch, new JedisConnectionException("redis auto pipeline not connected"));
+                return;
+            }
+            Pipeline pipeline = jedis.pipelined();
+            List<Pending<?>> sent = new ArrayList<Pending<?>>(batch.size());
+            for (Pending<?> pending : batch) {
+                if (apply(pipeline, pending)) {
+                    sent.add(pending);
+                }
+            }
+            try {
+                pipeline.sync();
+            } catch (JedisException e) {
+                logger.warn("redis auto pipeline flush failed, batch = " + sent.size(), e);
+                fail(sent, e);
+                // 连接状态未知， 丢弃后重新获取
+                jedis.close();
+                jedis = null;
+                return;
+            }
+            for (Pending<?> pending : sent) {
+                pending.complete();
+            }
+        }
+
+        private <T> boolean apply(Pipeline pipeline, Pending<T> pending) {
+            try {
+                pending.response = pending.command.apply(pipeline);
+                return true;
+            } catch (RuntimeException e) {
+                pending.future.completeExceptionally(e);
+                return false;
+            }
+        }
+
+        private boolean connect() {
+            try {
+                jedis = pool.getResource();
+                return true;
+            } catch (JedisException e) {
+                logger.warn("redis auto pipeline connect failed", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RECONNECT_INTERVAL));
+                return false;
+            }
+        }
+
+        private void fail(List<Pending<?>> batch, JedisException e) {
+            for (Pending<?> pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.project;
 
 import redis.clients.jedis.Jedis;
 
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author haochen
  * @date 2019/3/28 10:00 AM
@@ -9,35 +12,162 @@ import redis.clients.jedis.Jedis;
 public class DefaultRedisDistributeLock implements RedisDistributeLock {
     /**
      * 默认 非公平锁
-     */ private static final Boolean DEFALUT_FAIR = false; /**
+     */
+    private static final Boolean DEFALUT_FAIR = false;
+    /**
      * 过期时间 默认 10 秒, 太短会导致锁不住， 如果业务无法在指定过期时间内 完成， 则必须加长过期时间
-     */ private static final Integer DEFAULT_EXPIRE_TIME = 1000;
-     private Boolean isFair;
-     private Integer expireTime;
+     */
+    private static final Integer DEFAULT_EXPIRE_TIME = 1000;
+    /**
+     * 公平锁排队超时 = 过期时间 * 该系数， 等待者每个过期时间内至少重试一次， 留出足够余量
+     */
+    private static final int QUEUE_TIMEOUT_FACTOR = 3;
+    /**
+     * 未指定锁名时的统计名称
+     */
+    private static final String DEFAULT_NAME = "default";
+    private Boolean isFair;
+    private Integer expireTime;
+    /**
+     * 是否由 LeaseWatchdog 自动续期， 开启后临界区可以超过 expireTime， 持有者崩溃后仍在 expireTime 内释放
+     */
+    private boolean watchdog;
+    /**
+     * 同一锁名的所有实例共用一份统计， 见 LockMetricsRegistry
+     */
+    private final LockMetrics metrics;
 
     public DefaultRedisDistributeLock() {
-        isFair = DEFALUT_FAIR;
-        expireTime = DEFAULT_EXPIRE_TIME;
+        this(DEFALUT_FAIR, DEFAULT_EXPIRE_TIME);
     }
 
     public DefaultRedisDistributeLock(boolean isFair, Integer expireTime) {
-        isFair = isFair;
-        expireTime = expireTime;
+        this(isFair, expireTime, false);
+    }
+
+    public DefaultRedisDistributeLock(boolean isFair, Integer expireTime, boolean watchdog) {
+        this(isFair, expireTime, watchdog, DEFAULT_NAME);
     }
 
+    /**
+     * @param name 锁名， 用于区分统计， 通常按业务命名， 不要使用 key， 避免统计项无限增长
+     */
+    public DefaultRedisDistributeLock(boolean isFair, Integer expireTime, boolean watchdog, String name) {
+        this.isFair = isFair;
+        this.expireTime = expireTime;
+        this.watchdog = watchdog;
+        this.metrics = LockMetricsRegistry.getInstance().get(name);
+    }
+
+    public LockMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 等待者在 Redis 中排队， 释放时只通知队首， 其余等待者只在排队超时前刷新自己的位置
+     */
     @Override
     public void fairLock(Jedis jedis, String key, String uuid) {
-
+        waitLock(jedis, key, uuid, true);
     }
 
     @Override
     public void unfairLock(Jedis jedis, String key, String uuid) {
-        while (true) {
-            boolean locked = RedisTool.tryGetDistributedLock(jedis, key, uuid, expireTime);
-            if (locked) {
-                break;
+        waitLock(jedis, key, uuid, false);
+    }
+
+    private long waitLock(Jedis jedis, String key, String uuid, boolean fair) {
+        long begin = System.nanoTime();
+        LockWaiter.Attempt attempt = attempt(jedis, key, uuid, fair);
+        long start = waiter(key, uuid, fair).awaitUninterruptibly(attempt);
+        long wait = System.nanoTime() - begin;
+        metrics.recordAcquired(wait, attempt.attempts);
+        HotLockTracker.getInstance().recordWait(key, wait);
+        return start;
+    }
+
+    /**
+     * @param jedis 为 null 时每次尝试单独从连接池借连接， 等待期间不占用连接
+     * @param timeout 最长等待时间， 纳秒， 小于 0 表示一直等待
+     * @param interruptible 是否响应中断， 不响应时保留中断状态
+     * @return 加锁成功那次尝试的开始时间， 用于计算租约到期时间， 超时返回 -1
+     */
+    private long waitLock(Jedis jedis, String key, String uuid, boolean fair, long timeout, boolean interruptible)
+            throws InterruptedException {
+        long begin = System.nanoTime();
+        LockWaiter.Attempt attempt = attempt(jedis, key, uuid, fair);
+        long start = waiter(key, uuid, fair).await(attempt, timeout, interruptible);
+        if (start < 0) {
+            metrics.recordTimeout(attempt.attempts);
+        } else {
+            long wait = System.nanoTime() - begin;
+            metrics.recordAcquired(wait, attempt.attempts);
+            HotLockTracker.getInstance().recordWait(key, wait);
+        }
+        return start;
+    }
+
+    /**
+     * 非公平锁订阅 key 的释放通知并使用 HeldKeyCache；
+     * 公平锁只会通知队首， 每个等待者订阅自己的 channel， 等待超时取锁的过期时间
+     */
+    private LockWaiter waiter(String key, String uuid, boolean fair) {
+        if (fair) {
+            return new LockWaiter(key, RedisTool.getFairLockChannel(key, uuid), false, expireTime);
+        }
+        return new LockWaiter(key, RedisTool.getLockChannel(key), true, expireTime);
+    }
+
+    private LockWaiter.Attempt attempt(final Jedis jedis, final String key, final String uuid, final boolean fair) {
+        return new LockWaiter.Attempt() {
+            @Override
+            Long tryLock() {
+                attempts++;
+                return DefaultRedisDistributeLock.this.tryLock(jedis, key, uuid, fair);
+            }
+
+            @Override
+            void cancel() {
+                cancelLock(jedis, key, uuid, fair);
+            }
+        };
+    }
+
+    /**
+     * 放弃等待， 公平锁需要退出等待队列， 否则会阻塞后面的等待者直到排队超时
+     */
+    private void cancelLock(Jedis jedis, String key, String uuid, boolean fair) {
+        if (!fair) {
+            return;
+        }
+        if (jedis != null) {
+            RedisTool.cancelFairLock(jedis, key, uuid);
+            return;
+        }
+        Jedis pooled = RedisClient.getPool().getResource();
+        try {
+            RedisTool.cancelFairLock(pooled, key, uuid);
+        } finally {
+            pooled.close();
+        }
+    }
+
+    /**
+     * @return 加锁成功返回 null， 否则返回持有者剩余的租约； 公平锁不查询租约， 返回锁的过期时间作为等待上限
+     */
+    private Long tryLock(Jedis jedis, String key, String uuid, boolean fair) {
+        if (jedis == null) {
+            Jedis pooled = RedisClient.getPool().getResource();
+            try {
+                return tryLock(pooled, key, uuid, fair);
+            } finally {
+                pooled.close();
             }
         }
+        if (fair) {
+            return RedisTool.tryGetFairLock(jedis, key, uuid, expireTime, expireTime * QUEUE_TIMEOUT_FACTOR) ? null : (long) expireTime;
+        }
+        return RedisTool.tryGetDistributedLockWithTtl(jedis, key, uuid, expireTime);
     }
 
     @Override
@@ -47,19 +177,79 @@ public class DefaultRedisDistributeLock implements RedisDistributeLock {
         } else {
             unfairLock(jedis, key, uuid);
         }
+        if (watchdog) {
+            LeaseWatchdog.getInstance().register(new LockHandle(key, uuid, System.currentTimeMillis() + expireTime), expireTime);
+        }
+    }
+
+    @Override
+    public LockHandle lock(String key) {
+        String uuid = UUID.randomUUID().toString();
+        long start = waitLock(null, key, uuid, isFair);
+        return newHandle(key, uuid, start);
+    }
+
+    @Override
+    public LockHandle lockInterruptibly(String key) throws InterruptedException {
+        String uuid = UUID.randomUUID().toString();
+        long start = waitLock(null, key, uuid, isFair, -1L, true);
+        return newHandle(key, uuid, start);
+    }
+
+    @Override
+    public LockHandle tryLock(String key, long time, TimeUnit unit) throws InterruptedException {
+        String uuid = UUID.randomUUID().toString();
+        long start = waitLock(null, key, uuid, isFair, Math.max(0L, unit.toNanos(time)), true);
+        if (start < 0) {
+            return null;
+        }
+        return newHandle(key, uuid, start);
+    }
 
+    private LockHandle newHandle(String key, String uuid, long start) {
+        LockHandle handle = new LockHandle(key, uuid, start + expireTime);
+        if (watchdog) {
+            LeaseWatchdog.getInstance().register(handle, expireTime);
+        }
+        return handle;
+    }
+
+    @Override
+    public boolean release(LockHandle handle) {
+        if (watchdog) {
+            LeaseWatchdog.getInstance().unregister(handle);
+        }
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            boolean released = releaseLock(jedis, handle.getKey(), handle.getOwner());
+            long hold = System.nanoTime() - handle.getAcquiredNanos();
+            metrics.recordReleased(hold, System.currentTimeMillis() > handle.getLeaseDeadline(), released);
+            HotLockTracker.getInstance().recordHold(handle.getKey(), hold);
+            return released;
+        } finally {
+            jedis.close();
+        }
+    }
+
+    private boolean releaseLock(Jedis jedis, String key, String uuid) {
+        HeldKeyCache.getInstance().invalidate(key);
+        return isFair
+                ? RedisTool.releaseFairLock(jedis, key, uuid)
+                : RedisTool.releaseDistributedLock(jedis, key, uuid);
     }
 
     @Override
     public void release(Jedis jedis, String key, String uuid) {
+        if (watchdog) {
+            LeaseWatchdog.getInstance().unregister(key, uuid);
+        }
         try {
-            while (true) {
-                boolean released = RedisTool.releaseDistributedLock(jedis, key, uuid);
-                if (released) { break; }
+            // 释放失败说明锁已过期并可能被别人拿走， 重试也不会成功
+            if (!releaseLock(jedis, key, uuid)) {
+                metrics.recordReleaseFailure();
             }
         } finally {
             jedis.close();
         }
-
     }
 }
@@ -0,0 +1,85 @@
+package com.project;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM 内共享的"锁被占用"缓存， 记录每个 key 预计被持有到的时间点，
+ * 到期之前本地线程不再去 Redis 尝试加锁， 重试请求量与锁的交接次数成正比， 而不是与等待线程数成正比
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class HeldKeyCache {
+    /**
+     * 缓存的 key 个数上限， 超过后先清理已过期的记录， 仍然超过则全部清空
+     */
+    private static final int MAX_SIZE = 10000;
+
+    private static final HeldKeyCache INSTANCE = new HeldKeyCache();
+
+    private final ConcurrentHashMap<String, Long> heldUntil = new ConcurrentHashMap<String, Long>();
+
+    private HeldKeyCache() {
+    }
+
+    public static HeldKeyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 记录 key 还会被持有 ttl 毫秒
+     *
+     * @param key 锁
+     * @param ttl 剩余租约， 毫秒
+     */
+    public void record(String key, long ttl) {
+        if (ttl <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (heldUntil.size() >= MAX_SIZE) {
+            purge(now);
+        }
+        heldUntil.put(key, now + ttl);
+    }
+
+    /**
+     * @param key 锁
+     * @return 预计剩余的持有时间， 毫秒， 没有记录或已到期返回 0
+     */
+    public long remaining(String key) {
+        Long until = heldUntil.get(key);
+        if (until == null) {
+            return 0L;
+        }
+        long remaining = until - System.currentTimeMillis();
+        if (remaining <= 0) {
+            heldUntil.remove(key, until);
+            return 0L;
+        }
+        return remaining;
+    }
+
+    /**
+     * 锁已释放（收到释放通知或本地释放）
+     *
+     * @param key 锁
+     */
+    public void invalidate(String key) {
+        heldUntil.remove(key);
+    }
+
+    private void purge(long now) {
+        Iterator<Map.Entry<String, Long>> it = heldUntil.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue() <= now) {
+                it.remove();
+            }
+        }
+        if (heldUntil.size() >= MAX_SIZE) {
+            heldUntil.clear();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.project;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点锁检测， key 太多无法逐个统计， 用固定大小的 SpaceSavingSketch 持续维护三个 top-K：
+ * 加锁失败次数最多的 key、 长时间等待最多的 key 和长时间持有最多的 key
+ * 只有加锁失败、 等待或持有超过阈值时才更新， 正常的加锁释放不经过这里； 热点 key 的更新来自很多线程， sketch 按线程分片
+ * 每隔 DUMP_INTERVAL 把 top-K 写入日志， 然后计数减半， 反映的是最近一段时间的热点
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class HotLockTracker implements HotLockTrackerMBean {
+    private static final Logger logger = LoggerFactory.getLogger(HotLockTracker.class);
+    /**
+     * 每个分片的计数器个数， 比输出的 TOP_N 大得多， 误差更小
+     */
+    private static final int CAPACITY = 1024;
+    private static final int STRIPES = Math.min(16, Runtime.getRuntime().availableProcessors());
+    private static final int TOP_N = 20;
+    /**
+     * 等待或持有超过该时间才计入， 毫秒
+     */
+    private static final long LONG_WAIT_THRESHOLD = 100L;
+    private static final long LONG_HOLD_THRESHOLD = 1000L;
+    /**
+     * 写日志并衰减的间隔， 毫秒
+     */
+    private static final long DUMP_INTERVAL = 60000L;
+
+    private static final HotLockTracker INSTANCE = new HotLockTracker();
+
+    private final StripedSpaceSavingSketch contended = new StripedSpaceSavingSketch(CAPACITY, STRIPES);
+    private final StripedSpaceSavingSketch longWaits = new StripedSpaceSavingSketch(CAPACITY, STRIPES);
+    private final StripedSpaceSavingSketch longHolds = new StripedSpaceSavingSketch(CAPACITY, STRIPES);
+
+    private HotLockTracker() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("com.project:type=HotLocks"));
+        } catch (Exception e) {
+            logger.warn("hot lock mbean register failed", e);
+        }
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "redis-hot-lock-dump");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }).scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    dump();
+                    contended.decay();
+                    longWaits.decay();
+                    longHolds.decay();
+                } catch (Exception e) {
+                    logger.error("hot lock dump failed", e);
+                }
+            }
+        }, DUMP_INTERVAL, DUMP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public static HotLockTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 一次加锁尝试失败， 锁被别人持有
+     */
+    void recordFailedAttempt(String key) {
+        contended.add(key, 1L);
+    }
+
+    /**
+     * @param waitNanos 从开始加锁到成功的时间， 超过阈值才计入
+     */
+    void recordWait(String key, long waitNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        if (millis >= LONG_WAIT_THRESHOLD) {
+            longWaits.add(key, millis);
+        }
+    }
+
+    /**
+     * @param holdNanos 从加锁成功到释放的时间， 超过阈值才计入
+     */
+    void recordHold(String key, long holdNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(holdNanos);
+        if (millis >= LONG_HOLD_THRESHOLD) {
+            longHolds.add(key, millis);
+        }
+    }
+
+    public List<SpaceSavingSketch.Entry> topContended(int n) {
+        return contended.top(n);
+    }
+
+    public List<SpaceSavingSketch.Entry> topLongWaits(int n) {
+        return longWaits.top(n);
+    }
+
+    public List<SpaceSavingSketch.Entry> topLongHolds(int n) {
+        return longHolds.top(n);
+    }
+
+    @Override
+    public String[] getTopContended() {
+        return format(contended.top(TOP_N));
+    }
+
+    @Override
+    public String[] getTopLongWaits() {
+        return format(longWaits.top(TOP_N));
+    }
+
+    @Override
+    public String[] getTopLongHolds() {
+        return format(longHolds.top(TOP_N));
+    }
+
+    @Override
+    public void dump() {
+        List<SpaceSavingSketch.Entry> topContended = contended.top(TOP_N);
+        List<SpaceSavingSketch.Entry> topLongWaits = longWaits.top(TOP_N);
+        List<SpaceSavingSketch.Entry> topLongHolds = longHolds.top(TOP_N);
+        if (topContended.isEmpty() && topLongWaits.isEmpty() && topLongHolds.isEmpty()) {
+            return;
+        }
+        logger.info("hot locks, contended = " + topContended + ", long waits(ms) = " + topLongWaits
+                + ", long holds(ms) = " + topLongHolds);
+    }
+
+    public void clear() {
+        contended.clear();
+        longWaits.clear();
+        longHolds.clear();
+    }
+
+    private static String[] format(List<SpaceSavingSketch.Entry> entries) {
+        String[] result = new String[entries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = entries.get(i).toString();
+        }
+        return result;
+    }
+}
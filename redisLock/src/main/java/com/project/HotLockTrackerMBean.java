@@ -0,0 +1,30 @@
+package com.project;
+
+/**
+ * 热点锁统计， 通过 JMX 发布， 每项格式为 key=计数(error=误差)
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public interface HotLockTrackerMBean {
+
+    /**
+     * @return 加锁失败次数最多的 key
+     */
+    String[] getTopContended();
+
+    /**
+     * @return 等待超过阈值的累计等待时间（毫秒）最多的 key
+     */
+    String[] getTopLongWaits();
+
+    /**
+     * @return 持有超过阈值的累计持锁时间（毫秒）最多的 key
+     */
+    String[] getTopLongHolds();
+
+    /**
+     * 立即把当前的热点锁写入日志
+     */
+    void dump();
+}
@@ -0,0 +1,56 @@
+package com.project;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.function.Supplier;
+
+/**
+ * 直连单个节点的连接池， 统计借连接的等待时间并按等待时间调整容量， 见 {@link PoolMetrics}
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class InstrumentedJedisPool extends JedisPool implements InstrumentedPool {
+    private final PoolMetrics metrics;
+
+    /**
+     * @param minTotal         自适应调整的下限， 初始上限取 poolConfig 的 maxTotal
+     * @param maxTotal         自适应调整的上限
+     * @param targetWaitMillis 借连接等待 p99 的目标， 毫秒， 小于 0 表示不自适应调整
+     */
+    public InstrumentedJedisPool(GenericObjectPoolConfig poolConfig, String host, int port, int timeout, String password,
+                                 String name, int minTotal, int maxTotal, long targetWaitMillis) {
+        super(poolConfig, host, port, timeout, password);
+        this.metrics = new PoolMetrics(name, new Supplier<GenericObjectPool<Jedis>>() {
+            @Override
+            public GenericObjectPool<Jedis> get() {
+                return internalPool;
+            }
+        }, minTotal, maxTotal, targetWaitMillis);
+        this.metrics.start();
+    }
+
+    @Override
+    public Jedis getResource() {
+        long start = System.nanoTime();
+        try {
+            return super.getResource();
+        } finally {
+            metrics.recordBorrow(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        metrics.stop();
+        super.destroy();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+}
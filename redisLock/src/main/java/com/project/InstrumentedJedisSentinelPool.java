@@ -0,0 +1,58 @@
+package com.project;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisSentinelPool;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 通过 Sentinel 发现主节点的连接池， 主节点切换后统计和容量调整跟随新的内部连接池， 统计借连接的等待时间并按等待时间调整容量， 见 {@link PoolMetrics}
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class InstrumentedJedisSentinelPool extends JedisSentinelPool implements InstrumentedPool {
+    private final PoolMetrics metrics;
+
+    /**
+     * @param minTotal         自适应调整的下限， 初始上限取 poolConfig 的 maxTotal
+     * @param maxTotal         自适应调整的上限
+     * @param targetWaitMillis 借连接等待 p99 的目标， 毫秒， 小于 0 表示不自适应调整
+     */
+    public InstrumentedJedisSentinelPool(String masterName, Set<String> sentinels, GenericObjectPoolConfig poolConfig,
+                                         int timeout, String password, String name, int minTotal, int maxTotal,
+                                         long targetWaitMillis) {
+        super(masterName, sentinels, poolConfig, timeout, password);
+        this.metrics = new PoolMetrics(name, new Supplier<GenericObjectPool<Jedis>>() {
+            @Override
+            public GenericObjectPool<Jedis> get() {
+                return internalPool;
+            }
+        }, minTotal, maxTotal, targetWaitMillis);
+        this.metrics.start();
+    }
+
+    @Override
+    public Jedis getResource() {
+        long start = System.nanoTime();
+        try {
+            return super.getResource();
+        } finally {
+            metrics.recordBorrow(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        metrics.stop();
+        super.destroy();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,12 @@
+package com.project;
+
+/**
+ * 带借连接等待统计的连接池
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public interface InstrumentedPool {
+
+    PoolMetrics getMetrics();
+}
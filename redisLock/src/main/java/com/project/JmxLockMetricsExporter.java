@@ -0,0 +1,27 @@
+package com.project;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 把每个锁的统计注册为 MBean， 名称为 com.project:type=RedisLock,name="锁名"， 默认开启
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class JmxLockMetricsExporter implements LockMetricsExporter {
+    private static final Logger logger = LoggerFactory.getLogger(JmxLockMetricsExporter.class);
+
+    @Override
+    public void export(LockMetrics metrics) {
+        try {
+            ObjectName objectName = new ObjectName("com.project:type=RedisLock,name=" + ObjectName.quote(metrics.getName()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+        } catch (Exception e) {
+            logger.warn("redis lock mbean register failed, name = " + metrics.getName(), e);
+        }
+    }
+}
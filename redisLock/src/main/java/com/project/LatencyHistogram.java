@@ -0,0 +1,110 @@
+package com.project;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数线性直方图， 每个 2 的幂区间再均分为 8 个桶， 相对误差不超过 12.5%
+ * 桶计数按线程分成多行， 读取时逐行相加， 同一个锁的等待时间集中在相邻几个桶里， 分行后线程之间很少争用同一个计数；
+ * 总数和总和分段累加， 最大值只在出现新的最大值时 CAS， 平时只读， 适合放在热路径上； 分位数按桶的上界返回
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    /**
+     * 行数， 不超过 16 的 2 的幂， 每行 BUCKETS 个计数， 行与行之间只在边界处共享缓存行
+     */
+    private static final int STRIPES = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()));
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value 一般为纳秒， 小于 0 时按 0 记录
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        counts.incrementAndGet(stripe * BUCKETS + index(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        // 只有超过当前最大值时才写
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @param quantile 0 到 1 之间， 例如 0.99
+     * @return 分位数所在桶的上界， 没有记录时返回 0
+     */
+    public long percentile(double quantile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(total * quantile));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                seen += counts.get(stripe * BUCKETS + i);
+            }
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMean() {
+        long total = count.sum();
+        return total == 0 ? 0L : sum.sum() / total;
+    }
+
+    /**
+     * 清零， 与并发的 record 之间可能丢失个别样本
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0L);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,164 @@
+package com.project;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 租约看门狗， 每个 JVM 一个调度线程， 为所有登记的锁自动续期
+ * 每次调度把租约已过去三分之一的锁合并成一次 pipeline 批量续期， 锁释放或持有线程退出后停止续期
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LeaseWatchdog {
+    private static final Logger logger = LoggerFactory.getLogger(LeaseWatchdog.class);
+    /**
+     * 调度间隔， 毫秒， 需明显小于最短租约的三分之一
+     */
+    private static final long TICK_INTERVAL = 100L;
+
+    private static final LeaseWatchdog INSTANCE = new LeaseWatchdog();
+
+    private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<String, Lease>();
+    private ScheduledExecutorService scheduler;
+
+    private LeaseWatchdog() {
+    }
+
+    public static LeaseWatchdog getInstance() {
+        return INSTANCE;
+    }
+
+    private synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "redis-lock-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    renew();
+                } catch (Exception e) {
+                    logger.error("redis lock renew failed", e);
+                }
+            }
+        }, TICK_INTERVAL, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 登记需要续期的锁， 当前线程视为持有线程
+     *
+     * @param handle    锁句柄
+     * @param leaseTime 每次续期的租约， 毫秒
+     */
+    public void register(LockHandle handle, int leaseTime) {
+        start();
+        leases.put(id(handle.getKey(), handle.getOwner()), new Lease(handle, leaseTime, Thread.currentThread()));
+    }
+
+    /**
+     * 锁交给了其他线程（如本地交接）， 改为跟踪当前线程是否存活， 未登记的锁忽略
+     *
+     * @param handle 锁句柄
+     */
+    public void transfer(LockHandle handle) {
+        Lease lease = leases.get(id(handle.getKey(), handle.getOwner()));
+        if (lease != null) {
+            lease.owner = new WeakReference<Thread>(Thread.currentThread());
+        }
+    }
+
+    public void unregister(LockHandle handle) {
+        unregister(handle.getKey(), handle.getOwner());
+    }
+
+    public void unregister(String key, String owner) {
+        leases.remove(id(key, owner));
+    }
+
+    /**
+     * @return 正在续期的锁个数
+     */
+    public int size() {
+        return leases.size();
+    }
+
+    private void renew() {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Lease>> due = new ArrayList<Map.Entry<String, Lease>>();
+        for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            Thread owner = lease.owner.get();
+            if (owner == null || !owner.isAlive()) {
+                leases.remove(entry.getKey(), lease);
+                logger.warn("redis lock owner thread died, stop renewing, " + lease.handle);
+                continue;
+            }
+            if (lease.handle.getLeaseDeadline() - now < lease.leaseTime * 2L / 3) {
+                due.add(entry);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<String>(due.size());
+        List<String> owners = new ArrayList<String>(due.size());
+        List<Integer> leaseTimes = new ArrayList<Integer>(due.size());
+        for (Map.Entry<String, Lease> entry : due) {
+            LockHandle handle = entry.getValue().handle;
+            keys.add(handle.getKey());
+            owners.add(handle.getOwner());
+            leaseTimes.add(entry.getValue().leaseTime);
+        }
+        boolean[] renewed;
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            renewed = RedisTool.renewDistributedLocks(jedis, keys, owners, leaseTimes);
+        } finally {
+            jedis.close();
+        }
+        for (int i = 0; i < renewed.length; i++) {
+            Lease lease = due.get(i).getValue();
+            if (renewed[i]) {
+                lease.handle.setLeaseDeadline(now + lease.leaseTime);
+            } else if (leases.remove(due.get(i).getKey(), lease)) {
+                logger.warn("redis lock lost before renew, " + lease.handle);
+            }
+        }
+    }
+
+    private static String id(String key, String owner) {
+        return key + ":" + owner;
+    }
+
+    private static class Lease {
+        private final LockHandle handle;
+        private final int leaseTime;
+        private volatile WeakReference<Thread> owner;
+
+        private Lease(LockHandle handle, int leaseTime, Thread owner) {
+            this.handle = handle;
+            this.leaseTime = leaseTime;
+            this.owner = new WeakReference<Thread>(owner);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本机合并锁， 同一个 JVM 内同一个 key 的等待者先在本地排队， 每个 JVM 只有队首线程去 Redis 竞争，
+ * Redis 的请求量从 O(线程数) 降到 O(JVM 数)
+ * 持有者释放时如果本地还有等待者且租约仍然有效， 直接把锁交给下一个本地等待者， 不访问 Redis
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LocalCoalescingRedisDistributeLock implements RedisDistributeLock {
+    /**
+     * 剩余租约低于该值时不再本地交接， 毫秒
+     */
+    private static final long DEFAULT_MIN_HANDOFF_LEASE = 100L;
+    /**
+     * 连续本地交接的上限， 达到后必须回到 Redis 竞争， 避免其他 JVM 饿死
+     */
+    private static final int DEFAULT_MAX_LOCAL_HANDOFFS = 32;
+
+    private final RedisDistributeLock delegate;
+    private final long minHandoffLease;
+    private final int maxLocalHandoffs;
+    private final ConcurrentHashMap<String, LocalLock> locals = new ConcurrentHashMap<String, LocalLock>();
+
+    public LocalCoalescingRedisDistributeLock(RedisDistributeLock delegate) {
+        this(delegate, DEFAULT_MIN_HANDOFF_LEASE, DEFAULT_MAX_LOCAL_HANDOFFS);
+    }
+
+    public LocalCoalescingRedisDistributeLock(RedisDistributeLock delegate, long minHandoffLease, int maxLocalHandoffs) {
+        this.delegate = delegate;
+        this.minHandoffLease = minHandoffLease;
+        this.maxLocalHandoffs = maxLocalHandoffs;
+    }
+
+    @Override
+    public void fairLock(Jedis jedis, String key, String uuid) {
+        LocalLock local = acquireLocal(key);
+        try {
+            delegate.fairLock(jedis, key, uuid);
+        } catch (RuntimeException e) {
+            releaseLocal(key, local);
+            throw e;
+        }
+    }
+
+    @Override
+    public void unfairLock(Jedis jedis, String key, String uuid) {
+        LocalLock local = acquireLocal(key);
+        try {
+            delegate.unfairLock(jedis, key, uuid);
+        } catch (RuntimeException e) {
+            releaseLocal(key, local);
+            throw e;
+        }
+    }
+
+    @Override
+    public void lock(Jedis jedis, String key, String uuid) {
+        LocalLock local = acquireLocal(key);
+        try {
+            delegate.lock(jedis, key, uuid);
+        } catch (RuntimeException e) {
+            releaseLocal(key, local);
+            throw e;
+        }
+    }
+
+    /**
+     * 调用方自带 uuid， 无法把锁交接给持有其他 uuid 的线程， 这里只做本地排队
+     */
+    @Override
+    public void release(Jedis jedis, String key, String uuid) {
+        try {
+            delegate.release(jedis, key, uuid);
+        } finally {
+            LocalLock local = locals.get(key);
+            if (local != null) {
+                releaseLocal(key, local);
+            }
+        }
+    }
+
+    @Override
+    public LockHandle lock(String key) {
+        try {
+            return lock(key, -1L, false);
+        } catch (InterruptedException e) {
+            // 不可中断时不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public LockHandle lockInterruptibly(String key) throws InterruptedException {
+        return lock(key, -1L, true);
+    }
+
+    @Override
+    public LockHandle tryLock(String key, long time, TimeUnit unit) throws InterruptedException {
+        return lock(key, Math.max(0L, unit.toNanos(time)), true);
+    }
+
+    /**
+     * @param timeout 最长等待时间， 纳秒， 小于 0 表示一直等待， 本地排队和 Redis 竞争共用
+     * @return 锁句柄， 超时返回 null
+     */
+    private LockHandle lock(String key, long timeout, boolean interruptible) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout;
+        LocalLock local = acquireLocal(key, timeout, interruptible);
+        if (local == null) {
+            return null;
+        }
+        try {
+            LockHandle remote = local.remote;
+            if (remote != null && local.handoffs < maxLocalHandoffs && remote.getRemainingLease() > minHandoffLease) {
+                local.handoffs++;
+                LeaseWatchdog.getInstance().transfer(remote);
+                return remote;
+            }
+            local.remote = null;
+            local.handoffs = 0;
+            if (remote != null) {
+                delegate.release(remote);
+            }
+            if (timeout < 0) {
+                remote = interruptible ? delegate.lockInterruptibly(key) : delegate.lock(key);
+            } else {
+                remote = delegate.tryLock(key, Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            if (remote == null) {
+                releaseLocal(key, local);
+                return null;
+            }
+            local.remote = remote;
+            return remote;
+        } catch (RuntimeException e) {
+            local.remote = null;
+            releaseLocal(key, local);
+            throw e;
+        } catch (InterruptedException e) {
+            local.remote = null;
+            releaseLocal(key, local);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean release(LockHandle handle) {
+        String key = handle.getKey();
+        LocalLock local = locals.get(key);
+        if (local == null || local.remote != handle) {
+            return delegate.release(handle);
+        }
+        boolean released = true;
+        boolean handoff = local.permit.hasQueuedThreads()
+                && local.handoffs < maxLocalHandoffs
+                && handle.getRemainingLease() > minHandoffLease;
+        if (!handoff) {
+            local.remote = null;
+            try {
+                released = delegate.release(handle);
+            } finally {
+                releaseLocal(key, local);
+            }
+            return released;
+        }
+        releaseLocal(key, local);
+        return released;
+    }
+
+    private LocalLock acquireLocal(String key) {
+        LocalLock local = join(key);
+        local.permit.acquireUninterruptibly();
+        return local;
+    }
+
+    /**
+     * 本地排队
+     *
+     * @return 本地锁， 超时返回 null
+     */
+    private LocalLock acquireLocal(String key, long timeout, boolean interruptible) throws InterruptedException {
+        LocalLock local = join(key);
+        if (timeout < 0 && !interruptible) {
+            local.permit.acquireUninterruptibly();
+            return local;
+        }
+        boolean acquired = false;
+        try {
+            if (timeout < 0) {
+                local.permit.acquire();
+                acquired = true;
+            } else {
+                acquired = local.permit.tryAcquire(timeout, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            if (!acquired) {
+                LockHandle orphan = leave(key, local);
+                if (orphan != null) {
+                    delegate.release(orphan);
+                }
+            }
+        }
+        return acquired ? local : null;
+    }
+
+    private LocalLock join(String key) {
+        synchronized (locals) {
+            LocalLock local = locals.get(key);
+            if (local == null) {
+                local = new LocalLock();
+                locals.put(key, local);
+            }
+            local.users++;
+            return local;
+        }
+    }
+
+    private void releaseLocal(String key, LocalLock local) {
+        LockHandle orphan = leave(key, local);
+        local.permit.release();
+        if (orphan != null) {
+            delegate.release(orphan);
+        }
+    }
+
+    /**
+     * 最后一个使用者离开时移除本地锁， 并返回留着交接用的远程锁， 需要调用方释放
+     * 放弃排队的等待者也可能是最后一个使用者， 这时由它释放远程锁
+     */
+    private LockHandle leave(String key, LocalLock local) {
+        LockHandle orphan = null;
+        synchronized (locals) {
+            if (--local.users == 0) {
+                locals.remove(key);
+                orphan = local.remote;
+                local.remote = null;
+            }
+        }
+        return orphan;
+    }
+
+    private static class LocalLock {
+        /**
+         * 本地排队， 公平信号量保证先到先得， 并且允许由其他线程释放
+         */
+        private final Semaphore permit = new Semaphore(1, true);
+        /**
+         * 在 locals 上同步访问
+         */
+        private int users;
+        /**
+         * 当前 JVM 持有的远程锁， 只由持有 permit 的线程读写
+         */
+        private volatile LockHandle remote;
+        private int handoffs;
+    }
+}
@@ -0,0 +1,58 @@
+package com.project;
+
+/**
+ * 锁句柄， 只记录锁、持有者标识和租约到期时间， 不占用 Redis 连接
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LockHandle {
+    private final String key;
+    private final String owner;
+    /**
+     * 租约到期的时间点， 毫秒， 以发出加锁命令之前的本地时间计算， 偏保守
+     */
+    private volatile long leaseDeadline;
+    /**
+     * 拿到锁的时间点， System.nanoTime()， 用于统计持锁时间
+     */
+    private final long acquiredNanos = System.nanoTime();
+
+    LockHandle(String key, String owner, long leaseDeadline) {
+        this.key = key;
+        this.owner = owner;
+        this.leaseDeadline = leaseDeadline;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public long getLeaseDeadline() {
+        return leaseDeadline;
+    }
+
+    long getAcquiredNanos() {
+        return acquiredNanos;
+    }
+
+    void setLeaseDeadline(long leaseDeadline) {
+        this.leaseDeadline = leaseDeadline;
+    }
+
+    /**
+     * @return 剩余租约， 毫秒， 已过期时返回 0
+     */
+    public long getRemainingLease() {
+        return Math.max(0L, leaseDeadline - System.currentTimeMillis());
+    }
+
+    @Override
+    public String toString() {
+        return "LockHandle{key=" + key + ", owner=" + owner + ", leaseDeadline=" + leaseDeadline + "}";
+    }
+}
@@ -0,0 +1,176 @@
+package com.project;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同一个锁名下的加锁统计： 等待时间、 每次加锁的尝试次数、 持锁时间、 租约超时和释放失败
+ * 计数器为 LongAdder， 直方图为 LatencyHistogram， 记录时不分配对象也不加锁， 可以在生产环境一直开启
+ * 通过 {@link LockMetricsRegistry#get(String)} 获取
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LockMetrics implements LockMetricsMBean {
+    private final String name;
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    /**
+     * 每次加锁成功前的尝试次数
+     */
+    private final LatencyHistogram attempts = new LatencyHistogram();
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+    private final LongAdder totalAttempts = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaseOverruns = new LongAdder();
+    private final LongAdder releaseFailures = new LongAdder();
+
+    LockMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param waitNanos 从开始加锁到成功的时间
+     * @param tries     本次加锁的尝试次数
+     */
+    void recordAcquired(long waitNanos, int tries) {
+        waitTime.record(waitNanos);
+        attempts.record(tries);
+        totalAttempts.add(tries);
+    }
+
+    void recordTimeout(int tries) {
+        timeouts.increment();
+        totalAttempts.add(tries);
+    }
+
+    /**
+     * @param holdNanos    从加锁成功到释放的时间
+     * @param leaseOverrun 释放时租约是否已经到期
+     * @param released     是否释放成功， 失败说明锁已过期并可能被别人拿走
+     */
+    void recordReleased(long holdNanos, boolean leaseOverrun, boolean released) {
+        holdTime.record(holdNanos);
+        if (leaseOverrun) {
+            leaseOverruns.increment();
+        }
+        if (!released) {
+            releaseFailures.increment();
+        }
+    }
+
+    /**
+     * 不经过 LockHandle 的释放失败， 没有持锁时间
+     */
+    void recordReleaseFailure() {
+        releaseFailures.increment();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getAcquisitions() {
+        return waitTime.getCount();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getWaitMeanMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(waitTime.getMean());
+    }
+
+    @Override
+    public long getWaitP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(waitTime.percentile(0.5));
+    }
+
+    @Override
+    public long getWaitP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(waitTime.percentile(0.99));
+    }
+
+    @Override
+    public long getWaitP999Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(waitTime.percentile(0.999));
+    }
+
+    @Override
+    public long getWaitMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(waitTime.getMax());
+    }
+
+    @Override
+    public long getAttempts() {
+        return totalAttempts.sum();
+    }
+
+    @Override
+    public long getAttemptsP99() {
+        return attempts.percentile(0.99);
+    }
+
+    @Override
+    public long getAttemptsMax() {
+        return attempts.getMax();
+    }
+
+    @Override
+    public long getHoldMeanMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(holdTime.getMean());
+    }
+
+    @Override
+    public long getHoldP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(holdTime.percentile(0.5));
+    }
+
+    @Override
+    public long getHoldP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(holdTime.percentile(0.99));
+    }
+
+    @Override
+    public long getHoldP999Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(holdTime.percentile(0.999));
+    }
+
+    @Override
+    public long getHoldMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(holdTime.getMax());
+    }
+
+    @Override
+    public long getLeaseOverruns() {
+        return leaseOverruns.sum();
+    }
+
+    @Override
+    public long getReleaseFailures() {
+        return releaseFailures.sum();
+    }
+
+    @Override
+    public void reset() {
+        waitTime.reset();
+        attempts.reset();
+        holdTime.reset();
+        totalAttempts.reset();
+        timeouts.reset();
+        leaseOverruns.reset();
+        releaseFailures.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "LockMetrics{name=" + name + ", acquisitions=" + getAcquisitions() + ", timeouts=" + getTimeouts()
+                + ", waitP99=" + getWaitP99Micros() + "us, attemptsP99=" + getAttemptsP99()
+                + ", holdP99=" + getHoldP99Micros() + "us, leaseOverruns=" + getLeaseOverruns()
+                + ", releaseFailures=" + getReleaseFailures() + "}";
+    }
+}
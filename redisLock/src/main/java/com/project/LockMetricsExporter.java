@@ -0,0 +1,13 @@
+package com.project;
+
+/**
+ * 锁监控的导出方式， 通过 {@link LockMetricsRegistry#addExporter(LockMetricsExporter)} 注册，
+ * 每个锁名第一次使用时回调一次； 需要定时上报的实现可以通过 {@link LockMetricsRegistry#getAll()} 拉取
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public interface LockMetricsExporter {
+
+    void export(LockMetrics metrics);
+}
@@ -0,0 +1,63 @@
+package com.project;
+
+/**
+ * 锁的监控项， 通过 JMX 发布， 时间单位为微秒
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public interface LockMetricsMBean {
+
+    String getName();
+
+    long getAcquisitions();
+
+    /**
+     * @return tryLock 超时未拿到锁的次数
+     */
+    long getTimeouts();
+
+    long getWaitMeanMicros();
+
+    long getWaitP50Micros();
+
+    long getWaitP99Micros();
+
+    long getWaitP999Micros();
+
+    long getWaitMaxMicros();
+
+    /**
+     * @return 所有加锁累计发出的 SET（或公平锁脚本）次数
+     */
+    long getAttempts();
+
+    long getAttemptsP99();
+
+    long getAttemptsMax();
+
+    long getHoldMeanMicros();
+
+    long getHoldP50Micros();
+
+    long getHoldP99Micros();
+
+    long getHoldP999Micros();
+
+    long getHoldMaxMicros();
+
+    /**
+     * @return 释放时租约已经过期的次数， 说明临界区超过了 expireTime
+     */
+    long getLeaseOverruns();
+
+    /**
+     * @return 释放时锁已不属于自己的次数
+     */
+    long getReleaseFailures();
+
+    /**
+     * 清零全部统计
+     */
+    void reset();
+}
@@ -0,0 +1,68 @@
+package com.project;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 按锁名管理 LockMetrics， 锁在创建时取一次， 加锁的热路径上不查表
+ * 默认注册 JmxLockMetricsExporter
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LockMetricsRegistry {
+    private static final LockMetricsRegistry INSTANCE = new LockMetricsRegistry();
+
+    private final ConcurrentMap<String, LockMetrics> metrics = new ConcurrentHashMap<String, LockMetrics>();
+    private final List<LockMetricsExporter> exporters = new CopyOnWriteArrayList<LockMetricsExporter>();
+
+    private LockMetricsRegistry() {
+        exporters.add(new JmxLockMetricsExporter());
+    }
+
+    public static LockMetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取锁名对应的统计， 不存在时创建并交给所有 exporter
+     */
+    public LockMetrics get(String name) {
+        LockMetrics current = metrics.get(name);
+        if (current != null) {
+            return current;
+        }
+        LockMetrics created = new LockMetrics(name);
+        current = metrics.putIfAbsent(name, created);
+        if (current != null) {
+            return current;
+        }
+        for (LockMetricsExporter exporter : exporters) {
+            exporter.export(created);
+        }
+        return created;
+    }
+
+    public Collection<LockMetrics> getAll() {
+        return Collections.unmodifiableCollection(new ArrayList<LockMetrics>(metrics.values()));
+    }
+
+    /**
+     * 注册 exporter， 已有的锁统计会立即导出一次
+     */
+    public void addExporter(LockMetricsExporter exporter) {
+        exporters.add(exporter);
+        for (LockMetrics current : metrics.values()) {
+            exporter.export(current);
+        }
+    }
+
+    public void removeExporter(LockMetricsExporter exporter) {
+        exporters.remove(exporter);
+    }
+}
@@ -0,0 +1,287 @@
+package com.project;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 锁释放通知的订阅者， 每个 JVM 只占用一条订阅连接
+ * 等待锁的线程按 channel 注册， 收到释放通知后只唤醒一个等待者去重试加锁， 广播通知唤醒所有等待者
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class LockSubscriber {
+    private static final Logger logger = LoggerFactory.getLogger(LockSubscriber.class);
+    /**
+     * 订阅连接上常驻的 channel， 保证没有等待者时订阅也不会退出
+     */
+    private static final String BOOTSTRAP_CHANNEL = "redis_lock__bootstrap";
+    /**
+     * 唤醒 channel 上所有等待者的通知内容， 用于可以同时持有的锁（如读锁）
+     */
+    public static final String BROADCAST_MESSAGE = "redis_lock__broadcast";
+    /**
+     * 订阅连接断开后的重连间隔
+     */
+    private static final long RECONNECT_INTERVAL = 1000L;
+
+    private static final LockSubscriber INSTANCE = new LockSubscriber();
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    /**
+     * 当前连接上的订阅， 未连接时为 null， 读写都在 this 上同步
+     */
+    private PubSub pubSub;
+    private Thread thread;
+
+    private LockSubscriber() {
+    }
+
+    public static LockSubscriber getInstance() {
+        INSTANCE.start();
+        return INSTANCE;
+    }
+
+    private synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                listen();
+            }
+        }, "redis-lock-subscriber");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 注册一个等待者， 必须与 {@link #unsubscribe(String, Entry)} 成对调用
+     *
+     * @param channel 锁释放通知的 channel
+     * @return 等待入口
+     */
+    public synchronized Entry subscribe(String channel) {
+        Entry entry = entries.get(channel);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(channel, entry);
+            if (pubSub != null) {
+                pubSub.subscribe(channel);
+            }
+        }
+        entry.refs++;
+        return entry;
+    }
+
+    /**
+     * 注销一个等待者， 最后一个等待者离开时退订 channel
+     *
+     * @param channel 锁释放通知的 channel
+     * @param entry   {@link #subscribe(String)} 返回的等待入口
+     */
+    public synchronized void unsubscribe(String channel, Entry entry) {
+        if (--entry.refs > 0) {
+            return;
+        }
+        entries.remove(channel);
+        if (pubSub != null) {
+            pubSub.unsubscribe(channel);
+        }
+    }
+
+    private void listen() {
+        while (true) {
+            Jedis jedis = RedisClient.getJedis();
+            if (jedis != null) {
+                try {
+                    jedis.subscribe(new PubSub(), BOOTSTRAP_CHANNEL);
+                } catch (Exception e) {
+                    logger.warn("redis lock subscriber disconnected", e);
+                } finally {
+                    disconnected();
+                    jedis.close();
+                }
+            }
+            try {
+                Thread.sleep(RECONNECT_INTERVAL);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private synchronized void connected(PubSub connection) {
+        pubSub = connection;
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<String> channels = new ArrayList<String>(entries.keySet());
+        pubSub.subscribe(channels.toArray(new String[channels.size()]));
+    }
+
+    private synchronized void disconnected() {
+        pubSub = null;
+        // 断线期间的通知可能丢失， 让所有等待者立即重试一次
+        for (Entry entry : entries.values()) {
+            entry.subscribed.complete(null);
+            entry.broadcast();
+        }
+    }
+
+    /**
+     * 单个 channel 的等待入口
+     * 普通通知只唤醒一个等待者； 广播通知推进 generation， 之前开始等待的所有等待者都会返回，
+     * 被唤醒后加锁失败的等待者不会抢走其他等待者的广播
+     * 异步等待者注册监听器而不占用线程， 普通通知轮流触发一个监听器， 广播通知触发所有监听器
+     */
+    public static class Entry {
+        private final CompletableFuture<Void> subscribed = new CompletableFuture<Void>();
+        private final ConcurrentLinkedQueue<Runnable> listeners = new ConcurrentLinkedQueue<Runnable>();
+        /**
+         * 在 LockSubscriber 上同步访问
+         */
+        private int refs;
+        /**
+         * 以下两个字段在 entry 上同步访问
+         */
+        private int permits;
+        private long generation;
+
+        /**
+         * 等待订阅生效， 避免订阅生效前的释放通知丢失
+         *
+         * @param timeout 最长等待时间， 毫秒
+         */
+        public void awaitSubscribed(long timeout) throws InterruptedException {
+            try {
+                subscribed.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                // 不会异常完成
+            } catch (TimeoutException e) {
+                // 超时后照常重试， 由等待超时兜底
+            }
+        }
+
+        /**
+         * @return 订阅生效（或连接断开）时完成的 future， 异步等待者在此之后再尝试一次加锁
+         */
+        public CompletableFuture<Void> whenSubscribed() {
+            return subscribed;
+        }
+
+        /**
+         * 注册异步等待者， 在订阅线程上回调， 回调中不能阻塞
+         *
+         * @param listener 收到通知时的回调， 可能被多次调用， 需调用 {@link #removeListener(Runnable)} 注销
+         */
+        public void addListener(Runnable listener) {
+            listeners.add(listener);
+        }
+
+        public void removeListener(Runnable listener) {
+            listeners.remove(listener);
+        }
+
+        /**
+         * @return 当前的广播代数， 需在尝试加锁之前读取， 传给 {@link #await(long, long)}
+         */
+        public synchronized long generation() {
+            return generation;
+        }
+
+        /**
+         * 等待释放通知， 超时用于兜底丢失的通知和持有者崩溃后锁自然过期的情况
+         *
+         * @param timeout    最长等待时间， 毫秒
+         * @param generation 尝试加锁之前读取的广播代数， 之后收到过广播时立即返回
+         * @return 是否收到通知
+         */
+        public synchronized boolean await(long timeout, long generation) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+            while (permits == 0 && this.generation == generation) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            if (this.generation == generation) {
+                permits--;
+            }
+            return true;
+        }
+
+        private void signal() {
+            synchronized (this) {
+                permits++;
+                notifyAll();
+            }
+            Runnable listener = listeners.poll();
+            if (listener != null) {
+                // 放回队尾， 下一次通知轮到其他等待者
+                listeners.add(listener);
+                fire(listener);
+            }
+        }
+
+        private void broadcast() {
+            synchronized (this) {
+                generation++;
+                notifyAll();
+            }
+            for (Runnable listener : listeners) {
+                fire(listener);
+            }
+        }
+
+        private static void fire(Runnable listener) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.error("redis lock listener failed", e);
+            }
+        }
+    }
+
+    private class PubSub extends JedisPubSub {
+
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            if (BOOTSTRAP_CHANNEL.equals(channel)) {
+                connected(this);
+                return;
+            }
+            Entry entry = entries.get(channel);
+            if (entry != null) {
+                entry.subscribed.complete(null);
+            }
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            Entry entry = entries.get(channel);
+            if (entry == null) {
+                return;
+            }
+            if (BROADCAST_MESSAGE.equals(message)) {
+                entry.broadcast();
+            } else {
+                entry.signal();
+            }
+        }
+    }
+}
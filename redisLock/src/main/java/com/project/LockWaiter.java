@@ -0,0 +1,226 @@
+package com.project;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 等待加锁的公共逻辑， 加锁失败后订阅锁释放通知， 只有被通知唤醒或到了预计释放时间的线程才会重新尝试加锁
+ * 开启 shared 时加锁失败拿到的剩余租约会记入 HeldKeyCache， 在此之前本地线程都不再访问 Redis
+ * 每次加锁失败记入 HotLockTracker
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+class LockWaiter {
+    /**
+     * 持有者剩余租约未知时， 指数退避的初始等待时间， 毫秒
+     */
+    private static final long MIN_RETRY_DELAY = 5L;
+    /**
+     * 按剩余租约安排重试时附加的随机抖动上限， 毫秒
+     */
+    private static final int MAX_RETRY_JITTER = 10;
+    /**
+     * {@link #await} 的返回值， 尝试返回了 {@link Attempt#RESUBSCRIBE}， 没有加锁， 调用方应改为等待其他 channel
+     */
+    static final long RESUBSCRIBE = -2L;
+
+    private final String key;
+    private final String channel;
+    private final boolean shared;
+    private final long maxWait;
+
+    /**
+     * @param key     锁
+     * @param channel 锁释放通知的 channel
+     * @param shared  是否使用 HeldKeyCache， 同一线程可重入的锁不能使用， 否则会因为自己持有而跳过加锁
+     * @param maxWait 单次等待的上限， 毫秒， 一般取锁的过期时间， 用于兜底丢失的通知和持有者崩溃的情况
+     */
+    LockWaiter(String key, String channel, boolean shared, long maxWait) {
+        this.key = key;
+        this.channel = channel;
+        this.shared = shared;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * 不可中断地一直等待
+     */
+    long awaitUninterruptibly(Attempt attempt) {
+        try {
+            return await(attempt, -1L, false);
+        } catch (InterruptedException e) {
+            // 不可中断时不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param timeout       最长等待时间， 纳秒， 小于 0 表示一直等待
+     * @param interruptible 是否响应中断， 不响应时保留中断状态
+     * @return 加锁成功那次尝试的开始时间， 用于计算租约到期时间， 超时返回 -1，
+     * 尝试要求改为等待其他 channel 时返回 {@link #RESUBSCRIBE}
+     */
+    long await(Attempt attempt, long timeout, boolean interruptible) throws InterruptedException {
+        if (interruptible && Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        HeldKeyCache heldKeys = HeldKeyCache.getInstance();
+        long deadline = System.nanoTime() + timeout;
+        int attempts = 0;
+        if (!shared || heldKeys.remaining(key) <= 0) {
+            long start = System.currentTimeMillis();
+            Long ttl = attempt.tryLock();
+            if (ttl == null) {
+                return locked(start);
+            }
+            if (ttl == Attempt.RESUBSCRIBE) {
+                return RESUBSCRIBE;
+            }
+            HotLockTracker.getInstance().recordFailedAttempt(key);
+            retryDelay(ttl, attempts++);
+        }
+        if (timeout == 0) {
+            attempt.cancel();
+            return -1L;
+        }
+        LockSubscriber subscriber = LockSubscriber.getInstance();
+        LockSubscriber.Entry entry = subscriber.subscribe(channel);
+        boolean interrupted = false;
+        // 加锁成功或改为等待其他 channel 时不放弃这次尝试
+        boolean keep = false;
+        try {
+            try {
+                entry.awaitSubscribed(waitTime(timeout, deadline, maxWait));
+            } catch (InterruptedException e) {
+                if (interruptible) {
+                    throw e;
+                }
+                interrupted = true;
+            }
+            // 订阅生效前的释放通知可能已经丢失， 订阅后总是再尝试一次
+            boolean notified = true;
+            long generation = entry.generation();
+            while (true) {
+                long delay = !shared || notified ? 0L : heldKeys.remaining(key);
+                if (delay <= 0) {
+                    generation = entry.generation();
+                    long start = System.currentTimeMillis();
+                    Long ttl = attempt.tryLock();
+                    if (ttl == null) {
+                        keep = true;
+                        return locked(start);
+                    }
+                    if (ttl == Attempt.RESUBSCRIBE) {
+                        keep = true;
+                        return RESUBSCRIBE;
+                    }
+                    HotLockTracker.getInstance().recordFailedAttempt(key);
+                    delay = retryDelay(ttl, attempts++);
+                }
+                if (timeout >= 0 && deadline - System.nanoTime() <= 0) {
+                    return -1L;
+                }
+                try {
+                    notified = entry.await(waitTime(timeout, deadline, delay), generation);
+                } catch (InterruptedException e) {
+                    if (interruptible) {
+                        throw e;
+                    }
+                    interrupted = true;
+                    notified = false;
+                }
+                if (notified && shared) {
+                    heldKeys.invalidate(key);
+                }
+            }
+        } finally {
+            subscriber.unsubscribe(channel, entry);
+            if (!keep) {
+                attempt.cancel();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 加锁成功， 记入 HeldKeyCache， 本地其他线程在释放前不必再访问 Redis
+     */
+    private long locked(long start) {
+        if (shared) {
+            HeldKeyCache.getInstance().record(key, maxWait);
+        }
+        return start;
+    }
+
+    /**
+     * 下一次重试前的等待时间， 见 {@link #retryDelay(long, int, long)}， 共享锁顺便记录持有者的剩余租约
+     *
+     * @param ttl      加锁失败时持有者剩余的租约， 毫秒
+     * @param attempts 已经失败的次数
+     */
+    private long retryDelay(long ttl, int attempts) {
+        if (ttl > 0 && shared) {
+            HeldKeyCache.getInstance().record(key, ttl);
+        }
+        return retryDelay(ttl, attempts, maxWait);
+    }
+
+    /**
+     * 下一次重试前的等待时间， 同步和异步的等待共用
+     * 已知剩余租约时等到预计释放时间再加上随机抖动， 避免所有 JVM 同时重试；
+     * 锁没有过期时间或恰好过期时按指数退避， 上限为 maxWait
+     *
+     * @param ttl      加锁失败时持有者剩余的租约， 毫秒， 未知时为 -1
+     * @param attempts 已经失败的次数
+     * @param maxWait  单次等待的上限， 毫秒
+     */
+    static long retryDelay(long ttl, int attempts, long maxWait) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (ttl > 0) {
+            return Math.min(ttl, maxWait) + random.nextInt(MAX_RETRY_JITTER);
+        }
+        long backoff = Math.min(maxWait, MIN_RETRY_DELAY << Math.min(attempts, 16));
+        return backoff / 2 + random.nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * 单次等待的时间， 不超过 delay， 也不超过剩余的等待时间
+     */
+    private static long waitTime(long timeout, long deadline, long delay) {
+        if (timeout < 0) {
+            return delay;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime() + 999999L);
+        return Math.min(delay, remaining);
+    }
+
+    /**
+     * 一次加锁尝试
+     */
+    abstract static class Attempt {
+        /**
+         * 已经发出的加锁尝试次数， 由实现在 tryLock 中累加， 用于统计
+         */
+        int attempts;
+
+        /**
+         * {@link #tryLock} 的返回值， 没有加锁， 需要等待的 channel 变了， 结束这一轮等待
+         */
+        static final long RESUBSCRIBE = Long.MIN_VALUE;
+
+        /**
+         * @return 加锁成功返回 null， 否则返回建议的重试等待时间（一般是持有者剩余的租约）， 毫秒， 未知时返回 -1，
+         * 需要改为等待其他 channel 时返回 {@link #RESUBSCRIBE}
+         */
+        abstract Long tryLock();
+
+        /**
+         * 放弃等待时调用， 例如退出公平锁的等待队列
+         */
+        void cancel() {
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.project;
+
+import java.util.List;
+
+/**
+ * 多 key 锁的句柄， 所有 key 使用同一个持有者标识和租约
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class MultiLockHandle {
+    private final List<String> keys;
+    private final String owner;
+    /**
+     * 租约到期的时间点， 毫秒， 以发出加锁命令之前的本地时间计算， 偏保守
+     */
+    private final long leaseDeadline;
+
+    MultiLockHandle(List<String> keys, String owner, long leaseDeadline) {
+        this.keys = keys;
+        this.owner = owner;
+        this.leaseDeadline = leaseDeadline;
+    }
+
+    /**
+     * @return 持有的 key， 部分加锁时只包含加锁成功的 key
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public long getLeaseDeadline() {
+        return leaseDeadline;
+    }
+
+    /**
+     * @return 剩余租约， 毫秒， 已过期时返回 0
+     */
+    public long getRemainingLease() {
+        return Math.max(0L, leaseDeadline - System.currentTimeMillis());
+    }
+
+    @Override
+    public String toString() {
+        return "MultiLockHandle{keys=" + keys + ", owner=" + owner + ", leaseDeadline=" + leaseDeadline + "}";
+    }
+}
@@ -0,0 +1,296 @@
+package com.project;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.util.Pool;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 进程内近端缓存， 缓存 GET 和 HGETALL 的结果， 命中时不访问 Redis
+ * 失效依赖服务端的 keyspace 通知（需配置 notify-keyspace-events， 至少包含 K 和 $hgxe 或 A），
+ * 专用的订阅连接收到某个 key 的任意事件后删除本地副本； 订阅断开期间不缓存， 重连后清空全部副本，
+ * 过期时间是通知丢失时的兜底
+ * 本 JVM 通过 {@link RedisClient} 的单条写命令写入时先删除本地副本， 其他写入方的修改在通知到达后（通常为毫秒级）可见
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class NearCache {
+    private static final Logger logger = LoggerFactory.getLogger(NearCache.class);
+    /**
+     * 订阅连接断开后的重连间隔， 毫秒
+     */
+    private static final long RECONNECT_INTERVAL = 1000L;
+    /**
+     * 失效版本号的分段数
+     */
+    private static final int STRIPES = 1024;
+    /**
+     * 缓存不存在的 key
+     */
+    private static final Object ABSENT = new Object();
+
+    private final Pool<Jedis> pool;
+    private final String channelPrefix;
+    private final String[] prefixes;
+    private final Cache<String, Object> strings;
+    private final Cache<String, Map<String, String>> hashes;
+    /**
+     * 按 key 分段的失效版本号， 加载前后版本号不同说明期间有失效， 加载结果不能缓存
+     */
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+    /**
+     * 订阅断开时递增， 断开前开始的加载结果不能缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean active;
+    private volatile boolean closed;
+    private volatile PubSub pubSub;
+
+    /**
+     * @param pool        订阅连接从该连接池借出， 关闭前不归还
+     * @param database    连接使用的 db
+     * @param maximumSize 每类缓存最多的 key 个数
+     * @param ttlMillis   写入后的过期时间， 毫秒
+     * @param prefixes    只缓存以这些前缀开头的 key， 也只订阅这些 key 的通知， 为空时缓存所有 key
+     */
+    public NearCache(Pool<Jedis> pool, int database, long maximumSize, long ttlMillis, String... prefixes) {
+        this.pool = pool;
+        this.channelPrefix = "__keyspace@" + database + "__:";
+        this.prefixes = prefixes.length == 0 ? new String[]{""} : prefixes.clone();
+        this.strings = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS).recordStats().build();
+        this.hashes = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS).recordStats().build();
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                listen();
+            }
+        }, "redis-near-cache");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 读取字符串， 未命中时用 loader 从 Redis 加载
+     *
+     * @param loader 加载失败时应抛出异常， 不能返回默认值， 否则默认值会被缓存
+     */
+    public String get(String key, Function<String, String> loader) {
+        if (!cacheable(key)) {
+            return loader.apply(key);
+        }
+        Object cached = strings.getIfPresent(key);
+        if (cached != null) {
+            return cached == ABSENT ? null : (String) cached;
+        }
+        long gen = generation.get();
+        long stamp = stamps.get(stripe(key));
+        String value = loader.apply(key);
+        strings.put(key, value == null ? ABSENT : value);
+        if (!valid(key, gen, stamp)) {
+            strings.invalidate(key);
+        }
+        return value;
+    }
+
+    /**
+     * 读取整个 hash， 返回副本， 调用方可以修改
+     *
+     * @param loader 加载失败时应抛出异常
+     */
+    public Map<String, String> getHash(String key, Function<String, Map<String, String>> loader) {
+        if (!cacheable(key)) {
+            return loader.apply(key);
+        }
+        Map<String, String> cached = hashes.getIfPresent(key);
+        if (cached != null) {
+            return new HashMap<String, String>(cached);
+        }
+        long gen = generation.get();
+        long stamp = stamps.get(stripe(key));
+        Map<String, String> value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        hashes.put(key, new HashMap<String, String>(value));
+        if (!valid(key, gen, stamp)) {
+            hashes.invalidate(key);
+        }
+        return value;
+    }
+
+    /**
+     * 删除 key 的本地副本， 正在进行的加载结果也不会被缓存
+     */
+    public void invalidate(String key) {
+        stamps.incrementAndGet(stripe(key));
+        strings.invalidate(key);
+        hashes.invalidate(key);
+        invalidations.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        strings.invalidateAll();
+        hashes.invalidateAll();
+    }
+
+    /**
+     * 停止订阅并清空缓存， 之后的读取都直接访问 Redis
+     */
+    public void close() {
+        closed = true;
+        active = false;
+        PubSub current = pubSub;
+        if (current != null && current.isSubscribed()) {
+            current.punsubscribe();
+        }
+        thread.interrupt();
+        invalidateAll();
+    }
+
+    /**
+     * @return 订阅是否生效， 未生效时不缓存
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getHitCount() {
+        return stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return stats().missCount();
+    }
+
+    /**
+     * @return 因容量或过期被淘汰的个数， 不含失效通知删除的
+     */
+    public long getEvictionCount() {
+        return stats().evictionCount();
+    }
+
+    /**
+     * @return 收到失效通知或本地写入导致的删除次数
+     */
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    public long size() {
+        return strings.size() + hashes.size();
+    }
+
+    private CacheStats stats() {
+        return strings.stats().plus(hashes.stats());
+    }
+
+    private boolean cacheable(String key) {
+        if (!active) {
+            return false;
+        }
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 先写入再检查， 与 invalidate 的先递增再删除配合， 不会留下加载期间已经失效的值
+     */
+    private boolean valid(String key, long gen, long stamp) {
+        return active && generation.get() == gen && stamps.get(stripe(key)) == stamp;
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    private void listen() {
+        String[] patterns = new String[prefixes.length];
+        for (int i = 0; i < prefixes.length; i++) {
+            patterns[i] = channelPrefix + prefixes[i] + "*";
+        }
+        while (!closed) {
+            Jedis jedis = null;
+            try {
+                jedis = pool.getResource();
+                checkConfig(jedis);
+                pubSub = new PubSub(patterns.length);
+                jedis.psubscribe(pubSub, patterns);
+            } catch (Exception e) {
+                logger.warn("redis near cache subscriber disconnected", e);
+            } finally {
+                // 断开期间的通知已经丢失
+                active = false;
+                invalidateAll();
+                if (jedis != null) {
+                    jedis.close();
+                }
+            }
+            try {
+                Thread.sleep(RECONNECT_INTERVAL);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 服务端未开启所需的通知时只告警， 此时副本只能靠过期时间失效
+     */
+    private static void checkConfig(Jedis jedis) {
+        try {
+            List<String> config = jedis.configGet("notify-keyspace-events");
+            String flags = config.size() > 1 ? config.get(1) : "";
+            boolean classes = flags.contains("A") || (flags.contains("$") && flags.contains("h")
+                    && flags.contains("g") && flags.contains("x") && flags.contains("e"));
+            if (!flags.contains("K") || !classes) {
+                logger.warn("redis notify-keyspace-events = '" + flags + "', near cache relies on ttl only");
+            }
+        } catch (Exception e) {
+            logger.warn("redis near cache config check failed", e);
+        }
+    }
+
+    private class PubSub extends JedisPubSub {
+        private final int patterns;
+
+        private PubSub(int patterns) {
+            this.patterns = patterns;
+        }
+
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+            if (subscribedChannels == patterns) {
+                invalidateAll();
+                active = true;
+                logger.info("redis near cache subscribed, patterns = " + patterns);
+            }
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            invalidate(channel.substring(channelPrefix.length()));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.project;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 连接池的借连接等待统计和自适应容量
+ * 每秒根据上一秒借连接等待的 p99 和排队线程数调整连接数上限： 等待超过目标时按 50% 扩容， 直到 maxTotal；
+ * 等待远低于目标且峰值占用不到一半时每次缩容 1/8， 直到 minTotal
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class PoolMetrics implements PoolMetricsMBean {
+    private static final Logger logger = LoggerFactory.getLogger(PoolMetrics.class);
+    /**
+     * 自适应调整的间隔， 毫秒
+     */
+    private static final long ADAPT_INTERVAL = 1000L;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "redis-pool-metrics");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final String name;
+    private final Supplier<GenericObjectPool<Jedis>> pool;
+    private final int minTotal;
+    private final int maxTotal;
+    private final long targetWaitNanos;
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    /**
+     * 当前调整周期内的等待时间， 每个周期清零
+     */
+    private final LatencyHistogram window = new LatencyHistogram();
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private ScheduledFuture<?> adapter;
+    private ObjectName objectName;
+
+    /**
+     * @param name            JMX 名称中的 name
+     * @param pool            当前的内部连接池， Sentinel 切换主节点后会变化
+     * @param minTotal        自适应调整的下限
+     * @param maxTotal        自适应调整的上限
+     * @param targetWaitMillis 借连接等待 p99 的目标， 毫秒， 小于 0 表示不自适应调整
+     */
+    PoolMetrics(String name, Supplier<GenericObjectPool<Jedis>> pool, int minTotal, int maxTotal, long targetWaitMillis) {
+        this.name = name;
+        this.pool = pool;
+        this.minTotal = minTotal;
+        this.maxTotal = maxTotal;
+        this.targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(targetWaitMillis);
+    }
+
+    /**
+     * 注册 MBean， 开始自适应调整
+     */
+    synchronized void start() {
+        try {
+            objectName = new ObjectName("com.project:type=RedisPool,name=" + name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (Exception e) {
+            logger.warn("redis pool mbean register failed, name = " + name, e);
+            objectName = null;
+        }
+        if (targetWaitNanos >= 0 && minTotal < maxTotal) {
+            adapter = SCHEDULER.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        adapt();
+                    } catch (Exception e) {
+                        logger.error("redis pool adapt failed, name = " + name, e);
+                    }
+                }
+            }, ADAPT_INTERVAL, ADAPT_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    synchronized void stop() {
+        if (adapter != null) {
+            adapter.cancel(false);
+            adapter = null;
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                logger.warn("redis pool mbean unregister failed, name = " + name, e);
+            }
+            objectName = null;
+        }
+    }
+
+    /**
+     * 记录一次借连接的等待时间， 包括超时失败的
+     */
+    void recordBorrow(long nanos) {
+        borrowWait.record(nanos);
+        window.record(nanos);
+        GenericObjectPool<Jedis> current = pool.get();
+        if (current != null) {
+            int active = current.getNumActive();
+            int peak = peakActive.get();
+            while (active > peak && !peakActive.compareAndSet(peak, active)) {
+                peak = peakActive.get();
+            }
+        }
+    }
+
+    private void adapt() {
+        GenericObjectPool<Jedis> current = pool.get();
+        if (current == null) {
+            return;
+        }
+        long p99 = window.percentile(0.99);
+        window.reset();
+        int peak = peakActive.getAndSet(current.getNumActive());
+        int waiters = current.getNumWaiters();
+        int total = current.getMaxTotal();
+        int next = total;
+        if ((p99 > targetWaitNanos || waiters > 0) && total < maxTotal) {
+            next = Math.min(maxTotal, total + Math.max(1, total / 2));
+        } else if (p99 <= targetWaitNanos / 4 && waiters == 0 && peak < total / 2 && total > minTotal) {
+            next = Math.max(minTotal, total - Math.max(1, total / 8));
+        }
+        if (next != total) {
+            current.setMaxTotal(next);
+            current.setMaxIdle(next);
+            logger.info("redis pool resized, name = " + name + ", maxTotal " + total + " -> " + next
+                    + ", borrow wait p99 = " + TimeUnit.NANOSECONDS.toMicros(p99) + "us, waiters = " + waiters + ", peak = " + peak);
+        }
+    }
+
+    @Override
+    public int getNumActive() {
+        GenericObjectPool<Jedis> current = pool.get();
+        return current == null ? 0 : current.getNumActive();
+    }
+
+    @Override
+    public int getNumIdle() {
+        GenericObjectPool<Jedis> current = pool.get();
+        return current == null ? 0 : current.getNumIdle();
+    }
+
+    @Override
+    public int getNumWaiters() {
+        GenericObjectPool<Jedis> current = pool.get();
+        return current == null ? 0 : current.getNumWaiters();
+    }
+
+    @Override
+    public int getMaxTotal() {
+        GenericObjectPool<Jedis> current = pool.get();
+        return current == null ? 0 : current.getMaxTotal();
+    }
+
+    @Override
+    public long getBorrowCount() {
+        return borrowWait.getCount();
+    }
+
+    @Override
+    public long getBorrowWaitMeanMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrowWait.getMean());
+    }
+
+    @Override
+    public long getBorrowWaitP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrowWait.percentile(0.5));
+    }
+
+    @Override
+    public long getBorrowWaitP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrowWait.percentile(0.99));
+    }
+
+    @Override
+    public long getBorrowWaitP999Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrowWait.percentile(0.999));
+    }
+
+    @Override
+    public long getBorrowWaitMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(borrowWait.getMax());
+    }
+
+    @Override
+    public void resetBorrowWait() {
+        borrowWait.reset();
+    }
+}
@@ -0,0 +1,38 @@
+package com.project;
+
+/**
+ * 连接池监控项， 通过 JMX 发布， 时间单位为微秒
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public interface PoolMetricsMBean {
+
+    int getNumActive();
+
+    int getNumIdle();
+
+    int getNumWaiters();
+
+    /**
+     * @return 当前的连接数上限， 自适应调整时会变化
+     */
+    int getMaxTotal();
+
+    long getBorrowCount();
+
+    long getBorrowWaitMeanMicros();
+
+    long getBorrowWaitP50Micros();
+
+    long getBorrowWaitP99Micros();
+
+    long getBorrowWaitP999Micros();
+
+    long getBorrowWaitMaxMicros();
+
+    /**
+     * 清零借连接的等待时间统计
+     */
+    void resetBorrowWait();
+}
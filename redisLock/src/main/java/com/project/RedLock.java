@@ -0,0 +1,266 @@
+package com.project;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.util.Pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Redlock， 在 N 个相互独立的 Redis 主节点上加锁， 超过半数成功且租约仍然有效才算加锁成功
+ * 并行向所有节点发送 SET NX PX， 达到多数后立即返回， 加锁耗时取决于中位数节点而不是所有节点之和；
+ * 有效期 = 租约 - 加锁耗时 - 时钟漂移， 加锁失败时异步释放所有节点上可能已经加上的锁
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedLock {
+    private static final Logger logger = LoggerFactory.getLogger(RedLock.class);
+    private static final int DEFAULT_EXPIRE_TIME = 1000;
+    /**
+     * 单个节点的默认超时， 毫秒， 应远小于租约， 避免在挂掉的节点上浪费有效期
+     */
+    private static final long DEFAULT_NODE_TIMEOUT = 50L;
+    /**
+     * 时钟漂移 = 租约 * 该系数 + 2 毫秒
+     */
+    private static final double CLOCK_DRIFT_FACTOR = 0.01;
+    /**
+     * 加锁失败后重试的随机等待上限， 毫秒， 随机化避免多个客户端同时重试又都拿不到多数
+     */
+    private static final int MAX_RETRY_DELAY = 50;
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+    private final List<? extends Pool<Jedis>> pools;
+    private final int quorum;
+    private final int expireTime;
+    private final long nodeTimeout;
+    private final ExecutorService executor;
+
+    public RedLock(List<? extends Pool<Jedis>> pools) {
+        this(pools, DEFAULT_EXPIRE_TIME, DEFAULT_NODE_TIMEOUT);
+    }
+
+    /**
+     * @param pools       各个独立主节点的连接池
+     * @param expireTime  租约， 毫秒
+     * @param nodeTimeout 等待单个节点应答的上限， 毫秒， 连接池的 socket 超时也应设置为同一量级
+     */
+    public RedLock(List<? extends Pool<Jedis>> pools, int expireTime, long nodeTimeout) {
+        this(pools, expireTime, nodeTimeout, Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "redis-redlock-" + THREAD_INDEX.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+    }
+
+    /**
+     * @param executor 向各节点发送命令的线程池， 线程数至少为节点个数， 否则并行退化为串行
+     */
+    public RedLock(List<? extends Pool<Jedis>> pools, int expireTime, long nodeTimeout, ExecutorService executor) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("pools must not be empty");
+        }
+        this.pools = new ArrayList<Pool<Jedis>>(pools);
+        this.quorum = pools.size() / 2 + 1;
+        this.expireTime = expireTime;
+        this.nodeTimeout = nodeTimeout;
+        this.executor = executor;
+    }
+
+    /**
+     * 一直重试直到加锁成功
+     */
+    public LockHandle lock(String key) {
+        while (true) {
+            LockHandle handle = tryLockOnce(key);
+            if (handle != null) {
+                return handle;
+            }
+            try {
+                Thread.sleep(retryDelay());
+            } catch (InterruptedException e) {
+                // 与 RedisDistributeLock#lock 一样不响应中断， 保留中断状态
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return 锁句柄， 租约到期时间为扣除加锁耗时和时钟漂移后的有效期， 超时返回 null
+     */
+    public LockHandle tryLock(String key, long time, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(time);
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockHandle handle = tryLockOnce(key);
+            if (handle != null) {
+                return handle;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return null;
+            }
+            Thread.sleep(Math.min(remaining, retryDelay()));
+        }
+    }
+
+    /**
+     * 并行向所有节点加锁一次
+     *
+     * @return 锁句柄， 未达到多数或有效期已耗尽时返回 null
+     */
+    public LockHandle tryLockOnce(final String key) {
+        final String owner = UUID.randomUUID().toString();
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        CompletionService<Boolean> completion = new ExecutorCompletionService<Boolean>(executor);
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(pools.size());
+        for (final Pool<Jedis> pool : pools) {
+            futures.add(completion.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    Jedis jedis = pool.getResource();
+                    try {
+                        return RedisTool.tryGetDistributedLock(jedis, key, owner, expireTime);
+                    } finally {
+                        jedis.close();
+                    }
+                }
+            }));
+        }
+        int acquired = 0;
+        int failed = 0;
+        long nodeDeadline = startNanos + TimeUnit.MILLISECONDS.toNanos(nodeTimeout);
+        while (acquired < quorum && failed <= pools.size() - quorum) {
+            Future<Boolean> done;
+            try {
+                done = completion.poll(nodeDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (done == null) {
+                // 其余节点超时
+                break;
+            }
+            if (succeeded(done)) {
+                acquired++;
+            } else {
+                failed++;
+            }
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        long drift = (long) (expireTime * CLOCK_DRIFT_FACTOR) + 2L;
+        long validity = expireTime - elapsed - drift;
+        if (acquired >= quorum && validity > 0) {
+            return new LockHandle(key, owner, start + expireTime - drift);
+        }
+        releaseAsync(key, owner, futures);
+        return null;
+    }
+
+    /**
+     * 并行释放所有节点上的锁， 包括加锁时没有及时应答的节点
+     *
+     * @return 是否在多数节点上释放成功， 租约已经过期的节点不计入
+     */
+    public boolean release(LockHandle handle) {
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(pools.size());
+        for (Pool<Jedis> pool : pools) {
+            futures.add(executor.submit(releaseTask(pool, handle.getKey(), handle.getOwner(), null)));
+        }
+        int released = 0;
+        for (Future<Boolean> future : futures) {
+            try {
+                if (future.get(nodeTimeout, TimeUnit.MILLISECONDS)) {
+                    released++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                logger.warn("redlock release failed, " + handle, e.getCause());
+            } catch (TimeoutException e) {
+                logger.warn("redlock release timeout, " + handle);
+            }
+        }
+        return released >= quorum;
+    }
+
+    /**
+     * @return 多数节点的个数
+     */
+    public int getQuorum() {
+        return quorum;
+    }
+
+    /**
+     * 加锁失败后不等待结果， 在后台释放各节点上的锁
+     * 每个节点先等该节点的加锁命令结束， 避免释放先于迟到的加锁执行；
+     * 加锁命令超时或异常时命令可能已经执行， 同样要释放， 释放脚本会校验持有者
+     */
+    private void releaseAsync(String key, String owner, List<Future<Boolean>> locks) {
+        for (int i = 0; i < pools.size(); i++) {
+            executor.submit(releaseTask(pools.get(i), key, owner, locks.get(i)));
+        }
+    }
+
+    private Callable<Boolean> releaseTask(final Pool<Jedis> pool, final String key, final String owner,
+                                          final Future<Boolean> lock) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                if (lock != null) {
+                    succeeded(lock);
+                }
+                Jedis jedis = pool.getResource();
+                try {
+                    return RedisTool.releaseDistributedLock(jedis, key, owner);
+                } finally {
+                    jedis.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * 等待加锁命令结束， 节点异常视为失败
+     */
+    private static boolean succeeded(Future<Boolean> lock) {
+        try {
+            return lock.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            logger.debug("redlock node failed", e.getCause());
+            return false;
+        }
+    }
+
+    private static long retryDelay() {
+        return 1 + ThreadLocalRandom.current().nextInt(MAX_RETRY_DELAY);
+    }
+}
@@ -0,0 +1,494 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.Pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量命令， 在一个连接上以 pipeline 方式发出， 带过期时间的命令把 expire 放在同一个 pipeline 中
+ * 用法： RedisClient.batch().set(k1, v1, 60).hset(k2, f, v).zadd(k3, 1.0, m, 60).execute()
+ * 每攒够 pipelineSize 条命令同步一次应答， 客户端缓存的应答不超过 pipelineSize 条； 命令总数超过 maxCommands 时拒绝继续添加
+ * 非线程安全， 执行后可以复用
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisBatch {
+    /**
+     * 默认最多的命令数
+     */
+    public static final int DEFAULT_MAX_COMMANDS = 100000;
+    /**
+     * 默认每次同步应答前发出的命令数
+     */
+    public static final int DEFAULT_PIPELINE_SIZE = 1000;
+
+    private final Pool<Jedis> pool;
+    private final int maxCommands;
+    private final int pipelineSize;
+    private final List<AutoPipeline.Command<?>> commands = new ArrayList<AutoPipeline.Command<?>>();
+
+    public RedisBatch(Pool<Jedis> pool) {
+        this(pool, DEFAULT_MAX_COMMANDS, DEFAULT_PIPELINE_SIZE);
+    }
+
+    /**
+     * @param pool         执行时从该连接池借一个连接
+     * @param maxCommands  最多的命令数
+     * @param pipelineSize 每次同步应答前发出的命令数
+     */
+    public RedisBatch(Pool<Jedis> pool, int maxCommands, int pipelineSize) {
+        if (maxCommands <= 0 || pipelineSize <= 0) {
+            throw new IllegalArgumentException("maxCommands and pipelineSize must be positive");
+        }
+        this.pool = pool;
+        this.maxCommands = maxCommands;
+        this.pipelineSize = pipelineSize;
+    }
+
+    public RedisBatch get(final String key) {
+        return add(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.get(key);
+            }
+        });
+    }
+
+    /**
+     * 结果为 "OK"
+     */
+    public RedisBatch set(final String key, final String value) {
+        return add(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.set(key, value);
+            }
+        });
+    }
+
+    /**
+     * 结果为 "OK"
+     */
+    public RedisBatch set(final String key, final String value, final int seconds) {
+        return add(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                Response<String> ret = pipeline.set(key, value);
+                pipeline.expire(key, seconds);
+                return ret;
+            }
+        });
+    }
+
+    /**
+     * 结果为是否设置成功
+     */
+    public RedisBatch setnx(final String key, final String value, final int seconds) {
+        return add(new AutoPipeline.Command<Boolean>() {
+            @Override
+            public Response<Boolean> apply(Pipeline pipeline) {
+                // 只在设置成功时加过期时间， 避免延长别人的 key
+                Response<String> ret = pipeline.set(key, value, "NX", "EX", seconds);
+                return new Mapped<String, Boolean>(ret) {
+                    @Override
+                    Boolean map(String reply) {
+                        return reply != null;
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * 结果为删除的 key 个数
+     */
+    public RedisBatch del(final String key) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.del(key);
+            }
+        });
+    }
+
+    public RedisBatch exists(final String key) {
+        return add(new AutoPipeline.Command<Boolean>() {
+            @Override
+            public Response<Boolean> apply(Pipeline pipeline) {
+                return pipeline.exists(key);
+            }
+        });
+    }
+
+    public RedisBatch expire(final String key, final int seconds) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.expire(key, seconds);
+            }
+        });
+    }
+
+    public RedisBatch incr(final String key) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.incr(key);
+            }
+        });
+    }
+
+    public RedisBatch decr(final String key) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.decr(key);
+            }
+        });
+    }
+
+    public RedisBatch decrBy(final String key, final long number) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.decrBy(key, number);
+            }
+        });
+    }
+
+    public RedisBatch hset(final String key, final String field, final String value) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.hset(key, field, value);
+            }
+        });
+    }
+
+    public RedisBatch hget(final String key, final String field) {
+        return add(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.hget(key, field);
+            }
+        });
+    }
+
+    public RedisBatch hmset(final String key, final Map<String, String> map) {
+        return add(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.hmset(key, map);
+            }
+        });
+    }
+
+    public RedisBatch hmset(final String key, final Map<String, String> map, final int seconds) {
+        return add(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                Response<String> ret = pipeline.hmset(key, map);
+                pipeline.expire(key, seconds);
+                return ret;
+            }
+        });
+    }
+
+    public RedisBatch hdel(final String key, final String... fields) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.hdel(key, fields);
+            }
+        });
+    }
+
+    public RedisBatch hlen(final String key) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.hlen(key);
+            }
+        });
+    }
+
+    public RedisBatch hgetAll(final String key) {
+        return add(new AutoPipeline.Command<Map<String, String>>() {
+            @Override
+            public Response<Map<String, String>> apply(Pipeline pipeline) {
+                return pipeline.hgetAll(key);
+            }
+        });
+    }
+
+    public RedisBatch zadd(final String key, final double score, final String member) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zadd(key, score, member);
+            }
+        });
+    }
+
+    public RedisBatch zadd(final String key, final double score, final String member, final int seconds) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.zadd(key, score, member);
+                pipeline.expire(key, seconds);
+                return ret;
+            }
+        });
+    }
+
+    public RedisBatch zadd(final String key, final Map<String, Double> scoreMembers, final int seconds) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.zadd(key, scoreMembers);
+                pipeline.expire(key, seconds);
+                return ret;
+            }
+        });
+    }
+
+    public RedisBatch zincrby(final String key, final double score, final String member) {
+        return add(new AutoPipeline.Command<Double>() {
+            @Override
+            public Response<Double> apply(Pipeline pipeline) {
+                return pipeline.zincrby(key, score, member);
+            }
+        });
+    }
+
+    public RedisBatch zrem(final String key, final String... members) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zrem(key, members);
+            }
+        });
+    }
+
+    public RedisBatch zrange(final String key, final long start, final long end) {
+        return add(new AutoPipeline.Command<Set<String>>() {
+            @Override
+            public Response<Set<String>> apply(Pipeline pipeline) {
+                return pipeline.zrange(key, start, end);
+            }
+        });
+    }
+
+    public RedisBatch zrevrange(final String key, final long start, final long end) {
+        return add(new AutoPipeline.Command<Set<String>>() {
+            @Override
+            public Response<Set<String>> apply(Pipeline pipeline) {
+                return pipeline.zrevrange(key, start, end);
+            }
+        });
+    }
+
+    public RedisBatch zrank(final String key, final String member) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zrank(key, member);
+            }
+        });
+    }
+
+    public RedisBatch zcard(final String key) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zcard(key);
+            }
+        });
+    }
+
+    public RedisBatch sadd(final String key, final int seconds, final String... members) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.sadd(key, members);
+                pipeline.expire(key, seconds);
+                return ret;
+            }
+        });
+    }
+
+    public RedisBatch srem(final String key, final String... members) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.srem(key, members);
+            }
+        });
+    }
+
+    public RedisBatch smembers(final String key) {
+        return add(new AutoPipeline.Command<Set<String>>() {
+            @Override
+            public Response<Set<String>> apply(Pipeline pipeline) {
+                return pipeline.smembers(key);
+            }
+        });
+    }
+
+    public RedisBatch lpush(final String key, final int seconds, final String... values) {
+        return add(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.lpush(key, values);
+                pipeline.expire(key, seconds);
+                return ret;
+            }
+        });
+    }
+
+    public RedisBatch lpop(final String key) {
+        return add(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.lpop(key);
+            }
+        });
+    }
+
+    public RedisBatch rpop(final String key) {
+        return add(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.rpop(key);
+            }
+        });
+    }
+
+    /**
+     * 添加任意命令， 结果为返回的应答
+     */
+    public RedisBatch add(AutoPipeline.Command<?> command) {
+        if (commands.size() >= maxCommands) {
+            throw new IllegalStateException("redis batch full, maxCommands = " + maxCommands);
+        }
+        commands.add(command);
+        return this;
+    }
+
+    /**
+     * @return 已添加的命令数
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * 借一个连接执行全部命令， 执行后清空
+     * 连接异常时抛出 {@link redis.clients.jedis.exceptions.JedisConnectionException}， 此前已同步的分段已经生效；
+     * 单条命令的错误回复不影响其他命令， 在读取该条结果时抛出
+     *
+     * @return 与添加顺序一致的结果
+     */
+    public Results execute() {
+        List<Object> results = new ArrayList<Object>(commands.size());
+        if (commands.isEmpty()) {
+            return new Results(results);
+        }
+        Jedis jedis = pool.getResource();
+        try {
+            List<Response<?>> responses = new ArrayList<Response<?>>(Math.min(pipelineSize, commands.size()));
+            for (int from = 0; from < commands.size(); from += pipelineSize) {
+                Pipeline pipeline = jedis.pipelined();
+                int to = Math.min(commands.size(), from + pipelineSize);
+                for (int i = from; i < to; i++) {
+                    responses.add(commands.get(i).apply(pipeline));
+                }
+                pipeline.sync();
+                for (Response<?> response : responses) {
+                    try {
+                        results.add(response.get());
+                    } catch (JedisDataException e) {
+                        results.add(e);
+                    }
+                }
+                responses.clear();
+            }
+        } finally {
+            jedis.close();
+            commands.clear();
+        }
+        return new Results(results);
+    }
+
+    /**
+     * 按添加顺序保存的结果， 类型由对应命令决定： String、 Long、 Double、 Boolean、 Set、 Map， 空回复为 null
+     */
+    public static class Results {
+        private final List<Object> values;
+
+        private Results(List<Object> values) {
+            this.values = Collections.unmodifiableList(values);
+        }
+
+        /**
+         * @param index 命令的添加顺序， 从 0 开始
+         * @throws JedisDataException 该条命令返回错误
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T get(int index) {
+            Object value = values.get(index);
+            if (value instanceof JedisDataException) {
+                throw (JedisDataException) value;
+            }
+            return (T) value;
+        }
+
+        public String getString(int index) {
+            return this.<String>get(index);
+        }
+
+        public Long getLong(int index) {
+            return this.<Long>get(index);
+        }
+
+        public Boolean getBoolean(int index) {
+            return this.<Boolean>get(index);
+        }
+
+        public boolean isError(int index) {
+            return values.get(index) instanceof JedisDataException;
+        }
+
+        public int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * 对应答做转换， 转换在读取结果时进行
+     */
+    private abstract static class Mapped<S, T> extends Response<T> {
+        private final Response<S> source;
+
+        Mapped(Response<S> source) {
+            super(null);
+            this.source = source;
+        }
+
+        abstract T map(S reply);
+
+        @Override
+        public T get() {
+            return map(source.get());
+        }
+    }
+}
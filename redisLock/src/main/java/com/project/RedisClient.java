@@ -1,17 +1,23 @@
 package com.project;
 
-import org.apache.commons.collections.MapUtils;
-import org.apache.commons.collections.SetUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Tuple;
+import redis.clients.util.Pool;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 
 /**
@@ -22,65 +28,364 @@ public class RedisClient {
     private static final String FAILED_SETKEY = "redis set failed,key =";
     private static final String FAILED_SETEXPEIR = "redis set expiretime failed,key =";
     private static final String NULL_KEY = "redis key must not be null";
+    /**
+     * 主节点连接池， 配置见 {@link RedisConnectionConfig}， 配置了 redis.sentinels 时由 Sentinel 发现主节点并在切换后跟随， 否则直连 redis.host:redis.port
+     * 锁和写命令总在主节点上执行
+     */
+    private static Pool<Jedis> masterPool;
+    /**
+     * 主节点连接池为 {@link JedisPool} 时（直连）与 {@link #getPool()} 相同， 配置了 redis.sentinels 时为 null
+     *
+     * @deprecated 改用 {@link #getPool()}
+     */
+    @Deprecated
     public static JedisPool jedisSentinelPool;
+    /**
+     * 只读命令的副本路由， 为 null 时读命令也走主节点
+     */
+    private static volatile ReplicaRouter replicaRouter;
+    /**
+     * 自动 pipeline， 为 null 时每条命令单独借一个连接
+     */
+    private static volatile AutoPipeline autoPipeline;
+    /**
+     * 近端缓存， 为 null 时 get 和 hgetAll 总是访问 Redis
+     */
+    private static volatile NearCache nearCache;
+    private static final SingleFlightCache SINGLE_FLIGHT = new SingleFlightCache();
+    private static final Function<String, String> LOAD_STRING = new Function<String, String>() {
+        @Override
+        public String apply(final String key) {
+            return readOnly(new Function<Jedis, String>() {
+                @Override
+                public String apply(Jedis jedis) {
+                    return jedis.get(key);
+                }
+            });
+        }
+    };
+    private static final Function<String, Map<String, String>> LOAD_HASH = new Function<String, Map<String, String>>() {
+        @Override
+        public Map<String, String> apply(final String key) {
+            return readOnly(new Function<Jedis, Map<String, String>>() {
+                @Override
+                public Map<String, String> apply(Jedis jedis) {
+                    return jedis.hgetAll(key);
+                }
+            });
+        }
+    };
     static {
-        JedisPoolConfig config = new JedisPoolConfig();
-        // 设置最大连接数
-	            config.setMaxWaitMillis(2000);
-        // 设置最大空闲数
-	            config.setMaxTotal(50);
-        // 设置最大等待时间
-                config.setMaxWaitMillis(1000 * 100);
-	            config.setTestOnBorrow(true);
-        jedisSentinelPool = new JedisPool(config, "127.0.0.1", 6379, 2000, "123456");
+        RedisConnectionConfig settings = RedisConnectionConfig.load();
+        logger.info("redis client init, " + settings);
+        masterPool = settings.createPool();
+        jedisSentinelPool = masterPool instanceof JedisPool ? (JedisPool) masterPool : null;
+        replicaRouter = settings.createReplicaRouter(masterPool);
+        preloadScripts();
+        if (Boolean.getBoolean("redis.autoPipelining")) {
+            enableAutoPipelining(Integer.getInteger("redis.autoPipelining.connections", 2),
+                    Integer.getInteger("redis.autoPipelining.maxBatch", 128),
+                    Long.getLong("redis.autoPipelining.lingerMicros", 0L));
+        }
+        if (Boolean.getBoolean("redis.nearCache")) {
+            String prefixes = System.getProperty("redis.nearCache.prefixes", "");
+            enableNearCache(Long.getLong("redis.nearCache.maximumSize", 10000L),
+                    Long.getLong("redis.nearCache.ttlMillis", 60000L),
+                    prefixes.isEmpty() ? new String[0] : prefixes.split(","));
+        }
     }
     private RedisClient() {
     }
 
     /**
-     * 包装get命令
-     *
-     * @param key 待查询的key，非空
-     * @return String
+     * 启动时把锁脚本缓存到服务端， 失败不影响启动， 调用时会退回 EVAL
      */
-    public static String get(String key) {
-        Assert.hasLength(key, NULL_KEY);
+    private static void preloadScripts() {
         Jedis jedis = null;
         try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.get(key);
+            jedis = masterPool.getResource();
+            int count = RedisTool.preloadScripts(jedis);
+            logger.info("redis scripts preloaded, count = " + count);
         } catch (Exception e) {
-            logger.error("redis get failed,key =" + key, e);
+            logger.warn("redis scripts preload failed", e);
         } finally {
             if (jedis != null) {
                 jedis.close();
             }
         }
-        return StringUtils.EMPTY;
     }
 
     /**
-     * 包装set命令
+     * 开启自动 pipeline， 之后各静态方法的命令在共享连接上合并批量发送， 接口和返回值不变
+     * 也可以通过系统属性 redis.autoPipelining=true 在启动时开启
      *
-     * @param key   key
-     * @param value value
-     * @return boolean
+     * @param connections  共享连接数， 从连接池中长期占用
+     * @param maxBatch     每批最多的命令数
+     * @param lingerMicros 取到第一条命令后等待更多命令的时间， 微秒， 0 表示不等待
      */
-    public static boolean set(String key, String value) {
+    public static synchronized void enableAutoPipelining(int connections, int maxBatch, long lingerMicros) {
+        disableAutoPipelining();
+        autoPipeline = new AutoPipeline(masterPool, connections, maxBatch, lingerMicros);
+    }
+
+    public static synchronized void disableAutoPipelining() {
+        AutoPipeline current = autoPipeline;
+        autoPipeline = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * 开启近端缓存， 之后 get 和 hgetAll 的结果缓存在本地， 由 keyspace 通知失效， 见 {@link NearCache}
+     * 也可以通过系统属性 redis.nearCache=true 在启动时开启
+     *
+     * @param maximumSize 每类缓存最多的 key 个数
+     * @param ttlMillis   本地副本的过期时间， 毫秒
+     * @param prefixes    只缓存以这些前缀开头的 key， 为空时缓存所有 key
+     */
+    public static synchronized void enableNearCache(long maximumSize, long ttlMillis, String... prefixes) {
+        disableNearCache();
+        nearCache = new NearCache(masterPool, 0, maximumSize, ttlMillis, prefixes);
+    }
+
+    public static synchronized void disableNearCache() {
+        NearCache current = nearCache;
+        nearCache = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * @return 当前的近端缓存， 用于查看命中率等计数， 未开启时为 null
+     */
+    public static NearCache getNearCache() {
+        return nearCache;
+    }
+
+    /**
+     * @return 主节点连接池， 锁和写命令都在这个池借出的连接上执行
+     */
+    public static Pool<Jedis> getPool() {
+        return masterPool;
+    }
+
+    /**
+     * @return 主节点连接池的借连接等待和容量监控， 连接池不是 {@link InstrumentedPool} 时返回 null
+     */
+    public static PoolMetrics getPoolMetrics() {
+        Pool<Jedis> pool = masterPool;
+        return pool instanceof InstrumentedPool ? ((InstrumentedPool) pool).getMetrics() : null;
+    }
+
+    /**
+     * 只读命令改走从节点， 见 {@link ReplicaRouter}
+     * 也可以通过系统属性 redis.readFromReplicas=true 在启动时开启， 从节点来自 Sentinel 或 redis.replicas
+     */
+    public static synchronized void enableReplicaReads(ReplicaRouter router) {
+        disableReplicaReads();
+        replicaRouter = router;
+    }
+
+    public static synchronized void disableReplicaReads() {
+        ReplicaRouter current = replicaRouter;
+        replicaRouter = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * 执行只读命令， 开启副本路由时在从节点上执行， 异常直接抛出
+     */
+    private static <T> T readOnly(Function<Jedis, T> command) {
+        ReplicaRouter router = replicaRouter;
+        if (router != null) {
+            return router.read(command);
+        }
+        Jedis jedis = masterPool.getResource();
+        try {
+            return command.apply(jedis);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    /**
+     * 通过副本路由执行， 异常时记录日志并返回默认值， 与直接执行的处理方式一致
+     */
+    private static <T> T replicated(Function<Jedis, T> command, String error, T fallback) {
+        try {
+            return readOnly(command);
+        } catch (Exception e) {
+            logger.error(error, e);
+        }
+        return fallback;
+    }
+
+    /**
+     * 写入前删除本地副本
+     */
+    private static void invalidateNearCache(String key) {
+        NearCache cache = nearCache;
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 读取缓存， 不存在时全局只由一个调用方执行 loader 并写回， 见 {@link SingleFlightCache}
+     *
+     * @param ttl 写回的过期时间， 秒
+     */
+    public static String getOrCompute(String key, int ttl, Callable<String> loader) {
         Assert.hasLength(key, NULL_KEY);
+        return SINGLE_FLIGHT.getOrCompute(key, ttl, loader);
+    }
+
+    /**
+     * 批量命令， 在一个连接上以 pipeline 方式执行， 见 {@link RedisBatch}
+     */
+    public static RedisBatch batch() {
+        return new RedisBatch(masterPool);
+    }
+
+    /**
+     * @param maxCommands 最多的命令数
+     */
+    public static RedisBatch batch(int maxCommands) {
+        return new RedisBatch(masterPool, maxCommands, RedisBatch.DEFAULT_PIPELINE_SIZE);
+    }
+
+    /**
+     * 执行一条命令， 开启自动 pipeline 时合并到共享连接上发送， 否则单独借一个连接
+     * 只读取一次 autoPipeline， 其间自动 pipeline 被关闭时命令还没有发出， 改为借连接执行；
+     * 异常时记录日志并返回默认值
+     *
+     * @param pipelined 在自动 pipeline 上发出的命令
+     * @param direct    在借出的连接上执行的命令
+     */
+    private static <T> T execute(AutoPipeline.Command<T> pipelined, Function<Jedis, T> direct, String error, T fallback) {
+        AutoPipeline current = autoPipeline;
+        try {
+            if (current != null) {
+                try {
+                    return current.execute(pipelined);
+                } catch (AutoPipeline.ClosedException e) {
+                    // 命令没有发出， 改为借连接执行
+                }
+            }
+            Jedis jedis = masterPool.getResource();
+            try {
+                return direct.apply(jedis);
+            } finally {
+                jedis.close();
+            }
+        } catch (Exception e) {
+            logger.error(error, e);
+        }
+        return fallback;
+    }
+
+    /**
+     * 需要一起发出的多条命令（例如写入后设置过期时间）， 不走自动 pipeline 时在借出的连接上以 pipeline 一次往返发出
+     */
+    private static <T> T execute(final AutoPipeline.Command<T> command, String error, T fallback) {
+        return execute(command, new Function<Jedis, T>() {
+            @Override
+            public T apply(Jedis jedis) {
+                Pipeline pipeline = jedis.pipelined();
+                Response<T> response = command.apply(pipeline);
+                pipeline.sync();
+                return response.get();
+            }
+        }, error, fallback);
+    }
+
+    /**
+     * 包装evalsha命令， 脚本需通过 {@link ScriptRegistry#register(String)} 注册
+     *
+     * @param script 脚本
+     * @param keys   KEYS
+     * @param args   ARGV
+     * @return 脚本返回值
+     */
+    public static Object eval(RedisScript script, List<String> keys, List<String> args) {
         Jedis jedis = null;
         try {
-            jedis = jedisSentinelPool.getResource();
-            String ret = jedis.set(key, StringUtils.trimToEmpty(value));
-            return "ok".equalsIgnoreCase(ret);
+            jedis = masterPool.getResource();
+            return script.eval(jedis, keys, args);
         } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
+            logger.error("redis eval failed,sha =" + script.getSha(), e);
         } finally {
             if (jedis != null) {
                 jedis.close();
             }
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * 包装get命令
+     *
+     * @param key 待查询的key，非空
+     * @return String
+     */
+    public static String get(String key) {
+        Assert.hasLength(key, NULL_KEY);
+        NearCache cache = nearCache;
+        if (cache != null) {
+            try {
+                return cache.get(key, LOAD_STRING);
+            } catch (Exception e) {
+                logger.error("redis get failed,key =" + key, e);
+                return StringUtils.EMPTY;
+            }
+        }
+        if (replicaRouter != null) {
+            return replicated(new Function<Jedis, String>() {
+                @Override
+                public String apply(Jedis jedis) {
+                    return jedis.get(key);
+                }
+            }, "redis get failed,key =" + key, StringUtils.EMPTY);
+        }
+        return execute(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.get(key);
+            }
+        }, new Function<Jedis, String>() {
+            @Override
+            public String apply(Jedis jedis) {
+                return jedis.get(key);
+            }
+        }, "redis get failed,key =" + key, StringUtils.EMPTY);
+    }
+
+    /**
+     * 包装set命令
+     *
+     * @param key   key
+     * @param value value
+     * @return boolean
+     */
+    public static boolean set(String key, String value) {
+        Assert.hasLength(key, NULL_KEY);
+        invalidateNearCache(key);
+        String ret = execute(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.set(key, StringUtils.trimToEmpty(value));
+            }
+        }, new Function<Jedis, String>() {
+            @Override
+            public String apply(Jedis jedis) {
+                return jedis.set(key, StringUtils.trimToEmpty(value));
+            }
+        }, FAILED_SETKEY + key, null);
+        return "ok".equalsIgnoreCase(ret);
     }
 
     /**
@@ -92,20 +397,17 @@ public class RedisClient {
      */
     public static boolean set(String key, String value, int seconds) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            String ret = jedis.set(key, StringUtils.trimToEmpty(value));
-            jedis.expire(key, seconds);
-            return "ok".equalsIgnoreCase(ret);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        invalidateNearCache(key);
+        String ret = execute(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                // 写入和过期时间在同一次往返中发出
+                Response<String> ret = pipeline.set(key, StringUtils.trimToEmpty(value));
+                pipeline.expire(key, seconds);
+                return ret;
             }
-        }
-        return false;
+        }, FAILED_SETKEY + key, null);
+        return "ok".equalsIgnoreCase(ret);
     }
 
     /**
@@ -116,35 +418,35 @@ public class RedisClient {
      */
     public static boolean del(String key) {
         Assert.hasLength(key, NULL_KEY);
-        Long removedSize = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            removedSize = jedis.del(key);
-        } catch (Exception e) {
-            logger.error("redis del failed,key = " + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        invalidateNearCache(key);
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.del(key);
             }
-        }
-        return removedSize > 0;
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.del(key);
+            }
+        }, "redis del failed,key = " + key, 0L);
+        return ret != null && ret > 0;
     }
 
     public static Long hset( String key,  String field,  String value) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return  jedis.hset(key, field,value);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        invalidateNearCache(key);
+        return execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.hset(key, field, value);
             }
-        }
-        return 2L;
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.hset(key, field, value);
+            }
+        }, FAILED_SETKEY + key, 2L);
     }
 
     /**
@@ -152,18 +454,25 @@ public class RedisClient {
      * */
     public static Long hlen(final String key){
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return  jedis.hlen(key);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
-            }
+        if (replicaRouter != null) {
+            return replicated(new Function<Jedis, Long>() {
+                @Override
+                public Long apply(Jedis jedis) {
+                    return jedis.hlen(key);
+                }
+            }, FAILED_SETKEY + key, 2L);
         }
-        return 2L;
+        return execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.hlen(key);
+            }
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.hlen(key);
+            }
+        }, FAILED_SETKEY + key, 2L);
     }
 
     /**
@@ -174,20 +483,16 @@ public class RedisClient {
      */
     public static boolean hmset(String key, Map<String,String> map,int seconds) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            String ret = jedis.hmset(key, map);
-            jedis.expire(key, seconds);
-            return "ok".equalsIgnoreCase(ret);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        invalidateNearCache(key);
+        String ret = execute(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                Response<String> ret = pipeline.hmset(key, map);
+                pipeline.expire(key, seconds);
+                return ret;
             }
-        }
-        return false;
+        }, FAILED_SETKEY + key, null);
+        return "ok".equalsIgnoreCase(ret);
     }
 
     /**
@@ -199,18 +504,25 @@ public class RedisClient {
     public static String hmget(String key1,String key2) {
         Assert.hasLength(key1, NULL_KEY);
         Assert.hasLength(key2, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.hget(key1, key2);
-        } catch (Exception e) {
-            logger.error("redis get failed,key =" + key1, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
-            }
+        if (replicaRouter != null) {
+            return replicated(new Function<Jedis, String>() {
+                @Override
+                public String apply(Jedis jedis) {
+                    return jedis.hget(key1, key2);
+                }
+            }, "redis get failed,key =" + key1, StringUtils.EMPTY);
         }
-        return StringUtils.EMPTY;
+        return execute(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.hget(key1, key2);
+            }
+        }, new Function<Jedis, String>() {
+            @Override
+            public String apply(Jedis jedis) {
+                return jedis.hget(key1, key2);
+            }
+        }, "redis get failed,key =" + key1, StringUtils.EMPTY);
     }
 
     /**
@@ -221,19 +533,19 @@ public class RedisClient {
      */
     public static boolean hdel(String key,String ... fields) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            ret = jedis.hdel(key, fields);
-        } catch (Exception e) {
-            logger.error("redis del failed,key =" + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        invalidateNearCache(key);
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.hdel(key, fields);
             }
-        }
-        return ret>0L;
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.hdel(key, fields);
+            }
+        }, "redis del failed,key =" + key, 0L);
+        return ret != null && ret > 0L;
     }
 
     /**
@@ -243,18 +555,34 @@ public class RedisClient {
      */
     public static Map<String, String> hgetAll(String key) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.hgetAll(key);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        NearCache cache = nearCache;
+        if (cache != null) {
+            try {
+                return cache.getHash(key, LOAD_HASH);
+            } catch (Exception e) {
+                logger.error(FAILED_SETKEY + key, e);
+                return Collections.<String, String>emptyMap();
             }
         }
-        return MapUtils.EMPTY_MAP;
+        if (replicaRouter != null) {
+            return replicated(new Function<Jedis, Map<String, String>>() {
+                @Override
+                public Map<String, String> apply(Jedis jedis) {
+                    return jedis.hgetAll(key);
+                }
+            }, FAILED_SETKEY + key, Collections.<String, String>emptyMap());
+        }
+        return execute(new AutoPipeline.Command<Map<String, String>>() {
+            @Override
+            public Response<Map<String, String>> apply(Pipeline pipeline) {
+                return pipeline.hgetAll(key);
+            }
+        }, new Function<Jedis, Map<String, String>>() {
+            @Override
+            public Map<String, String> apply(Jedis jedis) {
+                return jedis.hgetAll(key);
+            }
+        }, FAILED_SETKEY + key, Collections.<String, String>emptyMap());
     }
 
     /**
@@ -266,20 +594,15 @@ public class RedisClient {
      */
     public static boolean zadd(String key, double score, String member, int seconds) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Long ret = jedis.zadd(key, score, member);
-            jedis.expire(key, seconds);
-            return 1==ret;
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.zadd(key, score, member);
+                pipeline.expire(key, seconds);
+                return ret;
             }
-        }
-        return false;
+        }, FAILED_SETKEY + key, null);
+        return ret != null && 1 == ret;
     }
 
     /**
@@ -291,19 +614,17 @@ public class RedisClient {
      */
     public static double zincrby(String key, double score, String member) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Double ret = jedis.zincrby(key, score, member);
-            return ret;
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        return execute(new AutoPipeline.Command<Double>() {
+            @Override
+            public Response<Double> apply(Pipeline pipeline) {
+                return pipeline.zincrby(key, score, member);
             }
-        }
-        return 0.0;
+        }, new Function<Jedis, Double>() {
+            @Override
+            public Double apply(Jedis jedis) {
+                return jedis.zincrby(key, score, member);
+            }
+        }, FAILED_SETKEY + key, 0.0);
     }
     /**
      * 包装zrange命令
@@ -314,18 +635,25 @@ public class RedisClient {
      */
     public static Set<String> zrange(String key, Long start, Long end) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.zrange(key, start, end);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
-            }
+        if (replicaRouter != null) {
+            return replicated(new Function<Jedis, Set<String>>() {
+                @Override
+                public Set<String> apply(Jedis jedis) {
+                    return jedis.zrange(key, start, end);
+                }
+            }, FAILED_SETKEY + key, Collections.<String>emptySet());
         }
-        return SetUtils.EMPTY_SET;
+        return execute(new AutoPipeline.Command<Set<String>>() {
+            @Override
+            public Response<Set<String>> apply(Pipeline pipeline) {
+                return pipeline.zrange(key, start, end);
+            }
+        }, new Function<Jedis, Set<String>>() {
+            @Override
+            public Set<String> apply(Jedis jedis) {
+                return jedis.zrange(key, start, end);
+            }
+        }, FAILED_SETKEY + key, Collections.<String>emptySet());
     }
 
     /**
@@ -337,18 +665,25 @@ public class RedisClient {
      */
     public static Set<String> zrevrange(String key, Long start, Long end) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.zrevrange(key, start, end);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
-            }
+        if (replicaRouter != null) {
+            return replicated(new Function<Jedis, Set<String>>() {
+                @Override
+                public Set<String> apply(Jedis jedis) {
+                    return jedis.zrevrange(key, start, end);
+                }
+            }, FAILED_SETKEY + key, Collections.<String>emptySet());
         }
-        return SetUtils.EMPTY_SET;
+        return execute(new AutoPipeline.Command<Set<String>>() {
+            @Override
+            public Response<Set<String>> apply(Pipeline pipeline) {
+                return pipeline.zrevrange(key, start, end);
+            }
+        }, new Function<Jedis, Set<String>>() {
+            @Override
+            public Set<String> apply(Jedis jedis) {
+                return jedis.zrevrange(key, start, end);
+            }
+        }, FAILED_SETKEY + key, Collections.<String>emptySet());
     }
 
     /**
@@ -359,19 +694,18 @@ public class RedisClient {
      */
     public static boolean  zrem(String key, String str) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            ret = jedis.zrem(key, str);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zrem(key, str);
             }
-        }
-        return ret>0L;
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.zrem(key, str);
+            }
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null && ret > 0L;
     }
 
     /**
@@ -382,19 +716,17 @@ public class RedisClient {
      */
     public static Long  zremrangeByRank(String key, Long start,Long end) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            ret =jedis.zremrangeByRank(key, start, end);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        return execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zremrangeByRank(key, start, end);
             }
-        }
-        return ret;
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.zremrangeByRank(key, start, end);
+            }
+        }, FAILED_SETKEY + key, 0L);
     }
 
     /**
@@ -405,25 +737,20 @@ public class RedisClient {
      */
     public static boolean  sadd(String key, int seconds ,String... str) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            ret = jedis.sadd(key, str);
-            jedis.expire(key, seconds);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.sadd(key, str);
+                pipeline.expire(key, seconds);
+                return ret;
             }
-        }
-        return ret>0L;
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null && ret > 0L;
     }
 
 
     public static Set<String> getSadd(String key){
-        Jedis jedis = jedisSentinelPool.getResource();
+        Jedis jedis = masterPool.getResource();
         return  jedis.zrange(key,0,1);
     }
 
@@ -435,18 +762,25 @@ public class RedisClient {
      */
     public static Set<String> smembers(String key ) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.smembers(key );
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
-            }
+        if (replicaRouter != null) {
+            return replicated(new Function<Jedis, Set<String>>() {
+                @Override
+                public Set<String> apply(Jedis jedis) {
+                    return jedis.smembers(key);
+                }
+            }, FAILED_SETKEY + key, Collections.<String>emptySet());
         }
-        return SetUtils.EMPTY_SET;
+        return execute(new AutoPipeline.Command<Set<String>>() {
+            @Override
+            public Response<Set<String>> apply(Pipeline pipeline) {
+                return pipeline.smembers(key);
+            }
+        }, new Function<Jedis, Set<String>>() {
+            @Override
+            public Set<String> apply(Jedis jedis) {
+                return jedis.smembers(key);
+            }
+        }, FAILED_SETKEY + key, Collections.<String>emptySet());
     }
 
     /**
@@ -457,19 +791,18 @@ public class RedisClient {
      */
     public static boolean  srem(String key, String... str) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            ret = jedis.srem(key, str);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.srem(key, str);
             }
-        }
-        return ret>0L;
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.srem(key, str);
+            }
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null && ret > 0L;
     }
 
     /**
@@ -480,24 +813,18 @@ public class RedisClient {
      */
     public static Long zrank(String key, String member) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Long zrankResult=jedis.zrank(key, member);
-            if (zrankResult!=null){
-                ret =zrankResult.longValue();
-            }else {
-                ret=-1;
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zrank(key, member);
             }
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.zrank(key, member);
             }
-        }
-        return ret;
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null ? ret : -1L;
     }
 
     /**
@@ -509,20 +836,15 @@ public class RedisClient {
      */
     public static boolean zadd(String key, Map<String, Double> scoreMembers, int seconds) {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Long ret = jedis.zadd(key, scoreMembers);
-            jedis.expire(key, seconds);
-            return ret>0;
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.zadd(key, scoreMembers);
+                pipeline.expire(key, seconds);
+                return ret;
             }
-        }
-        return false;
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null && ret > 0;
     }
 
     /**
@@ -532,24 +854,27 @@ public class RedisClient {
      */
     public static Long zcard(String key) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Long zrankResult=jedis.zcard(key);
-            if (zrankResult!=null){
-                ret =zrankResult.longValue();
-            }else {
-                ret=0;
+        if (replicaRouter != null) {
+            Long ret = replicated(new Function<Jedis, Long>() {
+                @Override
+                public Long apply(Jedis jedis) {
+                    return jedis.zcard(key);
+                }
+            }, FAILED_SETKEY + key, 0L);
+            return ret != null ? ret : 0L;
+        }
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zcard(key);
             }
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.zcard(key);
             }
-        }
-        return ret;
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null ? ret : 0L;
     }
 
     /**
@@ -561,24 +886,18 @@ public class RedisClient {
      */
     public static Long zremrangeByRank(String key, long start, long stop) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Long zrankResult=jedis.zremrangeByRank(key,start, stop);
-            if (zrankResult!=null){
-                ret =zrankResult.longValue();
-            }else {
-                ret=0;
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.zremrangeByRank(key, start, stop);
             }
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.zremrangeByRank(key, start, stop);
             }
-        }
-        return ret;
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null ? ret : 0L;
     }
 
     /**
@@ -588,24 +907,19 @@ public class RedisClient {
      */
     public static Long incr(String key) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Long zrankResult=jedis.incr(key);
-            if (zrankResult!=null){
-                ret =zrankResult.longValue();
-            }else {
-                ret=0;
+        invalidateNearCache(key);
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.incr(key);
             }
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.incr(key);
             }
-        }
-        return ret;
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null ? ret : 0L;
     }
 
     /**
@@ -615,25 +929,19 @@ public class RedisClient {
      */
     public static Long decr(String key) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Long zrankResult=jedis.decr(key);
-            if (zrankResult!=null){
-                ret =zrankResult.longValue();
-            }else {
-                ret=0;
+        invalidateNearCache(key);
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.decr(key);
             }
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.decr(key);
             }
-        }
-
-        return ret;
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null ? ret : 0L;
     }
 
     /**
@@ -642,18 +950,18 @@ public class RedisClient {
     public static Long expire( String key,  int seconds)
     {
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.expire(key, seconds);
-        } catch (Exception e) {
-            logger.error(FAILED_SETEXPEIR + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        invalidateNearCache(key);
+        return execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.expire(key, seconds);
             }
-        }
-        return 2L;
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.expire(key, seconds);
+            }
+        }, FAILED_SETEXPEIR + key, 2L);
     }
 
     /**
@@ -664,24 +972,19 @@ public class RedisClient {
      */
     public static Long decrBy(String key,Integer number) {
         Assert.hasLength(key, NULL_KEY);
-        long ret = 0L;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            Long zrankResult=jedis.decrBy(key,number);
-            if (zrankResult!=null){
-                ret =zrankResult.longValue();
-            }else {
-                ret=0;
+        invalidateNearCache(key);
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                return pipeline.decrBy(key, number);
             }
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        }, new Function<Jedis, Long>() {
+            @Override
+            public Long apply(Jedis jedis) {
+                return jedis.decrBy(key, number);
             }
-        }
-        return ret;
+        }, FAILED_SETKEY + key, 0L);
+        return ret != null ? ret : 0L;
     }
     /**
      * 包装exists命令
@@ -690,40 +993,71 @@ public class RedisClient {
      */
     public static boolean  exists(String key) {
         Assert.hasLength(key, NULL_KEY);
-        boolean exists=false;
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            exists = jedis.exists(key);
-        } catch (Exception e) {
-            logger.error(FAILED_SETKEY + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        Boolean ret = execute(new AutoPipeline.Command<Boolean>() {
+            @Override
+            public Response<Boolean> apply(Pipeline pipeline) {
+                return pipeline.exists(key);
             }
-        }
-        return exists;
+        }, new Function<Jedis, Boolean>() {
+            @Override
+            public Boolean apply(Jedis jedis) {
+                return jedis.exists(key);
+            }
+        }, FAILED_SETKEY + key, false);
+        return ret != null && ret;
     }
 
     /**
-     * 包装keys命令
+     * 按 pattern 查找 key， 用 SCAN 分页实现， 不会像 KEYS 那样阻塞服务端， 但结果仍全部放在内存中，
+     * key 较多时用 {@link #scan(String)} 流式遍历
      * @param pattern
      * @return
      */
     public static Set<String> keys(String pattern) {
         Assert.hasLength(pattern, NULL_KEY);
-        Jedis jedis = null;
         try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.keys(pattern);
+            Set<String> keys = new HashSet<String>();
+            for (String key : scan(pattern)) {
+                keys.add(key);
+            }
+            return keys;
         } catch (Exception e) {
             logger.error(FAILED_SETKEY + pattern, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
-            }
         }
-        return SetUtils.EMPTY_SET;
+        return Collections.<String>emptySet();
+    }
+
+    /**
+     * 流式遍历 key， 见 {@link RedisScan}
+     *
+     * @param pattern MATCH 参数， 为 null 时遍历全部 key
+     */
+    public static RedisScan<String> scan(String pattern) {
+        return RedisScan.keys(masterPool, pattern, RedisScan.DEFAULT_COUNT);
+    }
+
+    /**
+     * 流式遍历大 hash， 替代 {@link #hgetAll(String)}
+     */
+    public static RedisScan<Map.Entry<String, String>> hscan(String key) {
+        Assert.hasLength(key, NULL_KEY);
+        return RedisScan.hash(masterPool, key, null, RedisScan.DEFAULT_COUNT);
+    }
+
+    /**
+     * 流式遍历大集合， 替代 {@link #smembers(String)}
+     */
+    public static RedisScan<String> sscan(String key) {
+        Assert.hasLength(key, NULL_KEY);
+        return RedisScan.set(masterPool, key, null, RedisScan.DEFAULT_COUNT);
+    }
+
+    /**
+     * 流式遍历大有序集合， 替代 {@link #zrange(String, Long, Long)}， 不保证按分数排序
+     */
+    public static RedisScan<Tuple> zscan(String key) {
+        Assert.hasLength(key, NULL_KEY);
+        return RedisScan.sortedSet(masterPool, key, null, RedisScan.DEFAULT_COUNT);
     }
 
     /**
@@ -734,7 +1068,7 @@ public class RedisClient {
     public static Jedis getJedis() {
         Jedis jedis = null;
         try {
-            jedis = jedisSentinelPool.getResource();
+            jedis = masterPool.getResource();
             return jedis;
         } catch (Exception e) {
             logger.error("redis get failed, message:{} e:{}", e);
@@ -765,67 +1099,58 @@ public class RedisClient {
      */
     public static String getPop( String key){
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.lpop(key);
-        } catch (Exception e) {
-            logger.error("redis get failed,key =" + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        return execute(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.lpop(key);
             }
-        }
-        return null;
+        }, new Function<Jedis, String>() {
+            @Override
+            public String apply(Jedis jedis) {
+                return jedis.lpop(key);
+            }
+        }, "redis get failed,key =" + key, null);
     }
 
     public static boolean lpush(String key, int seconds,String...request){
         Assert.hasLength(key, NULL_KEY);
-        Jedis jedis = null;
-        long ret = 0L;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            ret =  jedis.lpush(key,request);
-            jedis.expire(key, seconds);
-            return ret>0;
-        } catch (Exception e) {
-            logger.error("redis get failed,key =" + key, e);
-        } finally {
-            if (jedis != null) {
-                jedis.close();
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.lpush(key, request);
+                pipeline.expire(key, seconds);
+                return ret;
             }
-        }
-        return false;
+        }, "redis get failed,key =" + key, 0L);
+        return ret != null && ret > 0;
     }
     public static String lpop(String key){
         Assert.hasLength(key,NULL_KEY);
-        Jedis jedis  =  null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.lpop(key);
-        }catch (Exception e){
-            logger.error("error"+e);
-        }finally {
-            if (jedis != null) {
-                jedis.close();
+        return execute(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.lpop(key);
             }
-        }
-        return key;
+        }, new Function<Jedis, String>() {
+            @Override
+            public String apply(Jedis jedis) {
+                return jedis.lpop(key);
+            }
+        }, "error", key);
     }
     public static String rpop(String key){
         Assert.hasLength(key,NULL_KEY);
-        Jedis jedis  =  null;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            return jedis.rpop(key);
-        }catch (Exception e){
-            logger.error("error"+e);
-        }finally {
-            if (jedis != null) {
-                jedis.close();
+        return execute(new AutoPipeline.Command<String>() {
+            @Override
+            public Response<String> apply(Pipeline pipeline) {
+                return pipeline.rpop(key);
             }
-        }
-        return key;
+        }, new Function<Jedis, String>() {
+            @Override
+            public String apply(Jedis jedis) {
+                return jedis.rpop(key);
+            }
+        }, "error", key);
     }
 
     /**
@@ -836,22 +1161,17 @@ public class RedisClient {
      */
     public static Boolean setnx(String key,String value){
         Assert.hasLength(key,NULL_KEY);
+        invalidateNearCache(key);
         Assert.hasLength(value,NULL_KEY);
-        Jedis jedis  =  null;
-        long res = 0L;
-        try {
-            jedis = jedisSentinelPool.getResource();
-            res = jedis.setnx(key,value);
-            jedis.expire(key, 4);
-            return res > 0 ;
-        }catch (Exception e){
-            logger.error("error" + e );
-        }finally {
-            if (jedis != null) {
-                jedis.close();
+        Long ret = execute(new AutoPipeline.Command<Long>() {
+            @Override
+            public Response<Long> apply(Pipeline pipeline) {
+                Response<Long> ret = pipeline.setnx(key, value);
+                pipeline.expire(key, 4);
+                return ret;
             }
-        }
-        return false;
+        }, "error", 0L);
+        return ret != null && ret > 0;
     }
 
 }
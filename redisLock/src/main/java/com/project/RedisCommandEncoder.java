@@ -0,0 +1,42 @@
+package com.project;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 把命令（命令名和参数组成的 byte[][]）编码为 RESP 数组
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+class RedisCommandEncoder extends OneToOneEncoder {
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    @Override
+    protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg) {
+        if (!(msg instanceof byte[][])) {
+            return msg;
+        }
+        byte[][] args = (byte[][]) msg;
+        int size = 16;
+        for (byte[] arg : args) {
+            size += arg.length + 16;
+        }
+        ChannelBuffer buffer = ChannelBuffers.buffer(size);
+        buffer.writeByte('*');
+        buffer.writeBytes(SafeEncoder.encode(String.valueOf(args.length)));
+        buffer.writeBytes(CRLF);
+        for (byte[] arg : args) {
+            buffer.writeByte('$');
+            buffer.writeBytes(SafeEncoder.encode(String.valueOf(arg.length)));
+            buffer.writeBytes(CRLF);
+            buffer.writeBytes(arg);
+            buffer.writeBytes(CRLF);
+        }
+        return buffer;
+    }
+}
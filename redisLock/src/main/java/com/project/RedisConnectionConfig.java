@@ -0,0 +1,366 @@
+package com.project;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.util.Pool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Redis 连接配置， 可以从 classpath 下的 redis.properties 加载（同名系统属性优先）， 也可以用 {@link Builder} 构造
+ * 创建的主节点连接池启动时预先建立 warmUp 个连接， 容量在 minTotal 和 maxTotal 之间按借连接等待时间自适应调整，
+ * 并以 com.project:type=RedisPool,name=master 发布 JMX 监控项
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisConnectionConfig {
+    private static final Logger logger = LoggerFactory.getLogger(RedisConnectionConfig.class);
+    public static final String RESOURCE = "redis.properties";
+
+    private final String host;
+    private final int port;
+    private final String password;
+    private final int timeout;
+    private final Set<String> sentinels;
+    private final String masterName;
+    private final List<HostAndPort> replicas;
+    private final boolean readFromReplicas;
+    private final ReplicaRouter.ReadPolicy readPolicy;
+    private final int minTotal;
+    private final int maxTotal;
+    private final int minIdle;
+    private final int warmUp;
+    private final long maxWaitMillis;
+    private final boolean testOnBorrow;
+    private final long targetWaitMillis;
+
+    private RedisConnectionConfig(Builder builder) {
+        this.host = builder.host;
+        this.port = builder.port;
+        this.password = StringUtils.defaultIfEmpty(builder.password, null);
+        this.timeout = builder.timeout;
+        this.sentinels = Collections.unmodifiableSet(new HashSet<String>(builder.sentinels));
+        this.masterName = builder.masterName;
+        this.replicas = Collections.unmodifiableList(new ArrayList<HostAndPort>(builder.replicas));
+        this.readFromReplicas = builder.readFromReplicas;
+        this.readPolicy = builder.readPolicy;
+        this.minTotal = Math.min(builder.minTotal, builder.maxTotal);
+        this.maxTotal = builder.maxTotal;
+        this.minIdle = Math.min(builder.minIdle, this.minTotal);
+        this.warmUp = Math.min(builder.warmUp, this.minTotal);
+        this.maxWaitMillis = builder.maxWaitMillis;
+        this.testOnBorrow = builder.testOnBorrow;
+        this.targetWaitMillis = builder.targetWaitMillis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 加载 classpath 下的 redis.properties， 不存在时使用默认值， 以 redis. 开头的系统属性覆盖文件中的配置
+     */
+    public static RedisConnectionConfig load() {
+        Properties properties = new Properties();
+        InputStream in = RedisConnectionConfig.class.getClassLoader().getResourceAsStream(RESOURCE);
+        if (in != null) {
+            try {
+                properties.load(in);
+            } catch (IOException e) {
+                logger.warn("redis config load failed, resource = " + RESOURCE, e);
+            } finally {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("redis.")) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * 配置项见 redis.properties， 未配置的使用 {@link Builder} 的默认值
+     */
+    public static RedisConnectionConfig fromProperties(Properties properties) {
+        Builder builder = builder();
+        builder.host(properties.getProperty("redis.host", builder.host));
+        builder.port(Integer.parseInt(properties.getProperty("redis.port", String.valueOf(builder.port))));
+        builder.password(properties.getProperty("redis.password", builder.password));
+        builder.timeout(Integer.parseInt(properties.getProperty("redis.timeout", String.valueOf(builder.timeout))));
+        builder.sentinels(split(properties.getProperty("redis.sentinels")));
+        builder.masterName(properties.getProperty("redis.masterName", builder.masterName));
+        for (String replica : split(properties.getProperty("redis.replicas"))) {
+            builder.replica(HostAndPort.parseString(replica));
+        }
+        builder.readFromReplicas(Boolean.parseBoolean(properties.getProperty("redis.readFromReplicas", "false")));
+        builder.readPolicy(ReplicaRouter.ReadPolicy.valueOf(properties.getProperty("redis.readPolicy", builder.readPolicy.name())));
+        builder.minTotal(Integer.parseInt(properties.getProperty("redis.pool.minTotal", String.valueOf(builder.minTotal))));
+        builder.maxTotal(Integer.parseInt(properties.getProperty("redis.pool.maxTotal", String.valueOf(builder.maxTotal))));
+        builder.minIdle(Integer.parseInt(properties.getProperty("redis.pool.minIdle", String.valueOf(builder.minIdle))));
+        builder.warmUp(Integer.parseInt(properties.getProperty("redis.pool.warmUp", String.valueOf(builder.warmUp))));
+        builder.maxWaitMillis(Long.parseLong(properties.getProperty("redis.pool.maxWaitMillis", String.valueOf(builder.maxWaitMillis))));
+        builder.testOnBorrow(Boolean.parseBoolean(properties.getProperty("redis.pool.testOnBorrow", String.valueOf(builder.testOnBorrow))));
+        builder.targetWaitMillis(Long.parseLong(properties.getProperty("redis.pool.targetWaitMillis", String.valueOf(builder.targetWaitMillis))));
+        return builder.build();
+    }
+
+    /**
+     * 连接池配置， 初始容量为 minTotal， maxIdle 与容量相同， 避免负载下归还的连接被关闭后又重新建立
+     */
+    public JedisPoolConfig poolConfig() {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(minTotal);
+        config.setMaxIdle(minTotal);
+        config.setMinIdle(minIdle);
+        config.setMaxWaitMillis(maxWaitMillis);
+        config.setTestOnBorrow(testOnBorrow);
+        return config;
+    }
+
+    /**
+     * 创建主节点连接池并预先建立连接， 配置了 Sentinel 时由 Sentinel 发现主节点
+     */
+    public Pool<Jedis> createPool() {
+        Pool<Jedis> pool;
+        if (!sentinels.isEmpty()) {
+            pool = new InstrumentedJedisSentinelPool(masterName, sentinels, poolConfig(), timeout, password,
+                    "master", minTotal, maxTotal, targetWaitMillis);
+        } else {
+            pool = new InstrumentedJedisPool(poolConfig(), host, port, timeout, password,
+                    "master", minTotal, maxTotal, targetWaitMillis);
+        }
+        if (warmUp > 0) {
+            long start = System.currentTimeMillis();
+            try {
+                pool.addObjects(warmUp);
+                logger.info("redis pool warmed up, connections = " + warmUp + ", cost = " + (System.currentTimeMillis() - start) + "ms");
+            } catch (Exception e) {
+                // 启动时 Redis 不可用不影响启动， 连接按需建立
+                logger.warn("redis pool warm up failed", e);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * @return 只读命令的副本路由， 未开启时返回 null
+     */
+    public ReplicaRouter createReplicaRouter(Pool<Jedis> master) {
+        if (!readFromReplicas) {
+            return null;
+        }
+        if (!sentinels.isEmpty()) {
+            return new ReplicaRouter(master, readPolicy, sentinels, masterName, poolConfig(), timeout, password);
+        }
+        return new ReplicaRouter(master, readPolicy, replicas, poolConfig(), timeout, password);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public Set<String> getSentinels() {
+        return sentinels;
+    }
+
+    public String getMasterName() {
+        return masterName;
+    }
+
+    public int getMinTotal() {
+        return minTotal;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisConnectionConfig{" + (sentinels.isEmpty() ? host + ":" + port : masterName + "@" + sentinels)
+                + ", replicas=" + (readFromReplicas ? readPolicy + (sentinels.isEmpty() ? replicas.toString() : "(sentinel)") : "off")
+                + ", total=" + minTotal + ".." + maxTotal + ", minIdle=" + minIdle + ", warmUp=" + warmUp
+                + ", maxWaitMillis=" + maxWaitMillis + ", targetWaitMillis=" + targetWaitMillis + '}';
+    }
+
+    private static List<String> split(String value) {
+        if (StringUtils.isBlank(value)) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<String>();
+        for (String part : Arrays.asList(value.split(","))) {
+            if (StringUtils.isNotBlank(part)) {
+                values.add(part.trim());
+            }
+        }
+        return values;
+    }
+
+    public static class Builder {
+        private String host = "127.0.0.1";
+        private int port = 6379;
+        private String password = "123456";
+        private int timeout = 2000;
+        private final Set<String> sentinels = new HashSet<String>();
+        private String masterName = "mymaster";
+        private final List<HostAndPort> replicas = new ArrayList<HostAndPort>();
+        private boolean readFromReplicas;
+        private ReplicaRouter.ReadPolicy readPolicy = ReplicaRouter.ReadPolicy.ROUND_ROBIN;
+        private int minTotal = 16;
+        private int maxTotal = 50;
+        private int minIdle = 8;
+        private int warmUp = 8;
+        private long maxWaitMillis = 2000L;
+        private boolean testOnBorrow = true;
+        private long targetWaitMillis = 1L;
+
+        private Builder() {
+        }
+
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param password 为空时不认证
+         */
+        public Builder password(String password) {
+            this.password = password;
+            return this;
+        }
+
+        /**
+         * @param timeout 连接和读写超时， 毫秒
+         */
+        public Builder timeout(int timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * @param sentinels Sentinel 地址， host:port， 为空时直连 host:port
+         */
+        public Builder sentinels(Collection<String> sentinels) {
+            this.sentinels.addAll(sentinels);
+            return this;
+        }
+
+        public Builder masterName(String masterName) {
+            this.masterName = masterName;
+            return this;
+        }
+
+        /**
+         * 静态配置的从节点， 配置了 Sentinel 时忽略， 从节点由 Sentinel 发现
+         */
+        public Builder replica(HostAndPort replica) {
+            this.replicas.add(replica);
+            return this;
+        }
+
+        public Builder readFromReplicas(boolean readFromReplicas) {
+            this.readFromReplicas = readFromReplicas;
+            return this;
+        }
+
+        public Builder readPolicy(ReplicaRouter.ReadPolicy readPolicy) {
+            this.readPolicy = readPolicy;
+            return this;
+        }
+
+        /**
+         * @param minTotal 连接数上限的初始值和自适应调整的下限
+         */
+        public Builder minTotal(int minTotal) {
+            this.minTotal = minTotal;
+            return this;
+        }
+
+        /**
+         * @param maxTotal 自适应调整的上限
+         */
+        public Builder maxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        public Builder minIdle(int minIdle) {
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        /**
+         * @param warmUp 启动时预先建立的连接数
+         */
+        public Builder warmUp(int warmUp) {
+            this.warmUp = warmUp;
+            return this;
+        }
+
+        /**
+         * @param maxWaitMillis 借连接的最长等待时间， 毫秒
+         */
+        public Builder maxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+
+        public Builder testOnBorrow(boolean testOnBorrow) {
+            this.testOnBorrow = testOnBorrow;
+            return this;
+        }
+
+        /**
+         * @param targetWaitMillis 借连接等待 p99 的目标， 毫秒， 小于 0 表示容量固定为 minTotal
+         */
+        public Builder targetWaitMillis(long targetWaitMillis) {
+            this.targetWaitMillis = targetWaitMillis;
+            return this;
+        }
+
+        public RedisConnectionConfig build() {
+            if (minTotal <= 0 || maxTotal <= 0) {
+                throw new IllegalArgumentException("minTotal and maxTotal must be positive");
+            }
+            return new RedisConnectionConfig(this);
+        }
+    }
+}
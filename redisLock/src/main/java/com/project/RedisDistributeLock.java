@@ -2,6 +2,8 @@ package com.project;
 
 import redis.clients.jedis.Jedis;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author haochen
  * @date 2019/3/28 9:59 AM
@@ -9,7 +11,7 @@ import redis.clients.jedis.Jedis;
 public interface RedisDistributeLock {
 
     /**
-     * 公平锁， 只能说 本机的公平
+     * 公平锁， 跨 JVM 按排队先后获得锁
      * @param jedis
      * @param key
      * @param uuid
@@ -39,5 +41,36 @@ public interface RedisDistributeLock {
      * @param uuid
      */
     void release(Jedis jedis, String key, String uuid);
-}
 
+    /**
+     * 加锁， 只在每次访问 Redis 时从连接池借连接， 持有锁期间不占用连接
+     * @param key
+     * @return 锁句柄， 解锁时传入
+     */
+    LockHandle lock(String key);
+
+    /**
+     * 加锁， 等待期间响应中断
+     * @param key
+     * @return 锁句柄， 解锁时传入
+     * @throws InterruptedException 等待期间被中断
+     */
+    LockHandle lockInterruptibly(String key) throws InterruptedException;
+
+    /**
+     * 在给定时间内尝试加锁， 超时放弃
+     * @param key
+     * @param time 最长等待时间， 0 表示只尝试一次
+     * @param unit 时间单位
+     * @return 锁句柄， 超时返回 null
+     * @throws InterruptedException 等待期间被中断
+     */
+    LockHandle tryLock(String key, long time, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 解锁
+     * @param handle lock 返回的锁句柄
+     * @return 是否解锁成功， 租约已过期时返回 false
+     */
+    boolean release(LockHandle handle);
+}
@@ -0,0 +1,84 @@
+package com.project;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 把某个 key 上的分布式锁适配为 {@link Lock}， 支持超时和可中断的加锁
+ * 不可重入， 同一线程重复加锁会一直等到锁过期
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisLock implements Lock {
+    private final RedisDistributeLock locker;
+    private final String key;
+    private volatile LockHandle handle;
+    private volatile Thread owner;
+
+    public RedisLock(RedisDistributeLock locker, String key) {
+        this.locker = locker;
+        this.key = key;
+    }
+
+    @Override
+    public void lock() {
+        hold(locker.lock(key));
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        hold(locker.lockInterruptibly(key));
+    }
+
+    @Override
+    public boolean tryLock() {
+        try {
+            return hold(locker.tryLock(key, 0L, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        return hold(locker.tryLock(key, time, unit));
+    }
+
+    /**
+     * 解锁， 租约已经过期时锁可能已被他人持有， 这里不会误删他人的锁
+     */
+    @Override
+    public void unlock() {
+        if (owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("redis lock not held by current thread, key =" + key);
+        }
+        LockHandle current = handle;
+        handle = null;
+        owner = null;
+        locker.release(current);
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return 当前持有的锁句柄， 未持有时为 null
+     */
+    public LockHandle getHandle() {
+        return handle;
+    }
+
+    private boolean hold(LockHandle acquired) {
+        if (acquired == null) {
+            return false;
+        }
+        handle = acquired;
+        owner = Thread.currentThread();
+        return true;
+    }
+}
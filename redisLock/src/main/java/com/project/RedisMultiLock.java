@@ -0,0 +1,168 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多 key 锁， 例如转账时同时锁住两个账户
+ * 加锁和释放都只需一次往返， 所有 key 在一个 Lua 脚本里原子地加锁， 不同客户端以不同顺序加锁也不会死锁；
+ * 加锁失败时订阅第一个被占用的 key 的释放通知， 被占用的 key 变化时改为订阅新的 key
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisMultiLock {
+    private static final int DEFAULT_EXPIRE_TIME = 1000;
+
+    private final int expireTime;
+
+    public RedisMultiLock() {
+        this(DEFAULT_EXPIRE_TIME);
+    }
+
+    /**
+     * @param expireTime 超期时间， 毫秒
+     */
+    public RedisMultiLock(int expireTime) {
+        this.expireTime = expireTime;
+    }
+
+    /**
+     * 一直等到所有 key 都加锁成功
+     */
+    public MultiLockHandle lock(Collection<String> keys) {
+        try {
+            return lock(keys, -1L, false);
+        } catch (InterruptedException e) {
+            // 不可中断时不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public MultiLockHandle lockInterruptibly(Collection<String> keys) throws InterruptedException {
+        return lock(keys, -1L, true);
+    }
+
+    /**
+     * @return 锁句柄， 超时返回 null
+     */
+    public MultiLockHandle tryLock(Collection<String> keys, long time, TimeUnit unit) throws InterruptedException {
+        return lock(keys, Math.max(0L, unit.toNanos(time)), true);
+    }
+
+    /**
+     * 部分加锁， 只尝试一次， 尽量多地锁住 key， 适合多个批处理进程分抢任务
+     *
+     * @return 锁句柄， 只包含加锁成功的 key， 可能为空
+     */
+    public MultiLockHandle tryLockAny(Collection<String> keys) {
+        List<String> lockKeys = distinct(keys);
+        String owner = UUID.randomUUID().toString();
+        long start = System.currentTimeMillis();
+        List<String> acquired;
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            acquired = RedisTool.tryGetAnyLocks(jedis, lockKeys, owner, expireTime);
+        } finally {
+            jedis.close();
+        }
+        return new MultiLockHandle(Collections.unmodifiableList(acquired), owner, start + expireTime);
+    }
+
+    /**
+     * 一次往返释放句柄中的所有 key
+     *
+     * @return 释放的个数， 小于 key 的个数说明部分租约已经过期
+     */
+    public int release(MultiLockHandle handle) {
+        List<String> keys = handle.getKeys();
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        long released;
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            released = RedisTool.releaseMultiLock(jedis, keys, handle.getOwner());
+        } finally {
+            jedis.close();
+        }
+        HeldKeyCache heldKeys = HeldKeyCache.getInstance();
+        for (String key : keys) {
+            heldKeys.invalidate(key);
+        }
+        return (int) released;
+    }
+
+    /**
+     * @param timeout 最长等待时间， 纳秒， 小于 0 表示一直等待
+     * @return 锁句柄， 超时返回 null
+     */
+    private MultiLockHandle lock(Collection<String> keys, long timeout, boolean interruptible)
+            throws InterruptedException {
+        List<String> lockKeys = distinct(keys);
+        if (lockKeys.isEmpty()) {
+            throw new IllegalArgumentException("keys must not be empty");
+        }
+        String owner = UUID.randomUUID().toString();
+        long deadline = System.nanoTime() + timeout;
+        MultiAttempt attempt = new MultiAttempt(lockKeys, owner);
+        while (true) {
+            String blocker = lockKeys.get(attempt.blocker);
+            long remaining = timeout < 0 ? -1L : Math.max(0L, deadline - System.nanoTime());
+            long start = new LockWaiter(blocker, RedisTool.getLockChannel(blocker), false, expireTime)
+                    .await(attempt, remaining, interruptible);
+            if (start == LockWaiter.RESUBSCRIBE) {
+                continue;
+            }
+            if (start < 0) {
+                return null;
+            }
+            return new MultiLockHandle(Collections.unmodifiableList(lockKeys), owner, start + expireTime);
+        }
+    }
+
+    private static List<String> distinct(Collection<String> keys) {
+        return new ArrayList<String>(new LinkedHashSet<String>(keys));
+    }
+
+    /**
+     * 被占用的 key 变成了其他 key 时返回 {@link LockWaiter.Attempt#RESUBSCRIBE} 结束这一轮等待， 由调用方改为等待新的 key
+     */
+    private class MultiAttempt extends LockWaiter.Attempt {
+        private final List<String> keys;
+        private final String owner;
+        private int blocker;
+
+        private MultiAttempt(List<String> keys, String owner) {
+            this.keys = keys;
+            this.owner = owner;
+        }
+
+        @Override
+        Long tryLock() {
+            List<Long> result;
+            Jedis jedis = RedisClient.getPool().getResource();
+            try {
+                result = RedisTool.tryGetMultiLock(jedis, keys, owner, expireTime);
+            } finally {
+                jedis.close();
+            }
+            if (result == null) {
+                return null;
+            }
+            int index = result.get(0).intValue();
+            if (index != blocker) {
+                blocker = index;
+                return RESUBSCRIBE;
+            }
+            return result.get(1);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * 分布式读写锁， Redis 中用 hash 保存 mode（read/write）和 持有者 -> 重入次数
+ * 任意多个读者可以同时持有读锁， 写锁独占； 有写者等待时新的读者不能加锁， 避免写者饿死
+ * 持有者标识与 {@link RedisReentrantLock} 相同， 为 JVM 标识 + 线程 id， 读锁和写锁都可重入，
+ * 持有写锁时可以再加读锁， 但持有读锁时不能升级为写锁（会一直等到自己的读锁过期）
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisReadWriteLock implements ReadWriteLock {
+    private static final int DEFAULT_EXPIRE_TIME = 1000;
+
+    private final String key;
+    private final int expireTime;
+    private final Lock readLock = new ReadLock();
+    private final Lock writeLock = new WriteLock();
+
+    public RedisReadWriteLock(String key) {
+        this(key, DEFAULT_EXPIRE_TIME);
+    }
+
+    /**
+     * @param key        锁
+     * @param expireTime 超期时间， 毫秒， 读者共用一个租约， 每次加读锁时只延长不缩短
+     */
+    public RedisReadWriteLock(String key, int expireTime) {
+        this.key = key;
+        this.expireTime = expireTime;
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    private abstract class Mode implements Lock {
+
+        /**
+         * 一次加锁尝试， 返回值含义同 {@link LockWaiter.Attempt#tryLock()}
+         */
+        abstract Long tryLock(Jedis jedis, String requestId);
+
+        /**
+         * 放弃等待时的清理
+         */
+        void cancel(String requestId) {
+        }
+
+        @Override
+        public void lock() {
+            waiter().awaitUninterruptibly(attempt());
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            waiter().await(attempt(), -1L, true);
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0L, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            return waiter().await(attempt(), Math.max(0L, unit.toNanos(time)), true) >= 0;
+        }
+
+        /**
+         * 释放一次， 读锁和写锁的重入次数记在同一个持有者上
+         */
+        @Override
+        public void unlock() {
+            Long result;
+            Jedis jedis = RedisClient.getPool().getResource();
+            try {
+                result = RedisTool.releaseReadWriteLock(jedis, key, RedisReentrantLock.ownerId());
+            } finally {
+                jedis.close();
+            }
+            if (result == null) {
+                throw new IllegalMonitorStateException("redis lock not held by current thread, key =" + key);
+            }
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * 释放时广播通知， 被唤醒的读者可以一起加锁
+         */
+        private LockWaiter waiter() {
+            return new LockWaiter(key, RedisTool.getLockChannel(key), false, expireTime);
+        }
+
+        private LockWaiter.Attempt attempt() {
+            final String requestId = RedisReentrantLock.ownerId();
+            return new LockWaiter.Attempt() {
+                @Override
+                Long tryLock() {
+                    Jedis jedis = RedisClient.getPool().getResource();
+                    try {
+                        return Mode.this.tryLock(jedis, requestId);
+                    } finally {
+                        jedis.close();
+                    }
+                }
+
+                @Override
+                void cancel() {
+                    Mode.this.cancel(requestId);
+                }
+            };
+        }
+    }
+
+    private class ReadLock extends Mode {
+
+        @Override
+        Long tryLock(Jedis jedis, String requestId) {
+            return RedisTool.tryGetReadLock(jedis, key, requestId, expireTime);
+        }
+
+    }
+
+    private class WriteLock extends Mode {
+
+        @Override
+        Long tryLock(Jedis jedis, String requestId) {
+            return RedisTool.tryGetWriteLock(jedis, key, requestId, expireTime);
+        }
+
+        /**
+         * 清除写等待标记， 否则读者要等到标记过期
+         */
+        @Override
+        void cancel(String requestId) {
+            Jedis jedis = RedisClient.getPool().getResource();
+            try {
+                RedisTool.cancelWriteLock(jedis, key, requestId);
+            } finally {
+                jedis.close();
+            }
+        }
+
+    }
+}
@@ -0,0 +1,179 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 可重入的分布式锁， Redis 中用 hash 保存 持有者 -> 重入次数， 重入次数减到 0 时才删除锁
+ * 持有者标识为 JVM 标识 + 线程 id， 同一线程通过同一个实例重入时只在本地计数， 不访问 Redis；
+ * 通过其他实例重入同一个 key 时一次往返即可
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisReentrantLock implements Lock {
+    /**
+     * 本 JVM 的标识， 与线程 id 组合成持有者标识
+     */
+    private static final String JVM_ID = UUID.randomUUID().toString();
+    private static final int DEFAULT_EXPIRE_TIME = 1000;
+
+    private final String key;
+    private final int expireTime;
+    private final boolean watchdog;
+    private volatile Thread owner;
+    /**
+     * 本实例上的重入次数， 只由持有线程读写
+     */
+    private int holds;
+    private LockHandle handle;
+
+    public RedisReentrantLock(String key) {
+        this(key, DEFAULT_EXPIRE_TIME, false);
+    }
+
+    /**
+     * @param key        锁
+     * @param expireTime 超期时间， 毫秒
+     * @param watchdog   是否由 LeaseWatchdog 自动续期
+     */
+    public RedisReentrantLock(String key, int expireTime, boolean watchdog) {
+        this.key = key;
+        this.expireTime = expireTime;
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public void lock() {
+        if (reenter()) {
+            return;
+        }
+        hold(waiter().awaitUninterruptibly(attempt()));
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (reenter()) {
+            return;
+        }
+        hold(waiter().await(attempt(), -1L, true));
+    }
+
+    @Override
+    public boolean tryLock() {
+        try {
+            return tryLock(0L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (reenter()) {
+            return true;
+        }
+        return hold(waiter().await(attempt(), Math.max(0L, unit.toNanos(time)), true));
+    }
+
+    /**
+     * 解锁一次， 本实例上的重入次数减到 0 时才访问 Redis
+     */
+    @Override
+    public void unlock() {
+        if (owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("redis lock not held by current thread, key =" + key);
+        }
+        if (--holds > 0) {
+            return;
+        }
+        LockHandle current = handle;
+        handle = null;
+        owner = null;
+        Long result;
+        Jedis jedis = RedisClient.getPool().getResource();
+        try {
+            result = RedisTool.releaseReentrantLock(jedis, key, current.getOwner(), expireTime);
+        } finally {
+            jedis.close();
+        }
+        // 同一线程通过其他实例仍持有该锁时继续续期
+        if (watchdog && !Long.valueOf(0L).equals(result)) {
+            LeaseWatchdog.getInstance().unregister(current);
+        }
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return 当前线程在本实例上是否持有该锁
+     */
+    public boolean isHeldByCurrentThread() {
+        return owner == Thread.currentThread();
+    }
+
+    /**
+     * @return 本实例上的重入次数， 非持有线程调用时返回 0
+     */
+    public int getHoldCount() {
+        return isHeldByCurrentThread() ? holds : 0;
+    }
+
+    private boolean reenter() {
+        if (owner != Thread.currentThread()) {
+            return false;
+        }
+        holds++;
+        return true;
+    }
+
+    private boolean hold(long start) {
+        if (start < 0) {
+            return false;
+        }
+        handle = new LockHandle(key, ownerId(), start + expireTime);
+        owner = Thread.currentThread();
+        holds = 1;
+        if (watchdog) {
+            LeaseWatchdog.getInstance().register(handle, expireTime);
+        }
+        return true;
+    }
+
+    /**
+     * 同一线程可能已经通过其他实例持有该锁， 不能使用 HeldKeyCache 跳过加锁
+     */
+    private LockWaiter waiter() {
+        return new LockWaiter(key, RedisTool.getLockChannel(key), false, expireTime);
+    }
+
+    private LockWaiter.Attempt attempt() {
+        final String requestId = ownerId();
+        return new LockWaiter.Attempt() {
+            @Override
+            Long tryLock() {
+                Jedis jedis = RedisClient.getPool().getResource();
+                try {
+                    return RedisTool.tryGetReentrantLock(jedis, key, requestId, expireTime);
+                } finally {
+                    jedis.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return 当前线程的持有者标识， 读写锁也使用同样的标识
+     */
+    static String ownerId() {
+        return JVM_ID + ":" + Thread.currentThread().getId();
+    }
+}
@@ -0,0 +1,103 @@
+package com.project;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.frame.FrameDecoder;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 解析 RESP 应答， 数据不完整时等待更多数据
+ * 状态回复为 String， 整数为 Long， 批量回复为 byte[]， 多条批量回复为 List， 空回复为 {@link #NULL}，
+ * 错误回复为 {@link JedisDataException}（NOSCRIPT 为 {@link JedisNoScriptException}）
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+class RedisReplyDecoder extends FrameDecoder {
+    /**
+     * 空回复， Netty 不能传递 null 消息
+     */
+    static final Object NULL = new Object();
+    /**
+     * 数据不完整
+     */
+    private static final Object INCOMPLETE = new Object();
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer) {
+        int start = buffer.readerIndex();
+        Object reply = parse(buffer);
+        if (reply == INCOMPLETE) {
+            buffer.readerIndex(start);
+            return null;
+        }
+        return reply;
+    }
+
+    private static Object parse(ChannelBuffer buffer) {
+        String line = readLine(buffer);
+        if (line == null) {
+            return INCOMPLETE;
+        }
+        char type = line.charAt(0);
+        String value = line.substring(1);
+        switch (type) {
+            case '+':
+                return value;
+            case '-':
+                return value.startsWith("NOSCRIPT") ? new JedisNoScriptException(value) : new JedisDataException(value);
+            case ':':
+                return Long.valueOf(value);
+            case '$': {
+                int length = Integer.parseInt(value);
+                if (length < 0) {
+                    return NULL;
+                }
+                if (buffer.readableBytes() < length + 2) {
+                    return INCOMPLETE;
+                }
+                byte[] bulk = new byte[length];
+                buffer.readBytes(bulk);
+                buffer.skipBytes(2);
+                return bulk;
+            }
+            case '*': {
+                int count = Integer.parseInt(value);
+                if (count < 0) {
+                    return NULL;
+                }
+                List<Object> replies = new ArrayList<Object>(count);
+                for (int i = 0; i < count; i++) {
+                    Object reply = parse(buffer);
+                    if (reply == INCOMPLETE) {
+                        return INCOMPLETE;
+                    }
+                    replies.add(reply == NULL ? null : reply);
+                }
+                return replies;
+            }
+            default:
+                throw new JedisDataException("unknown reply: " + line);
+        }
+    }
+
+    /**
+     * @return 去掉 CRLF 的一行， 数据不完整时返回 null
+     */
+    private static String readLine(ChannelBuffer buffer) {
+        int end = buffer.indexOf(buffer.readerIndex(), buffer.writerIndex(), (byte) '\n');
+        if (end < 0) {
+            return null;
+        }
+        byte[] line = new byte[end - buffer.readerIndex() - 1];
+        buffer.readBytes(line);
+        buffer.skipBytes(2);
+        return SafeEncoder.encode(line);
+    }
+}
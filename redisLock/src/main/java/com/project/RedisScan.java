@@ -0,0 +1,253 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.util.Pool;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于游标的遍历（SCAN / HSCAN / SSCAN / ZSCAN）， 每次只取一页， 服务端每次只做 COUNT 量级的工作，
+ * 不会像 KEYS、 HGETALL 那样长时间阻塞事件循环
+ * 每取一页借还一次连接， 不长期占用连接； 遍历期间有修改时同一元素可能出现多次， 调用方需要时自行去重
+ * 取页失败时迭代器抛出 {@link redis.clients.jedis.exceptions.JedisException}
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public abstract class RedisScan<T> implements Iterable<T> {
+    /**
+     * 默认每页的 COUNT
+     */
+    public static final int DEFAULT_COUNT = 1000;
+    private static final String START = ScanParams.SCAN_POINTER_START;
+
+    private final Pool<Jedis> pool;
+    private final ScanParams params;
+
+    /**
+     * @param pattern MATCH 参数， 为 null 时不过滤
+     * @param count   每页的 COUNT， 只是给服务端的提示， 实际条数可能更多或更少
+     */
+    protected RedisScan(Pool<Jedis> pool, String pattern, int count) {
+        this.pool = pool;
+        this.params = new ScanParams().count(count);
+        if (pattern != null) {
+            this.params.match(pattern);
+        }
+    }
+
+    /**
+     * 取一页
+     */
+    protected abstract ScanResult<T> scan(Jedis jedis, String cursor, ScanParams params);
+
+    /**
+     * 遍历 key， 对应 KEYS
+     */
+    public static RedisScan<String> keys(Pool<Jedis> pool, String pattern, int count) {
+        return new RedisScan<String>(pool, pattern, count) {
+            @Override
+            protected ScanResult<String> scan(Jedis jedis, String cursor, ScanParams params) {
+                return jedis.scan(cursor, params);
+            }
+        };
+    }
+
+    /**
+     * 遍历 hash 的 field -> value， 对应 HGETALL
+     */
+    public static RedisScan<Map.Entry<String, String>> hash(Pool<Jedis> pool, final String key, String pattern, int count) {
+        return new RedisScan<Map.Entry<String, String>>(pool, pattern, count) {
+            @Override
+            protected ScanResult<Map.Entry<String, String>> scan(Jedis jedis, String cursor, ScanParams params) {
+                return jedis.hscan(key, cursor, params);
+            }
+        };
+    }
+
+    /**
+     * 遍历集合成员， 对应 SMEMBERS
+     */
+    public static RedisScan<String> set(Pool<Jedis> pool, final String key, String pattern, int count) {
+        return new RedisScan<String>(pool, pattern, count) {
+            @Override
+            protected ScanResult<String> scan(Jedis jedis, String cursor, ScanParams params) {
+                return jedis.sscan(key, cursor, params);
+            }
+        };
+    }
+
+    /**
+     * 遍历有序集合的成员和分数， 不保证按分数排序
+     */
+    public static RedisScan<Tuple> sortedSet(Pool<Jedis> pool, final String key, String pattern, int count) {
+        return new RedisScan<Tuple>(pool, pattern, count) {
+            @Override
+            protected ScanResult<Tuple> scan(Jedis jedis, String cursor, ScanParams params) {
+                return jedis.zscan(key, cursor, params);
+            }
+        };
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    /**
+     * 顺序流， 按需取页； 需要并行处理时用 {@link #forEach(int, Consumer)}，
+     * 对该流调用 parallel() 会把元素按越来越大的数组切分， 内存不再有界
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL), false);
+    }
+
+    /**
+     * 当前线程取页， parallelism 个线程并行处理， 最多缓存 parallelism 页
+     * 某个元素处理异常时停止取页， 其余线程处理完手上的页后结束， 异常在当前线程重新抛出；
+     * 当前线程被中断时同样停止， 等处理线程结束后保留中断状态并抛出 InterruptedException
+     *
+     * @param parallelism 处理线程数， 不大于 1 时在当前线程顺序处理
+     */
+    public void forEach(int parallelism, final Consumer<? super T> action) throws InterruptedException {
+        if (parallelism <= 1) {
+            forEach(action);
+            return;
+        }
+        final List<T> end = Collections.emptyList();
+        final BlockingQueue<List<T>> pages = new ArrayBlockingQueue<List<T>>(parallelism);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] workers = new Thread[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (true) {
+                        List<T> page;
+                        try {
+                            page = pages.take();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (page == end) {
+                            return;
+                        }
+                        try {
+                            if (failure.get() == null) {
+                                for (T value : page) {
+                                    action.accept(value);
+                                }
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }
+                }
+            }, "redis-scan-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        InterruptedException interrupted = null;
+        try {
+            String cursor = START;
+            do {
+                ScanResult<T> page = page(cursor);
+                if (!page.getResult().isEmpty()) {
+                    pages.put(page.getResult());
+                }
+                cursor = page.getStringCursor();
+            } while (!START.equals(cursor) && failure.get() == null);
+        } catch (InterruptedException e) {
+            interrupted = e;
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            if (interrupted != null || failure.get() != null) {
+                pages.clear();
+            }
+            // 队列容量等于线程数， 清空后一定放得下
+            for (int i = 0; i < parallelism; i++) {
+                while (!pages.offer(end)) {
+                    Thread.yield();
+                }
+            }
+        }
+        // 处理线程结束前不返回， 避免方法结束后 action 仍在执行
+        for (Thread worker : workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    if (interrupted == null) {
+                        interrupted = e;
+                    }
+                }
+            }
+        }
+        if (interrupted != null) {
+            Thread.currentThread().interrupt();
+            throw interrupted;
+        }
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+    }
+
+    private ScanResult<T> page(String cursor) {
+        Jedis jedis = pool.getResource();
+        try {
+            return scan(jedis, cursor, params);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    /**
+     * 当前页用完后才取下一页， 最多持有一页
+     */
+    private class PageIterator implements Iterator<T> {
+        private Iterator<T> current = Collections.<T>emptyList().iterator();
+        private String cursor = START;
+        private boolean finished;
+
+        @Override
+        public boolean hasNext() {
+            // 服务端可能返回空页， 游标未回到起点前继续取
+            while (!current.hasNext() && !finished) {
+                ScanResult<T> page = page(cursor);
+                cursor = page.getStringCursor();
+                finished = START.equals(cursor);
+                current = page.getResult().iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Lua 脚本， 通过 EVALSHA 调用， 只传 sha1 而不是整段脚本
+ * 服务端没有缓存该脚本时（重启、主从切换后）退回 EVAL， EVAL 同时会把脚本缓存到服务端
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class RedisScript {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String script;
+    private final String sha;
+
+    public RedisScript(String script) {
+        this.script = script;
+        this.sha = sha1(script);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public String getSha() {
+        return sha;
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @param jedis Redis客户端
+     * @param keys  KEYS
+     * @param args  ARGV
+     * @return 脚本返回值
+     */
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(script, keys, args);
+        }
+    }
+
+    /**
+     * SCRIPT LOAD， 预先把脚本缓存到服务端
+     *
+     * @param jedis Redis客户端
+     */
+    public void load(Jedis jedis) {
+        jedis.scriptLoad(script);
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(UTF_8));
+            char[] chars = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                chars[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+                chars[i * 2 + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
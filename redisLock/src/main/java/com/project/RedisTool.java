@@ -1,8 +1,17 @@
 package com.project;
 
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.util.SafeEncoder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * @author haochen
@@ -10,11 +19,207 @@ import java.util.Collections;
  */
 public class RedisTool {
     private static final Long RELEASE_SUCCESS = 1L;
+    private static final Long SCRIPT_LOCK_SUCCESS = 1L;
+    private static final Long RENEW_SUCCESS = 1L;
 
     private static final String LOCK_SUCCESS = "OK";
     private static final String SET_IF_NOT_EXIST = "NX";
     private static final String SET_WITH_EXPIRE_TIME = "PX";
 
+    /**
+     * 锁释放通知的 channel 前缀， 释放锁时向 前缀 + lockKey 发布消息
+     */
+    private static final String LOCK_CHANNEL_PREFIX = "redis_lock__channel:";
+    /**
+     * 公平锁的等待队列， list 保存排队顺序
+     */
+    private static final String FAIR_QUEUE_PREFIX = "redis_lock__queue:";
+    /**
+     * 公平锁的排队超时， zset 保存每个等待者的过期时间点， 等待者崩溃后按此出队
+     */
+    private static final String FAIR_TIMEOUT_PREFIX = "redis_lock__timeout:";
+
+    /**
+     * 清理队首已超时的等待者， 锁空闲且队首是自己（或队列为空）时加锁， 否则排到队尾并刷新排队超时
+     */
+    private static final RedisScript FAIR_LOCK_SCRIPT = ScriptRegistry.register("while true do "
+            + "local first = redis.call('lindex', KEYS[2], 0) "
+            + "if not first then break end "
+            + "local timeout = redis.call('zscore', KEYS[3], first) "
+            + "if timeout and tonumber(timeout) > tonumber(ARGV[4]) then break end "
+            + "redis.call('lpop', KEYS[2]) "
+            + "redis.call('zrem', KEYS[3], first) "
+            + "end "
+            + "local first = redis.call('lindex', KEYS[2], 0) "
+            + "if redis.call('exists', KEYS[1]) == 0 and ((not first) or first == ARGV[1]) then "
+            + "if first then redis.call('lpop', KEYS[2]) redis.call('zrem', KEYS[3], ARGV[1]) end "
+            + "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+            + "return 1 "
+            + "end "
+            + "if not redis.call('zscore', KEYS[3], ARGV[1]) then redis.call('rpush', KEYS[2], ARGV[1]) end "
+            + "redis.call('zadd', KEYS[3], tonumber(ARGV[4]) + tonumber(ARGV[3]), ARGV[1]) "
+            + "redis.call('pexpire', KEYS[2], ARGV[3]) "
+            + "redis.call('pexpire', KEYS[3], ARGV[3]) "
+            + "return 0");
+
+    /**
+     * 释放公平锁， 只通知队首的等待者
+     */
+    private static final RedisScript FAIR_RELEASE_SCRIPT = ScriptRegistry.register("if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end "
+            + "redis.call('del', KEYS[1]) "
+            + "local first = redis.call('lindex', KEYS[2], 0) "
+            + "if first then redis.call('publish', ARGV[2] .. ':' .. first, ARGV[1]) end "
+            + "return 1");
+
+    /**
+     * 放弃排队， 如果放弃的是队首且锁空闲， 通知新的队首
+     */
+    private static final RedisScript FAIR_CANCEL_SCRIPT = ScriptRegistry.register("local first = redis.call('lindex', KEYS[2], 0) "
+            + "redis.call('lrem', KEYS[2], 0, ARGV[1]) "
+            + "redis.call('zrem', KEYS[3], ARGV[1]) "
+            + "if first == ARGV[1] and redis.call('exists', KEYS[1]) == 0 then "
+            + "local next = redis.call('lindex', KEYS[2], 0) "
+            + "if next then redis.call('publish', ARGV[2] .. ':' .. next, ARGV[1]) end "
+            + "end "
+            + "return 1");
+
+    /**
+     * 释放锁并发布释放通知
+     */
+    private static final RedisScript RELEASE_SCRIPT = ScriptRegistry.register("if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "redis.call('del', KEYS[1]); redis.call('publish', ARGV[2], ARGV[1]); return 1 "
+            + "else return 0 end");
+
+    /**
+     * 加锁， 失败时在同一次调用中返回持有者剩余的租约
+     */
+    private static final RedisScript LOCK_SCRIPT = ScriptRegistry.register("if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then "
+            + "return nil end "
+            + "return redis.call('pttl', KEYS[1])");
+
+    /**
+     * 可重入锁， hash 中保存 requestId -> 重入次数， 锁空闲或已由自己持有时重入次数加一
+     */
+    private static final RedisScript REENTRANT_LOCK_SCRIPT = ScriptRegistry.register("if redis.call('exists', KEYS[1]) == 0 "
+            + "or redis.call('hexists', KEYS[1], ARGV[1]) == 1 then "
+            + "redis.call('hincrby', KEYS[1], ARGV[1], 1) "
+            + "redis.call('pexpire', KEYS[1], ARGV[2]) "
+            + "return nil end "
+            + "return redis.call('pttl', KEYS[1])");
+
+    /**
+     * 释放可重入锁， 重入次数减到 0 时删除并发布释放通知
+     */
+    private static final RedisScript REENTRANT_RELEASE_SCRIPT = ScriptRegistry.register("if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then "
+            + "return nil end "
+            + "if redis.call('hincrby', KEYS[1], ARGV[1], -1) > 0 then "
+            + "redis.call('pexpire', KEYS[1], ARGV[2]) return 0 end "
+            + "redis.call('del', KEYS[1]) "
+            + "redis.call('publish', ARGV[3], ARGV[1]) "
+            + "return 1");
+
+    /**
+     * 读写锁中等待加写锁的标记， 存在时新的读者不能加锁（写优先）
+     */
+    private static final String WRITE_WAIT_PREFIX = "redis_lock__wwait:";
+
+    /**
+     * 读锁， hash 中 mode 字段为 read/write， 其余字段为 requestId -> 重入次数
+     * 已持有读锁或写锁的 requestId 可以直接重入； 有写者在等待时新的读者返回写等待标记的剩余时间
+     */
+    private static final RedisScript READ_LOCK_SCRIPT = ScriptRegistry.register("local mode = redis.call('hget', KEYS[1], 'mode') "
+            + "local held = redis.call('hexists', KEYS[1], ARGV[1]) == 1 "
+            + "if mode == 'write' and not held then return redis.call('pttl', KEYS[1]) end "
+            + "if mode ~= 'write' and not held and redis.call('exists', KEYS[2]) == 1 then "
+            + "return redis.call('pttl', KEYS[2]) end "
+            + "redis.call('hsetnx', KEYS[1], 'mode', 'read') "
+            + "redis.call('hincrby', KEYS[1], ARGV[1], 1) "
+            + "if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then redis.call('pexpire', KEYS[1], ARGV[2]) end "
+            + "return nil");
+
+    /**
+     * 写锁， 锁空闲时加锁并清除自己的写等待标记， 已持有写锁时重入；
+     * 否则设置写等待标记（已有其他写者的标记时不覆盖）， 返回锁的剩余租约
+     */
+    private static final RedisScript WRITE_LOCK_SCRIPT = ScriptRegistry.register("local mode = redis.call('hget', KEYS[1], 'mode') "
+            + "if not mode then "
+            + "redis.call('hset', KEYS[1], 'mode', 'write') "
+            + "redis.call('hset', KEYS[1], ARGV[1], 1) "
+            + "redis.call('pexpire', KEYS[1], ARGV[2]) "
+            + "if redis.call('get', KEYS[2]) == ARGV[1] then redis.call('del', KEYS[2]) end "
+            + "return nil end "
+            + "if mode == 'write' and redis.call('hexists', KEYS[1], ARGV[1]) == 1 then "
+            + "redis.call('hincrby', KEYS[1], ARGV[1], 1) "
+            + "redis.call('pexpire', KEYS[1], ARGV[2]) "
+            + "return nil end "
+            + "local marker = redis.call('get', KEYS[2]) "
+            + "if (not marker) or marker == ARGV[1] then redis.call('set', KEYS[2], ARGV[1], 'PX', ARGV[3]) end "
+            + "return redis.call('pttl', KEYS[1])");
+
+    /**
+     * 写者放弃等待， 清除自己的写等待标记并唤醒被标记挡住的读者
+     */
+    private static final RedisScript WRITE_CANCEL_SCRIPT = ScriptRegistry.register("if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "redis.call('del', KEYS[1]) redis.call('publish', ARGV[2], ARGV[3]) end "
+            + "return 1");
+
+    /**
+     * 释放一次读锁或写锁， 没有任何持有者时删除锁并发布广播通知， 等待的读者可以一起加锁
+     */
+    private static final RedisScript READ_WRITE_RELEASE_SCRIPT = ScriptRegistry.register("if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then "
+            + "return nil end "
+            + "if redis.call('hincrby', KEYS[1], ARGV[1], -1) <= 0 then redis.call('hdel', KEYS[1], ARGV[1]) end "
+            + "if redis.call('hlen', KEYS[1]) > 1 then return 0 end "
+            + "redis.call('del', KEYS[1]) "
+            + "redis.call('publish', ARGV[2], ARGV[3]) "
+            + "return 1");
+
+    /**
+     * 同时锁住多个 key， 全部空闲时一起加锁， 否则一个都不加， 返回 {第一个被占用的 key 的下标（从 0 开始）, 剩余租约}
+     */
+    private static final RedisScript MULTI_LOCK_SCRIPT = ScriptRegistry.register("for i = 1, #KEYS do "
+            + "if redis.call('exists', KEYS[i]) == 1 then return {i - 1, redis.call('pttl', KEYS[i])} end "
+            + "end "
+            + "for i = 1, #KEYS do redis.call('set', KEYS[i], ARGV[1], 'PX', ARGV[2]) end "
+            + "return nil");
+
+    /**
+     * 尽量多地锁住 key， 返回加锁成功的 key
+     */
+    private static final RedisScript MULTI_LOCK_ANY_SCRIPT = ScriptRegistry.register("local acquired = {} "
+            + "for i = 1, #KEYS do "
+            + "if redis.call('set', KEYS[i], ARGV[1], 'NX', 'PX', ARGV[2]) then acquired[#acquired + 1] = KEYS[i] end "
+            + "end "
+            + "return acquired");
+
+    /**
+     * 释放多个 key 中属于 requestId 的锁， 并分别发布释放通知， 返回释放的个数
+     */
+    private static final RedisScript MULTI_RELEASE_SCRIPT = ScriptRegistry.register("local released = 0 "
+            + "for i = 1, #KEYS do "
+            + "if redis.call('get', KEYS[i]) == ARGV[1] then "
+            + "redis.call('del', KEYS[i]) redis.call('publish', ARGV[2] .. KEYS[i], ARGV[1]) released = released + 1 end "
+            + "end "
+            + "return released");
+
+    /**
+     * 批量续期， ARGV 依次为每个锁的 requestId 和过期时间， 只续期仍由自己持有的锁，
+     * 字符串类型的锁比较 value， hash 类型的锁（可重入锁）检查 requestId 字段
+     */
+    private static final RedisScript RENEW_SCRIPT = ScriptRegistry.register("local result = {} "
+            + "for i = 1, #KEYS do "
+            + "local t = redis.call('type', KEYS[i])['ok'] "
+            + "if (t == 'string' and redis.call('get', KEYS[i]) == ARGV[i * 2 - 1]) "
+            + "or (t == 'hash' and redis.call('hexists', KEYS[i], ARGV[i * 2 - 1]) == 1) then "
+            + "redis.call('pexpire', KEYS[i], ARGV[i * 2]) result[i] = 1 "
+            + "else result[i] = 0 end "
+            + "end "
+            + "return result");
+    /**
+     * 批量续期时每次脚本调用包含的锁个数， 避免单个脚本执行过久阻塞服务端
+     */
+    private static final int RENEW_BATCH_SIZE = 500;
+
     /**
      * 尝试获取分布式锁
      *
@@ -36,16 +241,289 @@ public class RedisTool {
     }
 
     /**
-     * 释放分布式锁
+     * 尝试获取分布式锁， 失败时返回当前持有者剩余的租约， 用于安排下一次重试的时间
+     *
      * @param jedis Redis客户端
      * @param lockKey 锁
      * @param requestId 请求标识
+     * @param expireTime 超期时间
+     * @return 获取成功返回 null， 否则返回剩余租约（毫秒）， 锁没有设置过期时间时返回 -1
+     */
+    public static Long tryGetDistributedLockWithTtl(Jedis jedis, String lockKey, String requestId, int expireTime) {
+
+        Object result = LOCK_SCRIPT.eval(jedis, Collections.singletonList(lockKey),
+                Arrays.asList(requestId, String.valueOf(expireTime)));
+
+        return (Long) result;
+
+    }
+
+    /**
+     * 异步尝试获取分布式锁， 语义同 {@link #tryGetDistributedLockWithTtl(Jedis, String, String, int)}
+     *
+     * @param connection 非阻塞连接
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     * @param expireTime 超期时间
+     * @return 获取成功时结果为 null， 否则为持有者剩余的租约（毫秒）
+     */
+    public static CompletableFuture<Long> tryGetDistributedLockAsync(AsyncRedisConnection connection, String lockKey,
+                                                                     String requestId, int expireTime) {
+
+        return connection.eval(LOCK_SCRIPT, Collections.singletonList(lockKey),
+                Arrays.asList(requestId, String.valueOf(expireTime))).thenApply(new Function<Object, Long>() {
+            @Override
+            public Long apply(Object result) {
+                return (Long) result;
+            }
+        });
+
+    }
+
+    /**
+     * 异步释放分布式锁， 语义同 {@link #releaseDistributedLock(Jedis, String, String)}
+     *
+     * @param connection 非阻塞连接
+     * @param lockKey 锁
+     * @param requestId 请求标识
      * @return 是否释放成功
      */
-    public static boolean releaseDistributedLock(Jedis jedis, String lockKey, String requestId) {
+    public static CompletableFuture<Boolean> releaseDistributedLockAsync(AsyncRedisConnection connection, String lockKey,
+                                                                         String requestId) {
 
-        String script = "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
-        Object result = jedis.eval(script, Collections.singletonList(lockKey), Collections.singletonList(requestId));
+        return connection.eval(RELEASE_SCRIPT, Collections.singletonList(lockKey),
+                Arrays.asList(requestId, getLockChannel(lockKey))).thenApply(new Function<Object, Boolean>() {
+            @Override
+            public Boolean apply(Object result) {
+                return RELEASE_SUCCESS.equals(result);
+            }
+        });
+
+    }
+
+    /**
+     * 尝试获取可重入锁， 已由同一个 requestId 持有时重入次数加一并刷新过期时间
+     *
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识， 同一持有者重入时必须相同
+     * @param expireTime 超期时间
+     * @return 获取成功返回 null， 否则返回剩余租约（毫秒）
+     */
+    public static Long tryGetReentrantLock(Jedis jedis, String lockKey, String requestId, int expireTime) {
+
+        Object result = REENTRANT_LOCK_SCRIPT.eval(jedis, Collections.singletonList(lockKey),
+                Arrays.asList(requestId, String.valueOf(expireTime)));
+
+        return (Long) result;
+
+    }
+
+    /**
+     * 释放一次可重入锁， 重入次数减到 0 时删除锁并发布释放通知
+     *
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     * @param expireTime 仍有剩余重入次数时刷新的超期时间
+     * @return 1 锁已删除， 0 仍有剩余重入次数， null 锁不由该 requestId 持有
+     */
+    public static Long releaseReentrantLock(Jedis jedis, String lockKey, String requestId, int expireTime) {
+
+        Object result = REENTRANT_RELEASE_SCRIPT.eval(jedis, Collections.singletonList(lockKey),
+                Arrays.asList(requestId, String.valueOf(expireTime), getLockChannel(lockKey)));
+
+        return (Long) result;
+
+    }
+
+    /**
+     * 尝试获取读锁， 读者之间不互斥， 有写者持有或等待时失败
+     *
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     * @param expireTime 超期时间， 所有读者共用一个租约， 只会延长不会缩短
+     * @return 获取成功返回 null， 否则返回建议的重试等待时间（毫秒）
+     */
+    public static Long tryGetReadLock(Jedis jedis, String lockKey, String requestId, int expireTime) {
+
+        Object result = READ_LOCK_SCRIPT.eval(jedis, Arrays.asList(lockKey, WRITE_WAIT_PREFIX + lockKey),
+                Arrays.asList(requestId, String.valueOf(expireTime)));
+
+        return (Long) result;
+
+    }
+
+    /**
+     * 尝试获取写锁， 失败时留下写等待标记， 阻止新的读者加锁
+     *
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     * @param expireTime 超期时间， 写等待标记的有效期为其两倍， 等待者需在此之前重试
+     * @return 获取成功返回 null， 否则返回剩余租约（毫秒）
+     */
+    public static Long tryGetWriteLock(Jedis jedis, String lockKey, String requestId, int expireTime) {
+
+        Object result = WRITE_LOCK_SCRIPT.eval(jedis, Arrays.asList(lockKey, WRITE_WAIT_PREFIX + lockKey),
+                Arrays.asList(requestId, String.valueOf(expireTime), String.valueOf(expireTime * 2)));
+
+        return (Long) result;
+
+    }
+
+    /**
+     * 放弃等待写锁， 清除自己的写等待标记
+     *
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     */
+    public static void cancelWriteLock(Jedis jedis, String lockKey, String requestId) {
+
+        WRITE_CANCEL_SCRIPT.eval(jedis, Collections.singletonList(WRITE_WAIT_PREFIX + lockKey),
+                Arrays.asList(requestId, getLockChannel(lockKey), LockSubscriber.BROADCAST_MESSAGE));
+
+    }
+
+    /**
+     * 释放一次读锁或写锁
+     *
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     * @return 1 锁已删除， 0 仍有其他持有者或剩余重入次数， null 锁不由该 requestId 持有
+     */
+    public static Long releaseReadWriteLock(Jedis jedis, String lockKey, String requestId) {
+
+        Object result = READ_WRITE_RELEASE_SCRIPT.eval(jedis, Collections.singletonList(lockKey),
+                Arrays.asList(requestId, getLockChannel(lockKey), LockSubscriber.BROADCAST_MESSAGE));
+
+        return (Long) result;
+
+    }
+
+    /**
+     * 一次往返同时锁住多个 key， 要么全部成功要么全部失败， 不同客户端以不同顺序加锁也不会死锁
+     *
+     * @param jedis Redis客户端
+     * @param lockKeys 锁
+     * @param requestId 请求标识
+     * @param expireTime 超期时间
+     * @return 获取成功返回 null， 否则返回 [第一个被占用的 key 在 lockKeys 中的下标, 剩余租约（毫秒）]
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Long> tryGetMultiLock(Jedis jedis, List<String> lockKeys, String requestId, int expireTime) {
+
+        Object result = MULTI_LOCK_SCRIPT.eval(jedis, lockKeys, Arrays.asList(requestId, String.valueOf(expireTime)));
+
+        return (List<Long>) result;
+
+    }
+
+    /**
+     * 一次往返尽量多地锁住 key， 已被占用的跳过
+     *
+     * @param jedis Redis客户端
+     * @param lockKeys 锁
+     * @param requestId 请求标识
+     * @param expireTime 超期时间
+     * @return 加锁成功的 key， 按 lockKeys 中的顺序
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> tryGetAnyLocks(Jedis jedis, List<String> lockKeys, String requestId, int expireTime) {
+
+        Object result = MULTI_LOCK_ANY_SCRIPT.eval(jedis, lockKeys, Arrays.asList(requestId, String.valueOf(expireTime)));
+
+        return (List<String>) result;
+
+    }
+
+    /**
+     * 一次往返释放多个 key 上的锁
+     *
+     * @param jedis Redis客户端
+     * @param lockKeys 锁
+     * @param requestId 请求标识
+     * @return 释放的个数， 租约已过期或已被他人持有的 key 不计入
+     */
+    public static long releaseMultiLock(Jedis jedis, List<String> lockKeys, String requestId) {
+
+        Object result = MULTI_RELEASE_SCRIPT.eval(jedis, lockKeys, Arrays.asList(requestId, LOCK_CHANNEL_PREFIX));
+
+        return (Long) result;
+
+    }
+
+    /**
+     * 把锁相关的 Lua 脚本缓存到服务端， 之后加锁、解锁都只传 sha1
+     *
+     * @param jedis Redis客户端
+     * @return 加载的脚本个数
+     */
+    public static int preloadScripts(Jedis jedis) {
+        return ScriptRegistry.preload(jedis);
+    }
+
+    /**
+     * 锁释放通知的 channel
+     *
+     * @param lockKey 锁
+     * @return channel 名称
+     */
+    public static String getLockChannel(String lockKey) {
+        return LOCK_CHANNEL_PREFIX + lockKey;
+    }
+
+    /**
+     * 公平锁中某个等待者专属的 channel， 锁只会交接给队首， 因此只通知队首
+     *
+     * @param lockKey 锁
+     * @param requestId 等待者的请求标识
+     * @return channel 名称
+     */
+    public static String getFairLockChannel(String lockKey, String requestId) {
+        return getLockChannel(lockKey) + ":" + requestId;
+    }
+
+    /**
+     * 尝试获取公平锁， 获取失败时进入等待队列
+     * 排队超时依赖客户端时钟， 各客户端之间的时钟偏差需远小于 queueTimeout
+     *
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     * @param expireTime 超期时间
+     * @param queueTimeout 排队超时， 等待者必须在此时间内再次调用， 否则视为已放弃并出队
+     * @return 是否获取成功
+     */
+    public static boolean tryGetFairLock(Jedis jedis, String lockKey, String requestId, int expireTime, int queueTimeout) {
+
+        Object result = FAIR_LOCK_SCRIPT.eval(jedis,
+                Arrays.asList(lockKey, FAIR_QUEUE_PREFIX + lockKey, FAIR_TIMEOUT_PREFIX + lockKey),
+                Arrays.asList(requestId, String.valueOf(expireTime), String.valueOf(queueTimeout),
+                        String.valueOf(System.currentTimeMillis())));
+
+        if (SCRIPT_LOCK_SUCCESS.equals(result)) {
+            return true;
+        }
+        return false;
+
+    }
+
+    /**
+     * 释放公平锁， 并通知队首的等待者
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     * @return 是否释放成功
+     */
+    public static boolean releaseFairLock(Jedis jedis, String lockKey, String requestId) {
+
+        Object result = FAIR_RELEASE_SCRIPT.eval(jedis,
+                Arrays.asList(lockKey, FAIR_QUEUE_PREFIX + lockKey),
+                Arrays.asList(requestId, getLockChannel(lockKey)));
 
         if (RELEASE_SUCCESS.equals(result)) {
             return true;
@@ -54,5 +532,86 @@ public class RedisTool {
 
     }
 
+    /**
+     * 放弃等待公平锁， 从等待队列中移除
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     */
+    public static void cancelFairLock(Jedis jedis, String lockKey, String requestId) {
+
+        FAIR_CANCEL_SCRIPT.eval(jedis,
+                Arrays.asList(lockKey, FAIR_QUEUE_PREFIX + lockKey, FAIR_TIMEOUT_PREFIX + lockKey),
+                Arrays.asList(requestId, getLockChannel(lockKey)));
+
+    }
+
+    /**
+     * 释放分布式锁， 释放成功后向 {@link #getLockChannel(String)} 发布通知， 唤醒等待的线程
+     * @param jedis Redis客户端
+     * @param lockKey 锁
+     * @param requestId 请求标识
+     * @return 是否释放成功
+     */
+    public static boolean releaseDistributedLock(Jedis jedis, String lockKey, String requestId) {
+
+        Object result = RELEASE_SCRIPT.eval(jedis, Collections.singletonList(lockKey), Arrays.asList(requestId, getLockChannel(lockKey)));
 
+        if (RELEASE_SUCCESS.equals(result)) {
+            return true;
+        }
+        return false;
+
+    }
+
+    /**
+     * 批量续期分布式锁， 按 RENEW_BATCH_SIZE 分批调用续期脚本， 所有批次在一个 pipeline 中发出
+     *
+     * @param jedis Redis客户端
+     * @param lockKeys 锁
+     * @param requestIds 请求标识， 与 lockKeys 一一对应
+     * @param expireTimes 新的超期时间， 与 lockKeys 一一对应
+     * @return 每个锁是否续期成功， false 表示锁已过期或已被他人持有
+     */
+    public static boolean[] renewDistributedLocks(Jedis jedis, List<String> lockKeys, List<String> requestIds, List<Integer> expireTimes) {
+        boolean[] renewed = new boolean[lockKeys.size()];
+        if (lockKeys.isEmpty()) {
+            return renewed;
+        }
+        byte[] sha = SafeEncoder.encode(RENEW_SCRIPT.getSha());
+        List<Response<Object>> responses = new ArrayList<Response<Object>>();
+        Pipeline pipeline = jedis.pipelined();
+        for (int from = 0; from < lockKeys.size(); from += RENEW_BATCH_SIZE) {
+            int to = Math.min(from + RENEW_BATCH_SIZE, lockKeys.size());
+            List<byte[]> keys = new ArrayList<byte[]>(to - from);
+            List<byte[]> args = new ArrayList<byte[]>((to - from) * 2);
+            for (int i = from; i < to; i++) {
+                keys.add(SafeEncoder.encode(lockKeys.get(i)));
+                args.add(SafeEncoder.encode(requestIds.get(i)));
+                args.add(SafeEncoder.encode(String.valueOf(expireTimes.get(i))));
+            }
+            responses.add(pipeline.evalsha(sha, keys, args));
+        }
+        pipeline.sync();
+        int index = 0;
+        for (int batch = 0; batch < responses.size(); batch++) {
+            List<?> result;
+            try {
+                result = (List<?>) responses.get(batch).get();
+            } catch (JedisNoScriptException e) {
+                int from = batch * RENEW_BATCH_SIZE;
+                int to = Math.min(from + RENEW_BATCH_SIZE, lockKeys.size());
+                List<String> args = new ArrayList<String>((to - from) * 2);
+                for (int i = from; i < to; i++) {
+                    args.add(requestIds.get(i));
+                    args.add(String.valueOf(expireTimes.get(i)));
+                }
+                result = (List<?>) RENEW_SCRIPT.eval(jedis, lockKeys.subList(from, to), args);
+            }
+            for (Object item : result) {
+                renewed[index++] = RENEW_SUCCESS.equals(item);
+            }
+        }
+        return renewed;
+    }
 }
@@ -0,0 +1,301 @@
+package com.project;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.Pool;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 只读命令的副本路由， 读请求按策略分发到从节点， 主节点只承担锁和写命令
+ * 从节点列表可以静态配置， 也可以通过 Sentinel 发现并定时刷新； 没有可用从节点或从节点连接失败时回退到主节点
+ * 从节点的数据有复制延迟， 写后立即读需要读到新值的场景不要走副本
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class ReplicaRouter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+    /**
+     * 从 Sentinel 刷新从节点列表的间隔， 毫秒
+     */
+    private static final long REFRESH_INTERVAL = 5000L;
+    /**
+     * 从节点连接失败后暂停路由的时间， 毫秒
+     */
+    private static final long DOWN_INTERVAL = 1000L;
+    /**
+     * 延迟滑动平均中新样本的权重
+     */
+    private static final double EWMA_WEIGHT = 0.2;
+
+    /**
+     * 从节点的选择策略
+     */
+    public enum ReadPolicy {
+        /**
+         * 轮流
+         */
+        ROUND_ROBIN,
+        /**
+         * 在途请求最少
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * 随机取两个， 选 平均延迟 * (在途请求 + 1) 较小的
+         */
+        LATENCY_AWARE
+    }
+
+    private final Pool<Jedis> master;
+    private final ReadPolicy policy;
+    private final GenericObjectPoolConfig poolConfig;
+    private final int timeout;
+    private final String password;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<Replica> replicas = Collections.emptyList();
+    private ScheduledExecutorService refresher;
+
+    /**
+     * 静态配置的从节点
+     *
+     * @param master   主节点连接池， 回退时使用
+     * @param replicas 从节点地址
+     * @param password 为 null 时不认证
+     */
+    public ReplicaRouter(Pool<Jedis> master, ReadPolicy policy, List<HostAndPort> replicas,
+                         GenericObjectPoolConfig poolConfig, int timeout, String password) {
+        this.master = master;
+        this.policy = policy;
+        this.poolConfig = poolConfig;
+        this.timeout = timeout;
+        this.password = password;
+        update(replicas);
+    }
+
+    /**
+     * 通过 Sentinel 发现从节点， 并在后台定时刷新
+     *
+     * @param sentinels  Sentinel 地址， host:port
+     * @param masterName 主节点名称
+     */
+    public ReplicaRouter(Pool<Jedis> master, ReadPolicy policy, final Set<String> sentinels, final String masterName,
+                         GenericObjectPoolConfig poolConfig, int timeout, String password) {
+        this(master, policy, Collections.<HostAndPort>emptyList(), poolConfig, timeout, password);
+        refresh(sentinels, masterName);
+        refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "redis-replica-refresher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        refresher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refresh(sentinels, masterName);
+            }
+        }, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在选中的从节点上执行只读命令， 从节点连接失败时在主节点上重试一次
+     * 命令本身的异常（如类型错误）直接抛出
+     */
+    public <T> T read(Function<Jedis, T> command) {
+        Replica replica = select();
+        if (replica == null) {
+            return execute(master, command);
+        }
+        replica.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            T result = execute(replica.pool, command);
+            replica.record(System.nanoTime() - start);
+            return result;
+        } catch (JedisConnectionException e) {
+            replica.downUntil = System.currentTimeMillis() + DOWN_INTERVAL;
+            logger.warn("redis replica read failed, fallback to master, replica = " + replica.address, e);
+            return execute(master, command);
+        } finally {
+            replica.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return 当前的从节点个数， 包括暂停路由的
+     */
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public ReadPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        List<Replica> current = replicas;
+        replicas = Collections.emptyList();
+        for (Replica replica : current) {
+            replica.pool.destroy();
+        }
+    }
+
+    private Replica select() {
+        List<Replica> current = replicas;
+        int size = current.size();
+        if (size == 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        switch (policy) {
+            case LEAST_OUTSTANDING: {
+                Replica best = null;
+                int offset = ThreadLocalRandom.current().nextInt(size);
+                for (int i = 0; i < size; i++) {
+                    Replica replica = current.get((offset + i) % size);
+                    if (replica.isUp(now) && (best == null || replica.outstanding.get() < best.outstanding.get())) {
+                        best = replica;
+                    }
+                }
+                return best;
+            }
+            case LATENCY_AWARE: {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Replica first = current.get(random.nextInt(size));
+                Replica second = current.get(random.nextInt(size));
+                if (!first.isUp(now)) {
+                    return second.isUp(now) ? second : firstUp(current, now, 0);
+                }
+                if (!second.isUp(now)) {
+                    return first;
+                }
+                return first.cost() <= second.cost() ? first : second;
+            }
+            default:
+                return firstUp(current, now, next.getAndIncrement() & Integer.MAX_VALUE);
+        }
+    }
+
+    private static Replica firstUp(List<Replica> replicas, long now, int offset) {
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((offset + i) % replicas.size());
+            if (replica.isUp(now)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static <T> T execute(Pool<Jedis> pool, Function<Jedis, T> command) {
+        Jedis jedis = pool.getResource();
+        try {
+            return command.apply(jedis);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    /**
+     * 从 Sentinel 读取健康的从节点， 任意一个 Sentinel 应答即可
+     */
+    private void refresh(Set<String> sentinels, String masterName) {
+        for (String sentinel : sentinels) {
+            HostAndPort address = HostAndPort.parseString(sentinel);
+            Jedis jedis = new Jedis(address.getHost(), address.getPort(), timeout);
+            try {
+                List<HostAndPort> found = new ArrayList<HostAndPort>();
+                for (Map<String, String> slave : jedis.sentinelSlaves(masterName)) {
+                    String flags = String.valueOf(slave.get("flags"));
+                    if (flags.contains("s_down") || flags.contains("o_down") || flags.contains("disconnected")
+                            || !"ok".equals(slave.get("master-link-status"))) {
+                        continue;
+                    }
+                    found.add(new HostAndPort(slave.get("ip"), Integer.parseInt(slave.get("port"))));
+                }
+                update(found);
+                return;
+            } catch (Exception e) {
+                logger.warn("redis sentinel query failed, sentinel = " + sentinel, e);
+            } finally {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * 替换从节点列表， 地址不变的沿用原有连接池
+     */
+    private synchronized void update(List<HostAndPort> addresses) {
+        Map<HostAndPort, Replica> existing = new HashMap<HostAndPort, Replica>();
+        for (Replica replica : replicas) {
+            existing.put(replica.address, replica);
+        }
+        List<Replica> updated = new ArrayList<Replica>(addresses.size());
+        for (HostAndPort address : addresses) {
+            Replica replica = existing.remove(address);
+            if (replica == null) {
+                replica = new Replica(address, new JedisPool(poolConfig, address.getHost(), address.getPort(), timeout, password));
+                logger.info("redis replica added, " + address);
+            }
+            updated.add(replica);
+        }
+        replicas = Collections.unmodifiableList(updated);
+        for (Replica removed : existing.values()) {
+            logger.info("redis replica removed, " + removed.address);
+            removed.pool.destroy();
+        }
+    }
+
+    private static class Replica {
+        private final HostAndPort address;
+        private final JedisPool pool;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        /**
+         * 延迟的滑动平均， 纳秒， 并发更新时丢失个别样本不影响
+         */
+        private volatile double latency;
+        private volatile long downUntil;
+
+        private Replica(HostAndPort address, JedisPool pool) {
+            this.address = address;
+            this.pool = pool;
+        }
+
+        private boolean isUp(long now) {
+            return downUntil <= now;
+        }
+
+        private void record(long nanos) {
+            double current = latency;
+            latency = current == 0 ? nanos : current + EWMA_WEIGHT * (nanos - current);
+        }
+
+        private double cost() {
+            return latency * (outstanding.get() + 1);
+        }
+    }
+}
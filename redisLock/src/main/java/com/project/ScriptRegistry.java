@@ -0,0 +1,45 @@
+package com.project;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Lua 脚本注册表， RedisTool 和 RedisClient 中用到的脚本都在这里注册，
+ * 启动时统一 SCRIPT LOAD， 之后只用 EVALSHA 调用
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public final class ScriptRegistry {
+    private static final List<RedisScript> SCRIPTS = new CopyOnWriteArrayList<RedisScript>();
+
+    private ScriptRegistry() {
+    }
+
+    /**
+     * 注册脚本
+     *
+     * @param script Lua 脚本
+     * @return 可通过 EVALSHA 调用的脚本
+     */
+    public static RedisScript register(String script) {
+        RedisScript redisScript = new RedisScript(script);
+        SCRIPTS.add(redisScript);
+        return redisScript;
+    }
+
+    /**
+     * 把已注册的脚本全部缓存到服务端
+     *
+     * @param jedis Redis客户端
+     * @return 加载的脚本个数
+     */
+    public static int preload(Jedis jedis) {
+        for (RedisScript script : SCRIPTS) {
+            script.load(jedis);
+        }
+        return SCRIPTS.size();
+    }
+}
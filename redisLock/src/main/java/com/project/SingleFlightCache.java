@@ -0,0 +1,213 @@
+package com.project;
+
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 防缓存击穿的 getOrCompute， 缓存失效时全局只有一个调用方执行 loader
+ * JVM 内同一个 key 只有一个线程（leader）去 Redis 竞争重算锁， 其他线程等待它的结果；
+ * JVM 之间拿到重算锁的 leader 执行 loader 并写回， 其他 leader 等待锁释放通知后直接读取新值
+ * 写回时同时保存一份过期时间更长的 stale 副本， 重算期间有 stale 副本的调用方立即返回旧值， 不必等待
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class SingleFlightCache {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightCache.class);
+    private static final String LOCK_SUFFIX = ":compute_lock";
+    private static final String STALE_SUFFIX = ":stale";
+    /**
+     * 重算锁的默认租约， 毫秒， 持有期间由 {@link LeaseWatchdog} 续期
+     */
+    private static final int DEFAULT_LOCK_EXPIRE = 3000;
+    /**
+     * stale 副本比正常值多保留的默认时间， 秒
+     */
+    private static final int DEFAULT_STALE_SECONDS = 60;
+
+    private final int lockExpire;
+    private final int staleSeconds;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<String, CompletableFuture<String>>();
+
+    public SingleFlightCache() {
+        this(DEFAULT_LOCK_EXPIRE, DEFAULT_STALE_SECONDS);
+    }
+
+    /**
+     * @param lockExpire   重算锁的租约， 毫秒
+     * @param staleSeconds stale 副本比正常值多保留的时间， 秒， 0 表示不保存 stale 副本， 重算期间所有调用方都等待
+     */
+    public SingleFlightCache(int lockExpire, int staleSeconds) {
+        this.lockExpire = lockExpire;
+        this.staleSeconds = staleSeconds;
+    }
+
+    /**
+     * 读取缓存， 不存在时全局只由一个调用方执行 loader 并写回
+     * Redis 不可用时退化为每个 JVM 执行一次 loader， 结果不写回
+     *
+     * @param ttl    写回的过期时间， 秒
+     * @param loader 返回 null 时不缓存
+     * @throws UncheckedExecutionException loader 抛出受检异常
+     */
+    public String getOrCompute(String key, int ttl, Callable<String> loader) {
+        String[] cached;
+        try {
+            cached = read(key);
+        } catch (JedisConnectionException e) {
+            logger.warn("redis single flight read failed, key =" + key, e);
+            cached = new String[2];
+        }
+        if (cached[0] != null) {
+            return cached[0];
+        }
+        CompletableFuture<String> promise = new CompletableFuture<String>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            String value = lead(key, ttl, loader, cached[1], promise);
+            promise.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            promise.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            promise.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, promise);
+        }
+    }
+
+    /**
+     * JVM 内的 leader， 在 Redis 上竞争重算锁
+     *
+     * @param stale 读到的 stale 副本， 有的话先让本地其他线程返回旧值
+     */
+    private String lead(final String key, int ttl, Callable<String> loader, final String stale,
+                        CompletableFuture<String> promise) {
+        if (stale != null) {
+            promise.complete(stale);
+        }
+        final String lockKey = key + LOCK_SUFFIX;
+        final String owner = UUID.randomUUID().toString();
+        final String[] found = new String[1];
+        long start;
+        try {
+            start = new LockWaiter(lockKey, RedisTool.getLockChannel(lockKey), false, lockExpire)
+                    .awaitUninterruptibly(new LockWaiter.Attempt() {
+                        @Override
+                        Long tryLock() {
+                            Jedis jedis = RedisClient.getPool().getResource();
+                            try {
+                                found[0] = jedis.get(key);
+                                if (found[0] != null) {
+                                    return null;
+                                }
+                                Long ttl = RedisTool.tryGetDistributedLockWithTtl(jedis, lockKey, owner, lockExpire);
+                                if (ttl != null && stale != null) {
+                                    // 别人正在重算， 返回旧值
+                                    found[0] = stale;
+                                    return null;
+                                }
+                                return ttl;
+                            } finally {
+                                jedis.close();
+                            }
+                        }
+                    });
+        } catch (JedisConnectionException e) {
+            logger.warn("redis single flight lock failed, key =" + key, e);
+            return call(loader);
+        }
+        if (found[0] != null) {
+            return found[0];
+        }
+        LockHandle handle = new LockHandle(lockKey, owner, start + lockExpire);
+        LeaseWatchdog.getInstance().register(handle, lockExpire);
+        boolean written = false;
+        try {
+            // 上一个持有者可能在我们读取之后、加锁之前写回并释放
+            String value = read(key)[0];
+            if (value != null) {
+                return value;
+            }
+            value = call(loader);
+            if (value != null) {
+                RedisBatch batch = RedisClient.batch().set(key, value, ttl);
+                if (staleSeconds > 0) {
+                    batch.set(key + STALE_SUFFIX, value, ttl + staleSeconds);
+                }
+                batch.execute();
+                written = true;
+            }
+            return value;
+        } finally {
+            LeaseWatchdog.getInstance().unregister(handle);
+            release(lockKey, owner, written);
+        }
+    }
+
+    /**
+     * @return 正常值和 stale 副本， 一次往返读取
+     */
+    private String[] read(String key) {
+        RedisBatch.Results results = RedisClient.batch().get(key).get(key + STALE_SUFFIX).execute();
+        return new String[]{results.getString(0), results.getString(1)};
+    }
+
+    /**
+     * @param written 已经写回新值， 广播唤醒所有等待者直接读取， 否则只唤醒一个等待者接手重算
+     */
+    private static void release(String lockKey, String owner, boolean written) {
+        Jedis jedis = null;
+        try {
+            jedis = RedisClient.getPool().getResource();
+            if (RedisTool.releaseDistributedLock(jedis, lockKey, owner) && written) {
+                jedis.publish(RedisTool.getLockChannel(lockKey), LockSubscriber.BROADCAST_MESSAGE);
+            }
+        } catch (Exception e) {
+            // 租约到期后自动释放
+            logger.error("redis single flight release failed, key =" + lockKey, e);
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    private static String call(Callable<String> loader) {
+        try {
+            return loader.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedExecutionException(e);
+        }
+    }
+
+    private static String join(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
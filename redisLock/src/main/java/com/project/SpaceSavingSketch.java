@@ -0,0 +1,185 @@
+package com.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 算法的 heavy hitters 统计， 只保留 capacity 个计数器， 内存固定
+ * 新 key 在计数器已满时替换当前计数最小的 key， 并继承它的计数作为误差上界， 因此：
+ * 真实计数 >= count - error， 真实计数超过总量 / capacity 的 key 一定在其中
+ * 计数器按最小堆组织， 每次更新 O(log capacity)
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class SpaceSavingSketch {
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    /**
+     * key -> 在堆中的下标
+     */
+    private final Map<String, Integer> index;
+    private int size;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.index = new HashMap<String, Integer>(capacity * 2);
+    }
+
+    public synchronized void add(String key, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        Integer position = index.get(key);
+        if (position != null) {
+            counts[position] += weight;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = weight;
+            errors[size] = 0L;
+            index.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        // 替换计数最小的 key
+        index.remove(keys[0]);
+        keys[0] = key;
+        errors[0] = counts[0];
+        counts[0] += weight;
+        index.put(key, 0);
+        siftDown(0);
+    }
+
+    /**
+     * @return 计数最大的 n 个 key， 按计数从大到小排列
+     */
+    public synchronized List<Entry> top(int n) {
+        List<Entry> entries = new ArrayList<Entry>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i], errors[i]));
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return Long.compare(o2.count, o1.count);
+            }
+        });
+        return entries.size() > n ? new ArrayList<Entry>(entries.subList(0, n)) : entries;
+    }
+
+    /**
+     * @return 计数器已满时最小的计数， 不在其中的 key 的真实计数不超过它， 未满时为 0
+     */
+    public synchronized long minCount() {
+        return size < capacity ? 0L : counts[0];
+    }
+
+    /**
+     * 所有计数和误差减半， 让不再热的 key 逐渐被替换， 减半不改变计数的相对顺序， 堆仍然有效
+     */
+    public synchronized void decay() {
+        for (int i = 0; i < size; i++) {
+            counts[i] >>>= 1;
+            errors[i] >>>= 1;
+        }
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+        index.clear();
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (counts[parent] <= counts[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        long error = errors[i];
+        errors[i] = errors[j];
+        errors[j] = error;
+        index.put(keys[i], i);
+        index.put(keys[j], j);
+    }
+
+    /**
+     * 一个 key 的估计计数， 真实计数在 [count - error, count] 之间
+     */
+    public static class Entry {
+        private final String key;
+        private final long count;
+        private final long error;
+
+        Entry(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + count + (error > 0 ? "(error=" + error + ")" : "");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按线程分成多个 {@link SpaceSavingSketch}， 同一个热点 key 的更新分散到不同的锁上， 读取时合并
+ * 合并时某个 key 不在一个已满的分片中， 它在该分片的真实计数不超过该分片的最小计数， 把最小计数同时计入 count 和 error，
+ * 合并后仍满足 真实计数 >= count - error
+ *
+ * @author haochen
+ * @date 2026/10/17 10:00 AM
+ */
+public class StripedSpaceSavingSketch {
+    private final SpaceSavingSketch[] stripes;
+    private final int mask;
+
+    /**
+     * @param capacity 每个分片的计数器个数
+     * @param stripes  分片数， 向上取整为 2 的幂
+     */
+    public StripedSpaceSavingSketch(int capacity, int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new SpaceSavingSketch[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new SpaceSavingSketch(capacity);
+        }
+        this.mask = size - 1;
+    }
+
+    public void add(String key, long weight) {
+        stripes[(int) Thread.currentThread().getId() & mask].add(key, weight);
+    }
+
+    /**
+     * @return 合并后计数最大的 n 个 key， 按计数从大到小排列
+     */
+    public List<SpaceSavingSketch.Entry> top(int n) {
+        // key -> {count, error, 所在分片的最小计数之和}
+        Map<String, long[]> merged = new HashMap<String, long[]>();
+        long totalMin = 0L;
+        for (SpaceSavingSketch stripe : stripes) {
+            List<SpaceSavingSketch.Entry> entries;
+            long min;
+            synchronized (stripe) {
+                entries = stripe.top(Integer.MAX_VALUE);
+                min = stripe.minCount();
+            }
+            totalMin += min;
+            for (SpaceSavingSketch.Entry entry : entries) {
+                long[] sum = merged.get(entry.getKey());
+                if (sum == null) {
+                    sum = new long[3];
+                    merged.put(entry.getKey(), sum);
+                }
+                sum[0] += entry.getCount();
+                sum[1] += entry.getError();
+                sum[2] += min;
+            }
+        }
+        List<SpaceSavingSketch.Entry> result = new ArrayList<SpaceSavingSketch.Entry>(merged.size());
+        for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+            long[] sum = entry.getValue();
+            long absent = totalMin - sum[2];
+            result.add(new SpaceSavingSketch.Entry(entry.getKey(), sum[0] + absent, sum[1] + absent));
+        }
+        Collections.sort(result, new Comparator<SpaceSavingSketch.Entry>() {
+            @Override
+            public int compare(SpaceSavingSketch.Entry o1, SpaceSavingSketch.Entry o2) {
+                return Long.compare(o2.getCount(), o1.getCount());
+            }
+        });
+        return result.size() > n ? new ArrayList<SpaceSavingSketch.Entry>(result.subList(0, n)) : result;
+    }
+
+    public void decay() {
+        for (SpaceSavingSketch stripe : stripes) {
+            stripe.decay();
+        }
+    }
+
+    public void clear() {
+        for (SpaceSavingSketch stripe : stripes) {
+            stripe.clear();
+        }
+    }
+}